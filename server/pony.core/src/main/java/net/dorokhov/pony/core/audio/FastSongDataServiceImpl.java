@@ -0,0 +1,503 @@
+package net.dorokhov.pony.core.audio;
+
+import net.dorokhov.pony.core.audio.data.SongDataReadable;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads ID3v2.3 / ID3v2.4 frames and the first MPEG frame directly from the file. Anything unusual is left to jaudiotagger.
+ * Values must be exactly the same as jaudiotagger would return, including its way of calculating duration and bit rate.
+ */
+@Primary
+@Service
+public class FastSongDataServiceImpl extends SongDataServiceImpl {
+
+	private static final String FORMAT = "MPEG-1 Layer 3";
+	private static final String MIME_TYPE = "audio/mpeg";
+
+	private static final int TAG_HEADER_SIZE = 10;
+	private static final int FRAME_HEADER_SIZE = 10;
+
+	// Tag is read by small windows, so that artwork data is skipped instead of being read into the heap
+	private static final int TAG_WINDOW_SIZE = 8 * 1024;
+
+	// Encoding, mime type, picture type and description of the artwork must fit into it, otherwise jaudiotagger is used
+	private static final int ARTWORK_HEADER_MAX_SIZE = 1024;
+
+	// Format flags which change frame data: compression, encryption, grouping and (for ID3v2.4) unsynchronisation and data length
+	private static final int FRAME_FLAGS_MASK_V3 = 0x00E0;
+	private static final int FRAME_FLAGS_MASK_V4 = 0x004F;
+
+	// Jaudiotagger does not accept MPEG frame if there are less bytes left in the file
+	private static final int MIN_AUDIO_SIZE = 197;
+	private static final int AUDIO_HEADER_SIZE = 64;
+
+	private static final int[] BIT_RATES = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 0};
+	private static final int[] SAMPLE_RATES = {44100, 48000, 32000, 0};
+
+	private static final int SAMPLES_PER_FRAME = 1152;
+
+	private static final int CHANNEL_MODE_MONO = 3;
+
+	private static final int XING_OFFSET_MONO = 21;
+	private static final int XING_OFFSET_STEREO = 36;
+	private static final int VBRI_OFFSET = 36;
+
+	private static final Pattern FRAME_ID_PATTERN = Pattern.compile("[A-Z0-9]{4}");
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+	private static final Pattern NUMBER_PAIR_PATTERN = Pattern.compile("\\d+(/\\d+)?");
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	private static final Charset[] TEXT_ENCODINGS = {Charset.forName("ISO-8859-1"), Charset.forName("UTF-16"), Charset.forName("UTF-16BE"), Charset.forName("UTF-8")};
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private boolean fastReadingEnabled = true;
+
+	@Value("${library.fastSongReading}")
+	public void setFastReadingEnabled(boolean aFastReadingEnabled) {
+		fastReadingEnabled = aFastReadingEnabled;
+	}
+
+	@Override
+	public SongDataReadable read(File aFile) throws Exception {
+
+		if (fastReadingEnabled) {
+
+			SongDataReadable songData = null;
+
+			try {
+				songData = readFast(aFile);
+			} catch (IOException | RuntimeException e) {
+				log.debug("Could not read file [" + aFile.getAbsolutePath() + "] without jaudiotagger.", e);
+			}
+
+			if (songData != null) {
+				return songData;
+			}
+		}
+
+		return super.read(aFile);
+	}
+
+	/**
+	 * Reads song data without jaudiotagger.
+	 *
+	 * @return song data or null if the file has unusual structure and must be read by jaudiotagger
+	 */
+	public SongDataReadable readFast(File aFile) throws IOException {
+
+		long lastModified = aFile.lastModified();
+
+		try (FileChannel channel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ)) {
+
+			long fileSize = channel.size();
+
+			ByteBuffer tagHeader = read(channel, 0, TAG_HEADER_SIZE);
+
+			if (tagHeader == null || !new String(tagHeader.array(), 0, 3, ASCII).equals("ID3")) {
+				return null;
+			}
+
+			int version = tagHeader.get(3);
+
+			// Flags indicate unsynchronisation, extended header, experimental tag or footer
+			if ((version != 3 && version != 4) || tagHeader.get(5) != 0) {
+				return null;
+			}
+
+			int tagSize = readSyncSafeInteger(tagHeader, 6);
+
+			if (tagSize < 0) {
+				return null;
+			}
+
+			if (TAG_HEADER_SIZE + tagSize > fileSize) {
+				return null;
+			}
+
+			SongDataReadable songData = new SongDataReadable();
+
+			songData.setPath(aFile.getAbsolutePath());
+			songData.setFormat(FORMAT);
+			songData.setMimeType(MIME_TYPE);
+			songData.setSize(fileSize);
+
+			if (!readAudioHeader(channel, TAG_HEADER_SIZE + tagSize, fileSize, songData) || !readFrames(channel, new TagWindow(channel, TAG_HEADER_SIZE + tagSize), version, songData)) {
+				return null;
+			}
+
+			if (songData.getArtwork() != null) {
+				songData.getArtwork().setFileLength(fileSize);
+				songData.getArtwork().setFileLastModified(lastModified);
+			}
+
+			return songData;
+		}
+	}
+
+	private boolean readFrames(FileChannel aChannel, TagWindow aTag, int aVersion, SongDataReadable aSongData) throws IOException {
+
+		Map<String, String> texts = new HashMap<>();
+
+		long position = TAG_HEADER_SIZE;
+
+		ByteBuffer header;
+
+		while ((header = aTag.read(position, FRAME_HEADER_SIZE)) != null && header.get(0) != 0) {
+
+			String id = readId(header, 0);
+
+			int size = aVersion == 4 ? readSyncSafeInteger(header, 4) : header.getInt(4);
+
+			int flags = header.getShort(8) & 0xFFFF;
+
+			long bodyOffset = position + FRAME_HEADER_SIZE;
+
+			if (!FRAME_ID_PATTERN.matcher(id).matches() || size <= 0 || size > aTag.getEnd() - bodyOffset ||
+					(flags & (aVersion == 4 ? FRAME_FLAGS_MASK_V4 : FRAME_FLAGS_MASK_V3)) != 0) {
+				return false;
+			}
+
+			position = bodyOffset + size;
+
+			if (id.equals("APIC")) {
+				// Only the header of the artwork frame is read, binary data is located by offset
+				if (aSongData.getArtwork() == null &&
+						!readArtworkFrame(aChannel, aTag.read(bodyOffset, Math.min(size, ARTWORK_HEADER_MAX_SIZE)), bodyOffset, size, aVersion, aSongData)) {
+					return false;
+				}
+			} else if (id.startsWith("T") && !id.equals("TXXX") && !texts.containsKey(id)) {
+
+				String text = readText(aTag.read(bodyOffset, size), aVersion);
+
+				if (text == null) {
+					return false;
+				}
+
+				texts.put(id, text);
+			}
+		}
+
+		String discNumber = texts.get("TPOS");
+		String trackNumber = texts.get("TRCK");
+		String year = texts.get(aVersion == 4 ? "TDRC" : "TYER");
+		String genre = texts.get("TCON");
+
+		// Values which jaudiotagger could interpret in its own way
+		if ((discNumber != null && !NUMBER_PAIR_PATTERN.matcher(discNumber).matches()) ||
+				(trackNumber != null && !NUMBER_PAIR_PATTERN.matcher(trackNumber).matches()) ||
+				(year != null && !NUMBER_PATTERN.matcher(year).matches()) ||
+				(genre != null && (genre.startsWith("(") || NUMBER_PATTERN.matcher(genre).matches()))) {
+			return false;
+		}
+
+		aSongData.setDiscNumber(parseInteger(StringUtils.substringBefore(discNumber, "/")));
+		aSongData.setDiscCount(parseInteger(StringUtils.substringAfter(discNumber, "/")));
+
+		aSongData.setTrackNumber(parseInteger(StringUtils.substringBefore(trackNumber, "/")));
+		aSongData.setTrackCount(parseInteger(StringUtils.substringAfter(trackNumber, "/")));
+
+		aSongData.setTitle(parseString(texts.get("TIT2")));
+		aSongData.setAlbum(parseString(texts.get("TALB")));
+		aSongData.setYear(parseInteger(year));
+
+		aSongData.setArtist(parseString(texts.get("TPE1")));
+		aSongData.setAlbumArtist(parseString(texts.get("TPE2")));
+
+		aSongData.setGenre(parseString(genre));
+
+		return true;
+	}
+
+	private String readText(ByteBuffer aBody, int aVersion) {
+
+		int encoding = aBody.get();
+
+		if (encoding < 0 || encoding >= (aVersion == 4 ? 4 : 2)) {
+			return null;
+		}
+
+		byte[] bytes = new byte[aBody.remaining()];
+
+		aBody.get(bytes);
+
+		String text = StringUtils.stripEnd(new String(bytes, TEXT_ENCODINGS[encoding]), "\u0000");
+
+		// Multiple values are separated with null character
+		return text.indexOf('\u0000') < 0 ? text : null;
+	}
+
+	private boolean readArtworkFrame(FileChannel aChannel, ByteBuffer aBody, long aBodyOffset, int aBodySize, int aVersion, SongDataReadable aSongData) throws IOException {
+
+		int encoding = aBody.get();
+
+		if (encoding < 0 || encoding >= (aVersion == 4 ? 4 : 2)) {
+			return false;
+		}
+
+		int mimeTypeEnd = indexOfTerminator(aBody, aBody.position(), 1);
+
+		if (mimeTypeEnd < 0) {
+			return false;
+		}
+
+		String mimeType = new String(aBody.array(), aBody.arrayOffset() + aBody.position(), mimeTypeEnd - aBody.position(), TEXT_ENCODINGS[0]);
+
+		// Picture type follows mime type
+		int descriptionStart = mimeTypeEnd + 2;
+
+		int terminatorSize = (encoding == 1 || encoding == 2) ? 2 : 1;
+		int descriptionEnd = indexOfTerminator(aBody, descriptionStart, terminatorSize);
+
+		if (mimeType.equals("-->") || descriptionEnd < 0 || descriptionEnd + terminatorSize >= aBodySize) {
+			return false;
+		}
+
+		long offset = aBodyOffset + descriptionEnd + terminatorSize;
+		long size = aBodySize - descriptionEnd - terminatorSize;
+
+		// Binary data is not copied, checksum is calculated right from the file
+		SongDataReadable.Artwork artwork = new SongDataReadable.Artwork();
+
+		artwork.setMimeType(mimeType);
+		artwork.setSize(size);
+		artwork.setChecksum(getChecksumService().calculateChecksum(aChannel, offset, size));
+		artwork.setOffset(offset);
+
+		aSongData.setArtwork(artwork);
+
+		return true;
+	}
+
+	private boolean readAudioHeader(FileChannel aChannel, long aAudioStart, long aFileSize, SongDataReadable aSongData) throws IOException {
+
+		if (aFileSize - aAudioStart < MIN_AUDIO_SIZE) {
+			return false;
+		}
+
+		ByteBuffer frame = read(aChannel, aAudioStart, AUDIO_HEADER_SIZE);
+
+		int header = frame.getInt(0);
+
+		if (!isSupportedFrameHeader(header)) {
+			return false;
+		}
+
+		int bitRate = BIT_RATES[(header >>> 12) & 0xF];
+		int sampleRate = SAMPLE_RATES[(header >>> 10) & 0x3];
+		int padding = (header >>> 9) & 0x1;
+		int channelMode = (header >>> 6) & 0x3;
+
+		int frameLength = 144 * bitRate * 1000 / sampleRate + padding;
+
+		double timePerFrame = SAMPLES_PER_FRAME / (double) sampleRate;
+
+		Integer vbrFrameCount = null;
+		Integer vbrAudioSize = null;
+
+		boolean isVbr = false;
+
+		int xingOffset = channelMode == CHANNEL_MODE_MONO ? XING_OFFSET_MONO : XING_OFFSET_STEREO;
+
+		String xingId = readId(frame, xingOffset);
+
+		if (xingId.equals("Xing") || xingId.equals("Info")) {
+
+			isVbr = xingId.equals("Xing");
+
+			int flags = frame.getInt(xingOffset + 4);
+			int position = xingOffset + 8;
+
+			if ((flags & 0x1) != 0) {
+				vbrFrameCount = frame.getInt(position);
+				position += 4;
+			}
+			if ((flags & 0x2) != 0) {
+				vbrAudioSize = frame.getInt(position);
+			}
+
+		} else if (readId(frame, VBRI_OFFSET).equals("VBRI")) {
+
+			isVbr = true;
+
+			vbrAudioSize = frame.getInt(VBRI_OFFSET + 10);
+			vbrFrameCount = frame.getInt(VBRI_OFFSET + 14);
+
+		} else {
+
+			ByteBuffer nextFrame = read(aChannel, aAudioStart + frameLength, 4);
+
+			if (nextFrame == null || !isSupportedFrameHeader(nextFrame.getInt(0))) {
+				return false;
+			}
+		}
+
+		long frameCount = vbrFrameCount != null ? vbrFrameCount : (aFileSize - aAudioStart) / frameLength;
+
+		if (frameCount <= 0) {
+			return false;
+		}
+
+		long averageBitRate = bitRate;
+
+		if (isVbr) {
+			if (vbrAudioSize != null && vbrAudioSize > 0) {
+				averageBitRate = (long) ((vbrAudioSize * 8) / (timePerFrame * frameCount * 1000.0));
+			} else {
+				averageBitRate = (long) (((aFileSize - aAudioStart) * 8) / (timePerFrame * frameCount * 1000.0));
+			}
+		}
+
+		aSongData.setDuration((int) (frameCount * timePerFrame));
+		aSongData.setBitRate(averageBitRate);
+
+		return true;
+	}
+
+	private boolean isSupportedFrameHeader(int aHeader) {
+
+		int sync = (aHeader >>> 21) & 0x7FF;
+		int version = (aHeader >>> 19) & 0x3;
+		int layer = (aHeader >>> 17) & 0x3;
+		int bitRateIndex = (aHeader >>> 12) & 0xF;
+		int sampleRateIndex = (aHeader >>> 10) & 0x3;
+		int emphasis = aHeader & 0x3;
+
+		// MPEG-1 Layer 3 only, free format is not supported
+		return sync == 0x7FF && version == 3 && layer == 1 && BIT_RATES[bitRateIndex] > 0 && SAMPLE_RATES[sampleRateIndex] > 0 && emphasis != 2;
+	}
+
+	private static ByteBuffer read(FileChannel aChannel, long aPosition, int aSize) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.allocate(aSize);
+
+		while (buffer.hasRemaining()) {
+			if (aChannel.read(buffer, aPosition + buffer.position()) < 0) {
+				return null;
+			}
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	private int readSyncSafeInteger(ByteBuffer aBuffer, int aPosition) {
+
+		int result = 0;
+
+		for (int i = 0; i < 4; i++) {
+
+			int value = aBuffer.get(aPosition + i);
+
+			if ((value & 0x80) != 0) {
+				return -1;
+			}
+
+			result = (result << 7) | value;
+		}
+
+		return result;
+	}
+
+	private String readId(ByteBuffer aBuffer, int aPosition) {
+		return new String(aBuffer.array(), aBuffer.arrayOffset() + aPosition, 4, ASCII);
+	}
+
+	private int indexOfTerminator(ByteBuffer aBuffer, int aStart, int aTerminatorSize) {
+
+		for (int i = aStart; i + aTerminatorSize <= aBuffer.limit(); i += aTerminatorSize) {
+			if (aBuffer.get(i) == 0 && (aTerminatorSize == 1 || aBuffer.get(i + 1) == 0)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private String parseString(String aValue) {
+		return StringUtils.trim(StringUtils.defaultIfBlank(aValue, null));
+	}
+
+	private Integer parseInteger(String aValue) {
+
+		Integer result = null;
+
+		if (aValue != null) {
+			try {
+				result = Integer.valueOf(aValue);
+			} catch (NumberFormatException ignored) {}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Window of the tag read from the file, regions inside the window are served without reading the file again.
+	 */
+	private static class TagWindow {
+
+		private final FileChannel channel;
+
+		private final long end;
+
+		private ByteBuffer window;
+
+		private long windowStart;
+
+		public TagWindow(FileChannel aChannel, long aEnd) {
+			channel = aChannel;
+			end = aEnd;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		/**
+		 * @return buffer with the region or null if the region exceeds the tag
+		 */
+		public ByteBuffer read(long aPosition, int aSize) throws IOException {
+
+			if (aPosition + aSize > end) {
+				return null;
+			}
+
+			if (window == null || aPosition < windowStart || aPosition + aSize > windowStart + window.limit()) {
+
+				window = FastSongDataServiceImpl.read(channel, aPosition, (int) Math.max(aSize, Math.min(TAG_WINDOW_SIZE, end - aPosition)));
+				windowStart = aPosition;
+
+				if (window == null) {
+					return null;
+				}
+			}
+
+			ByteBuffer region = window.duplicate();
+
+			region.position((int) (aPosition - windowStart));
+
+			ByteBuffer result = region.slice();
+
+			result.limit(aSize);
+
+			return result;
+		}
+	}
+
+}
@@ -11,4 +11,17 @@ public interface SongDataService {
 
 	public SongDataReadable write(File aFile, SongDataWritable aSongData) throws Exception;
 
+	/**
+	 * Reads binary data of the artwork embedded into the file.
+	 *
+	 * @param aChecksum checksum of the artwork read earlier, exception is thrown if the artwork has been changed since then
+	 */
+	public byte[] readArtwork(File aFile, String aChecksum) throws Exception;
+
+	/**
+	 * Reads binary data of the artwork embedded into the file. If position of the artwork is known and the file has not been modified,
+	 * only the artwork is read, otherwise it is read like {@link #readArtwork(File, String)}.
+	 */
+	public byte[] readArtwork(File aFile, SongDataReadable.Artwork aArtwork) throws Exception;
+
 }
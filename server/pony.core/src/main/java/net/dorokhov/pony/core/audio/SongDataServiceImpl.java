@@ -14,6 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 @Service
 public class SongDataServiceImpl implements SongDataService {
@@ -25,6 +28,10 @@ public class SongDataServiceImpl implements SongDataService {
 		checksumService = aChecksumService;
 	}
 
+	protected ChecksumService getChecksumService() {
+		return checksumService;
+	}
+
 	@Override
 	public SongDataReadable read(File aFile) throws Exception {
 		return readSongData(AudioFileIO.read(aFile));
@@ -93,6 +100,49 @@ public class SongDataServiceImpl implements SongDataService {
 		return readSongData(audioFile);
 	}
 
+	@Override
+	public byte[] readArtwork(File aFile, String aChecksum) throws Exception {
+
+		Tag tag = AudioFileIO.read(aFile).getTag();
+
+		Artwork artwork = tag != null ? tag.getFirstArtwork() : null;
+
+		if (artwork == null || artwork.getBinaryData() == null) {
+			throw new Exception("Artwork not found in file [" + aFile.getAbsolutePath() + "].");
+		}
+
+		byte[] binaryData = artwork.getBinaryData();
+
+		if (!checksumService.calculateChecksum(binaryData).equals(aChecksum)) {
+			throw new Exception("Artwork of file [" + aFile.getAbsolutePath() + "] has been changed.");
+		}
+
+		return binaryData;
+	}
+
+	@Override
+	public byte[] readArtwork(File aFile, SongDataReadable.Artwork aArtwork) throws Exception {
+
+		if (aArtwork.getOffset() != null && aArtwork.getFileLength() == aFile.length() && aArtwork.getFileLastModified() == aFile.lastModified()) {
+
+			byte[] binaryData = new byte[aArtwork.getSize().intValue()];
+
+			ByteBuffer buffer = ByteBuffer.wrap(binaryData);
+
+			try (FileChannel channel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ)) {
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, aArtwork.getOffset() + buffer.position()) < 0) {
+						throw new Exception("Artwork of file [" + aFile.getAbsolutePath() + "] has been changed.");
+					}
+				}
+			}
+
+			return binaryData;
+		}
+
+		return readArtwork(aFile, aArtwork.getChecksum());
+	}
+
 	private String parseStringTag(Tag aTag, FieldKey aKey) {
 		return StringUtils.defaultIfBlank(aTag.getFirst(aKey), null);
 	}
@@ -175,14 +225,19 @@ public class SongDataServiceImpl implements SongDataService {
 
 		if (artwork != null && artwork.getBinaryData() != null) {
 
-			SongDataReadable.Artwork songDataArtwork = new SongDataReadable.Artwork();
+			aSongData.setArtwork(buildArtwork(artwork.getMimeType(), artwork.getBinaryData()));
+		}
+	}
 
-			songDataArtwork.setBinaryData(artwork.getBinaryData());
-			songDataArtwork.setChecksum(checksumService.calculateChecksum(artwork.getBinaryData()));
-			songDataArtwork.setMimeType(artwork.getMimeType());
+	protected SongDataReadable.Artwork buildArtwork(String aMimeType, byte[] aBinaryData) {
 
-			aSongData.setArtwork(songDataArtwork);
-		}
+		SongDataReadable.Artwork artwork = new SongDataReadable.Artwork();
+
+		artwork.setMimeType(aMimeType);
+		artwork.setSize((long) aBinaryData.length);
+		artwork.setChecksum(checksumService.calculateChecksum(aBinaryData));
+
+		return artwork;
 	}
 
 }
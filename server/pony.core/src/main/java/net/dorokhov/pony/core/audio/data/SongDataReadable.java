@@ -95,21 +95,23 @@ public class SongDataReadable extends SongDataAbstract {
 				'}';
 	}
 
+	/**
+	 * Handle of embedded artwork. Binary data is not kept, it can be read with {@link net.dorokhov.pony.core.audio.SongDataService#readArtwork}.
+	 */
 	public static class Artwork {
 
-		private byte[] binaryData;
-
 		private String mimeType;
 
+		private Long size;
+
 		private String checksum;
 
-		public byte[] getBinaryData() {
-			return binaryData;
-		}
+		// Position of binary data in the file, if it is known, it is valid while length and modification date of the file are the same
+		private Long offset;
 
-		public void setBinaryData(byte[] aBinaryData) {
-			binaryData = aBinaryData;
-		}
+		private Long fileLength;
+
+		private Long fileLastModified;
 
 		public String getMimeType() {
 			return mimeType;
@@ -119,6 +121,14 @@ public class SongDataReadable extends SongDataAbstract {
 			mimeType = aMimeType;
 		}
 
+		public Long getSize() {
+			return size;
+		}
+
+		public void setSize(Long aSize) {
+			size = aSize;
+		}
+
 		public String getChecksum() {
 			return checksum;
 		}
@@ -127,10 +137,35 @@ public class SongDataReadable extends SongDataAbstract {
 			checksum = aChecksum;
 		}
 
+		public Long getOffset() {
+			return offset;
+		}
+
+		public void setOffset(Long aOffset) {
+			offset = aOffset;
+		}
+
+		public Long getFileLength() {
+			return fileLength;
+		}
+
+		public void setFileLength(Long aFileLength) {
+			fileLength = aFileLength;
+		}
+
+		public Long getFileLastModified() {
+			return fileLastModified;
+		}
+
+		public void setFileLastModified(Long aFileLastModified) {
+			fileLastModified = aFileLastModified;
+		}
+
 		@Override
 		public String toString() {
 			return "Artwork{" +
 					"mimeType='" + mimeType + '\'' +
+					", size=" + size +
 					", checksum='" + checksum + '\'' +
 					'}';
 		}
@@ -0,0 +1,132 @@
+package net.dorokhov.pony.core.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input stream of the region of the file. Remaining part of the region can be transferred to a channel
+ * without copying it through the heap, see {@link #transferTo(WritableByteChannel)}.
+ */
+public class FileRegionInputStream extends InputStream {
+
+	private final FileChannel channel;
+
+	private final long offset;
+
+	private final long length;
+
+	private long position = 0;
+
+	private long mark = 0;
+
+	public FileRegionInputStream(File aFile) throws IOException {
+		this(aFile, 0, aFile.length());
+	}
+
+	public FileRegionInputStream(File aFile, long aOffset, long aLength) throws IOException {
+
+		channel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ);
+
+		offset = aOffset;
+		length = aLength;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		byte[] buffer = new byte[1];
+
+		return read(buffer, 0, 1) > 0 ? buffer[0] & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] aBuffer, int aOffset, int aLength) throws IOException {
+
+		if (aLength == 0) {
+			return 0;
+		}
+
+		long remaining = length - position;
+
+		if (remaining <= 0) {
+			return -1;
+		}
+
+		int count = channel.read(ByteBuffer.wrap(aBuffer, aOffset, (int) Math.min(aLength, remaining)), offset + position);
+
+		if (count > 0) {
+			position += count;
+		}
+
+		return count;
+	}
+
+	@Override
+	public long skip(long aCount) throws IOException {
+
+		long count = Math.max(Math.min(aCount, length - position), 0);
+
+		position += count;
+
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(length - position, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int aReadLimit) {
+		mark = position;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		position = mark;
+	}
+
+	/**
+	 * Transfers remaining part of the region to the target channel.
+	 *
+	 * @return number of bytes transferred
+	 */
+	public long transferTo(WritableByteChannel aTarget) throws IOException {
+
+		long transferred = 0;
+
+		while (position < length) {
+
+			long count = channel.transferTo(offset + position, length - position, aTarget);
+
+			if (count <= 0) {
+				break;
+			}
+
+			position += count;
+			transferred += count;
+		}
+
+		return transferred;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
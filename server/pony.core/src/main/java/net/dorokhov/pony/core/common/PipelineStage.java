@@ -0,0 +1,317 @@
+package net.dorokhov.pony.core.common;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PipelineStage<I, O> {
+
+	private static final Object END_OF_INPUT = new Object();
+
+	// Blocking operations check for failure of the stage with this interval
+	private static final long FAILURE_CHECK_INTERVAL = 100;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final BlockingQueue<Object> queue;
+
+	private final ExecutorService executor;
+
+	private final int threadCount;
+
+	private final int batchSize;
+
+	private final StreamHandler<I, O> handler;
+
+	private final PipelineStage<O, ?> nextStage;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private volatile boolean aborted = false;
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, Handler<I, O> aHandler) {
+		this(aName, aThreadCount, aQueueSize, aHandler, null);
+	}
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, Handler<I, O> aHandler, PipelineStage<O, ?> aNextStage) {
+		this(aName, aThreadCount, aQueueSize, 1, new SingleItemHandler<>(aHandler), aNextStage);
+	}
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, int aBatchSize, BatchHandler<I, O> aHandler) {
+		this(aName, aThreadCount, aQueueSize, aBatchSize, aHandler, null);
+	}
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, int aBatchSize, BatchHandler<I, O> aHandler, PipelineStage<O, ?> aNextStage) {
+		this(aName, aThreadCount, aQueueSize, aBatchSize, new BatchItemHandler<>(aHandler), aNextStage);
+	}
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, int aBatchSize, StreamHandler<I, O> aHandler) {
+		this(aName, aThreadCount, aQueueSize, aBatchSize, aHandler, null);
+	}
+
+	public PipelineStage(String aName, int aThreadCount, int aQueueSize, int aBatchSize, StreamHandler<I, O> aHandler, PipelineStage<O, ?> aNextStage) {
+
+		queue = new ArrayBlockingQueue<>(aQueueSize);
+		executor = Executors.newFixedThreadPool(aThreadCount, new BasicThreadFactory.Builder().namingPattern(aName + "-%d").build());
+
+		threadCount = aThreadCount;
+		batchSize = Math.max(aBatchSize, 1);
+		handler = aHandler;
+		nextStage = aNextStage;
+
+		for (int i = 0; i < threadCount; i++) {
+			executor.submit(new Worker());
+		}
+	}
+
+	/**
+	 * Puts item into the stage queue, blocks while the queue is full. Throws exception if the stage has failed or has been aborted.
+	 */
+	public void put(I aItem) throws InterruptedException {
+		putItem(aItem);
+	}
+
+	/**
+	 * Puts item into the stage queue, if there is free space in it. Throws exception if the stage has failed or has been aborted.
+	 */
+	public boolean offer(I aItem) {
+
+		checkState();
+
+		return queue.offer(aItem);
+	}
+
+	/**
+	 * Waits for all items of this and subsequent stages to be processed. Throws exception if any of the stages has failed.
+	 */
+	public void finish() throws InterruptedException {
+
+		for (int i = 0; i < threadCount; i++) {
+			putItem(END_OF_INPUT);
+		}
+
+		executor.shutdown();
+
+		while (!executor.awaitTermination(FAILURE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+			checkState();
+		}
+
+		checkState();
+
+		if (nextStage != null) {
+			nextStage.finish();
+		}
+	}
+
+	public boolean isFailed() {
+		return failure.get() != null || aborted;
+	}
+
+	public void abort() {
+
+		aborted = true;
+
+		executor.shutdownNow();
+
+		if (nextStage != null) {
+			nextStage.abort();
+		}
+	}
+
+	private void putItem(Object aItem) throws InterruptedException {
+
+		checkState();
+
+		// Workers of the failed stage don't take items anymore, waiting is stopped when failure is detected
+		while (!queue.offer(aItem, FAILURE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+			checkState();
+		}
+	}
+
+	private void checkState() {
+
+		Throwable e = failure.get();
+
+		if (e != null) {
+			throw new RuntimeException("Pipeline stage has failed.", e);
+		}
+		if (aborted) {
+			throw new RuntimeException("Pipeline stage has been aborted.");
+		}
+	}
+
+	public static interface Handler<I, O> {
+
+		/**
+		 * Processes the item. Returned value is passed to the next stage, if not null.
+		 */
+		public O process(I aItem) throws Exception;
+
+	}
+
+	public static interface BatchHandler<I, O> {
+
+		/**
+		 * Processes the batch of items. Returned values are passed to the next stage, if not null.
+		 */
+		public List<O> process(List<I> aItems) throws Exception;
+
+	}
+
+	public static interface StreamHandler<I, O> {
+
+		/**
+		 * Processes the batch of items. Values passed to the output go to the next stage right away.
+		 */
+		public void process(List<I> aItems, Output<O> aOutput) throws Exception;
+
+	}
+
+	public static interface Output<O> {
+
+		/**
+		 * Passes the value to the next stage, blocks while the next stage queue is full.
+		 */
+		public void put(O aItem) throws InterruptedException;
+
+		/**
+		 * Passes the value to the next stage, if it can be done without blocking.
+		 */
+		public boolean offer(O aItem);
+
+	}
+
+	private static class SingleItemHandler<I, O> implements BatchHandler<I, O> {
+
+		private final Logger log = LoggerFactory.getLogger(getClass());
+
+		private final Handler<I, O> handler;
+
+		private SingleItemHandler(Handler<I, O> aHandler) {
+			handler = aHandler;
+		}
+
+		@Override
+		public List<O> process(List<I> aItems) throws Exception {
+
+			List<O> result = new ArrayList<>();
+
+			for (I item : aItems) {
+				try {
+					result.add(handler.process(item));
+				} catch (Exception e) {
+					log.error("Could not process item [" + item + "].", e);
+				}
+			}
+
+			return result;
+		}
+	}
+
+	private static class BatchItemHandler<I, O> implements StreamHandler<I, O> {
+
+		private final BatchHandler<I, O> handler;
+
+		private BatchItemHandler(BatchHandler<I, O> aHandler) {
+			handler = aHandler;
+		}
+
+		@Override
+		public void process(List<I> aItems, Output<O> aOutput) throws Exception {
+
+			List<O> result = handler.process(aItems);
+
+			if (result != null) {
+				for (O resultItem : result) {
+					aOutput.put(resultItem);
+				}
+			}
+		}
+	}
+
+	private class NextStageOutput implements Output<O> {
+
+		@Override
+		public void put(O aItem) throws InterruptedException {
+			if (aItem != null && nextStage != null) {
+				nextStage.put(aItem);
+			}
+		}
+
+		@Override
+		public boolean offer(O aItem) {
+			return aItem == null || nextStage == null || nextStage.offer(aItem);
+		}
+	}
+
+	private class Worker implements Runnable {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void run() {
+			try {
+
+				Output<O> output = new NextStageOutput();
+
+				boolean endOfInput = false;
+
+				while (!endOfInput) {
+
+					Object item = queue.take();
+
+					if (item == END_OF_INPUT) {
+						break;
+					}
+
+					List<I> batch = new ArrayList<>();
+
+					batch.add((I) item);
+
+					// Batch is filled only with items already waiting in the queue, so that processing is never delayed
+					while (batch.size() < batchSize && (item = queue.poll()) != null) {
+
+						if (item == END_OF_INPUT) {
+
+							endOfInput = true;
+
+							break;
+						}
+
+						batch.add((I) item);
+					}
+
+					try {
+						handler.process(batch, output);
+					} catch (InterruptedException e) {
+						throw e;
+					} catch (Exception e) {
+
+						// Items cannot be passed anymore, this stage fails too
+						if (nextStage != null && nextStage.isFailed()) {
+							throw new RuntimeException("Next pipeline stage has failed.", e);
+						}
+
+						log.error("Could not process items " + batch + ".", e);
+					}
+				}
+
+			} catch (InterruptedException e) {
+				log.debug("Pipeline stage has been interrupted.");
+			} catch (Throwable e) {
+
+				log.error("Pipeline stage has failed.", e);
+
+				failure.compareAndSet(null, e);
+
+				// Other workers are stopped, so that waiting for the stage to finish is not needed
+				executor.shutdownNow();
+			}
+		}
+	}
+
+}
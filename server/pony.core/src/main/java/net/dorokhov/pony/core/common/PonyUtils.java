@@ -1,6 +1,8 @@
 package net.dorokhov.pony.core.common;
 
+import java.io.File;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class PonyUtils {
@@ -66,4 +68,18 @@ public class PonyUtils {
 		return sb.toString();
 	}
 
+	public static boolean isPathInFolders(String aPath, List<File> aFolders) {
+
+		for (File folder : aFolders) {
+
+			String folderPath = folder.getAbsolutePath();
+
+			if (aPath.equals(folderPath) || aPath.startsWith(folderPath + File.separator)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 }
@@ -0,0 +1,89 @@
+package net.dorokhov.pony.core.common;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class StripedLock {
+
+	private final ReadWriteLock[] stripes;
+
+	public StripedLock(int aStripeCount) {
+
+		stripes = new ReadWriteLock[aStripeCount];
+
+		for (int i = 0; i < aStripeCount; i++) {
+			stripes[i] = new ReentrantReadWriteLock();
+		}
+	}
+
+	/**
+	 * Locks stripes of all the given keys. Stripes are always acquired in the same order to avoid deadlocks.
+	 * If both exclusive and shared keys fall into the same stripe, the stripe is locked exclusively.
+	 */
+	public LockedStripes lock(Collection<?> aExclusiveKeys, Collection<?> aSharedKeys) {
+
+		SortedMap<Integer, Boolean> exclusiveByIndex = new TreeMap<>();
+
+		for (Object key : aSharedKeys) {
+			exclusiveByIndex.put(getStripeIndex(key), false);
+		}
+		for (Object key : aExclusiveKeys) {
+			exclusiveByIndex.put(getStripeIndex(key), true);
+		}
+
+		List<Lock> lockedStripes = new ArrayList<>();
+
+		try {
+			for (Map.Entry<Integer, Boolean> entry : exclusiveByIndex.entrySet()) {
+
+				ReadWriteLock stripe = stripes[entry.getKey()];
+
+				Lock stripeLock = entry.getValue() ? stripe.writeLock() : stripe.readLock();
+
+				stripeLock.lock();
+
+				lockedStripes.add(stripeLock);
+			}
+		} catch (RuntimeException | Error e) {
+
+			unlock(lockedStripes);
+
+			throw e;
+		}
+
+		return new LockedStripes(lockedStripes);
+	}
+
+	private int getStripeIndex(Object aKey) {
+
+		int hash = aKey != null ? aKey.hashCode() : 0;
+
+		// Spread hash bits, keys often differ only in their last characters
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		hash ^= (hash >>> 7) ^ (hash >>> 4);
+
+		return (hash & Integer.MAX_VALUE) % stripes.length;
+	}
+
+	private static void unlock(List<Lock> aStripeLocks) {
+		for (int i = aStripeLocks.size() - 1; i >= 0; i--) {
+			aStripeLocks.get(i).unlock();
+		}
+	}
+
+	public static class LockedStripes {
+
+		private final List<Lock> stripeLocks;
+
+		private LockedStripes(List<Lock> aStripeLocks) {
+			stripeLocks = aStripeLocks;
+		}
+
+		public void unlock() {
+			StripedLock.unlock(stripeLocks);
+		}
+	}
+
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 public interface AlbumDao extends PagingAndSortingRepository<Album, Long> {
 
@@ -19,12 +21,26 @@ public interface AlbumDao extends PagingAndSortingRepository<Album, Long> {
 
 	public Album findByArtistIdAndName(Long aArtistId, String aName);
 
+	@Query("SELECT al.id, al.artist.id, al.name, al.year FROM Album al")
+	public List<Object[]> findIdsAndNames();
+
 	public Page<Album> findByArtistIdAndArtworkNotNull(Long aArtistId, Pageable aPageable);
 
 	public Page<Album> findByArtworkId(Long aStoredFileId, Pageable aPageable);
 
+	@Query("SELECT al FROM Album al WHERE al.id IN ?1 AND NOT EXISTS (SELECT s.id FROM Song s WHERE s.album.id = al.id)")
+	public List<Album> findNotUsedByIdIn(Collection<Long> aIds);
+
 	@Modifying
 	@Query("UPDATE Album al SET al.artwork = NULL WHERE al.artwork.id = ?1")
 	public void clearArtworkByArtworkId(Long aStoredFileId);
 
+	@Modifying
+	@Query("UPDATE Album al SET al.artwork = NULL WHERE al.artwork.id IN ?1")
+	public void clearArtworkByArtworkIdIn(Collection<Long> aStoredFileIds);
+
+	@Modifying
+	@Query("DELETE FROM Album al WHERE al.id IN ?1")
+	public void deleteByIdIn(Collection<Long> aIds);
+
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -19,14 +20,28 @@ public interface ArtistDao extends PagingAndSortingRepository<Artist, Long> {
 
 	public Artist findByName(String aName);
 
+	@Query("SELECT ar.id, ar.name FROM Artist ar")
+	public List<Object[]> findIdsAndNames();
+
 	@Query("SELECT ar FROM Artist ar " +
 			"LEFT JOIN FETCH ar.artwork ")
 	List<Artist> findAll(Sort sort);
 
 	public Page<Artist> findByArtworkId(Long aStoredFileId, Pageable aPageable);
 
+	@Query("SELECT ar FROM Artist ar WHERE ar.id IN ?1 AND NOT EXISTS (SELECT al.id FROM Album al WHERE al.artist.id = ar.id)")
+	public List<Artist> findNotUsedByIdIn(Collection<Long> aIds);
+
 	@Modifying
 	@Query("UPDATE Artist ar SET ar.artwork = NULL WHERE ar.artwork.id = ?1")
 	public void clearArtworkByArtworkId(Long aStoredFileId);
 
+	@Modifying
+	@Query("UPDATE Artist ar SET ar.artwork = NULL WHERE ar.artwork.id IN ?1")
+	public void clearArtworkByArtworkIdIn(Collection<Long> aStoredFileIds);
+
+	@Modifying
+	@Query("DELETE FROM Artist ar WHERE ar.id IN ?1")
+	public void deleteByIdIn(Collection<Long> aIds);
+
 }
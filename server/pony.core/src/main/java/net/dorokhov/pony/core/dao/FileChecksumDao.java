@@ -0,0 +1,10 @@
+package net.dorokhov.pony.core.dao;
+
+import net.dorokhov.pony.core.domain.FileChecksum;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+public interface FileChecksumDao extends PagingAndSortingRepository<FileChecksum, Long> {
+
+	public FileChecksum findByPath(String aPath);
+
+}
@@ -0,0 +1,10 @@
+package net.dorokhov.pony.core.dao;
+
+import net.dorokhov.pony.core.domain.FolderManifest;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+public interface FolderManifestDao extends PagingAndSortingRepository<FolderManifest, Long> {
+
+	public FolderManifest findByPath(String aPath);
+
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 public interface GenreDao extends PagingAndSortingRepository<Genre, Long> {
 
@@ -17,10 +19,24 @@ public interface GenreDao extends PagingAndSortingRepository<Genre, Long> {
 
 	public Genre findByName(String aName);
 
+	@Query("SELECT g.id, g.name FROM Genre g")
+	public List<Object[]> findIdsAndNames();
+
 	public Page<Genre> findByArtworkId(Long aStoredFileId, Pageable aPageable);
 
+	@Query("SELECT g FROM Genre g WHERE g.id IN ?1 AND NOT EXISTS (SELECT s.id FROM Song s WHERE s.genre.id = g.id)")
+	public List<Genre> findNotUsedByIdIn(Collection<Long> aIds);
+
 	@Modifying
 	@Query("UPDATE Genre g SET g.artwork = NULL WHERE g.artwork.id = ?1")
 	public void clearArtworkByArtworkId(Long aStoredFileId);
 
+	@Modifying
+	@Query("UPDATE Genre g SET g.artwork = NULL WHERE g.artwork.id IN ?1")
+	public void clearArtworkByArtworkIdIn(Collection<Long> aStoredFileIds);
+
+	@Modifying
+	@Query("DELETE FROM Genre g WHERE g.id IN ?1")
+	public void deleteByIdIn(Collection<Long> aIds);
+
 }
@@ -3,9 +3,11 @@ package net.dorokhov.pony.core.dao;
 import net.dorokhov.pony.core.domain.LogMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 import java.util.Date;
+import java.util.List;
 
 public interface LogMessageDao extends PagingAndSortingRepository<LogMessage, Long> {
 
@@ -13,4 +15,14 @@ public interface LogMessageDao extends PagingAndSortingRepository<LogMessage, Lo
 
 	public Page<LogMessage> findByTypeGreaterThanEqualAndDateBetween(LogMessage.Type aType, Date aMinDate, Date aMaxDate, Pageable aPageable);
 
+	public long countByTypeGreaterThanEqualAndDateBetween(LogMessage.Type aType, Date aMinDate, Date aMaxDate);
+
+	@Query("SELECT m FROM LogMessage m WHERE m.type >= ?1 AND m.date BETWEEN ?2 AND ?3 " +
+			"ORDER BY m.date DESC, m.id DESC")
+	public List<LogMessage> seekByTypeAndDate(LogMessage.Type aType, Date aMinDate, Date aMaxDate, Pageable aPageable);
+
+	@Query("SELECT m FROM LogMessage m WHERE m.type >= ?1 AND m.date BETWEEN ?2 AND ?3 AND (m.date < ?4 OR (m.date = ?4 AND m.id < ?5)) " +
+			"ORDER BY m.date DESC, m.id DESC")
+	public List<LogMessage> seekByTypeAndDate(LogMessage.Type aType, Date aMinDate, Date aMaxDate, Date aLastDate, Long aLastId, Pageable aPageable);
+
 }
@@ -0,0 +1,31 @@
+package net.dorokhov.pony.core.dao;
+
+import java.util.Collection;
+
+public interface NormalizationDao {
+
+	/**
+	 * Sets artwork of albums without artwork to the artwork of the first album song having artwork.
+	 *
+	 * @param aAlbumIds ids of albums to update or null to update all albums
+	 * @return number of updated albums
+	 */
+	public int updateAlbumArtworks(Collection<Long> aAlbumIds);
+
+	/**
+	 * Sets artwork of genres without artwork to the artwork of the genre song in the middle of the list sorted by year.
+	 *
+	 * @param aGenreIds ids of genres to update or null to update all genres
+	 * @return number of updated genres
+	 */
+	public int updateGenreArtworks(Collection<Long> aGenreIds);
+
+	/**
+	 * Sets artwork of artists without artwork to the artwork of the artist album in the middle of the list sorted by year.
+	 *
+	 * @param aArtistIds ids of artists to update or null to update all artists
+	 * @return number of updated artists
+	 */
+	public int updateArtistArtworks(Collection<Long> aArtistIds);
+
+}
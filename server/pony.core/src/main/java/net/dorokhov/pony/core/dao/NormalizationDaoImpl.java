@@ -0,0 +1,111 @@
+package net.dorokhov.pony.core.dao;
+
+import net.dorokhov.pony.core.common.Partition;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class NormalizationDaoImpl implements NormalizationDao {
+
+	private static final int IDS_BUFFER_SIZE = 500;
+
+	private EntityManager entityManager;
+
+	@PersistenceContext
+	public void setEntityManager(EntityManager aEntityManager) {
+		entityManager = aEntityManager;
+	}
+
+	@Override
+	@Transactional
+	public int updateAlbumArtworks(Collection<Long> aAlbumIds) {
+		return executeUpdate(aAlbumIds, new QueryBuilder() {
+			@Override
+			public String build(String aFilter) {
+				return "UPDATE album al SET " +
+						"artwork_stored_file_id = (SELECT s.artwork_stored_file_id FROM song s WHERE s.id = " +
+						"(SELECT MIN(s2.id) FROM song s2 WHERE s2.album_id = al.id AND s2.artwork_stored_file_id IS NOT NULL)), " +
+						"update_date = CURRENT_TIMESTAMP " +
+						"WHERE al.artwork_stored_file_id IS NULL " + aFilter.replace("{id}", "al.id") +
+						"AND EXISTS (SELECT s.id FROM song s WHERE s.album_id = al.id AND s.artwork_stored_file_id IS NOT NULL)";
+			}
+		});
+	}
+
+	@Override
+	@Transactional
+	public int updateGenreArtworks(Collection<Long> aGenreIds) {
+		return executeUpdate(aGenreIds, new QueryBuilder() {
+			@Override
+			public String build(String aFilter) {
+				return buildMedianArtworkQuery("genre", "song", "genre_id", aFilter);
+			}
+		});
+	}
+
+	@Override
+	@Transactional
+	public int updateArtistArtworks(Collection<Long> aArtistIds) {
+		return executeUpdate(aArtistIds, new QueryBuilder() {
+			@Override
+			public String build(String aFilter) {
+				return buildMedianArtworkQuery("artist", "album", "artist_id", aFilter);
+			}
+		});
+	}
+
+	private int executeUpdate(Collection<Long> aIds, QueryBuilder aBuilder) {
+
+		if (aIds == null) {
+			return entityManager.createNativeQuery(aBuilder.build("")).executeUpdate();
+		}
+
+		int result = 0;
+
+		for (List<Long> chunk : Partition.partition(new ArrayList<>(aIds), IDS_BUFFER_SIZE)) {
+
+			Query query = entityManager.createNativeQuery(aBuilder.build("AND {id} IN (:ids) "));
+
+			query.setParameter("ids", chunk);
+
+			result += query.executeUpdate();
+		}
+
+		return result;
+	}
+
+	/**
+	 * H2 does not support window functions and OFFSET cannot refer to the updated row, so the middle row of each parent
+	 * is found by numbering rows of the sorted list and taking the row at the first position of the parent plus half of its row count.
+	 */
+	private String buildMedianArtworkQuery(String aParentTable, String aChildTable, String aParentColumn, String aFilter) {
+
+		String sortedChildren = "(SELECT c." + aParentColumn + ", c.artwork_stored_file_id FROM " + aChildTable + " c " +
+				"INNER JOIN " + aParentTable + " p ON p.id = c." + aParentColumn + " " +
+				"WHERE p.artwork_stored_file_id IS NULL AND c.artwork_stored_file_id IS NOT NULL " + aFilter.replace("{id}", "p.id") +
+				"ORDER BY c." + aParentColumn + ", c.year, c.id) t";
+
+		return "MERGE INTO " + aParentTable + " (id, artwork_stored_file_id, update_date) KEY (id) " +
+				"SELECT r." + aParentColumn + ", r.artwork_stored_file_id, CURRENT_TIMESTAMP FROM " +
+				"(SELECT ROWNUM() pos, t." + aParentColumn + ", t.artwork_stored_file_id FROM " + sortedChildren + ") r " +
+				"INNER JOIN " +
+				"(SELECT m." + aParentColumn + ", MIN(m.pos) + COUNT(m.pos) / 2 median_pos FROM " +
+				"(SELECT ROWNUM() pos, t." + aParentColumn + " FROM " + sortedChildren + ") m " +
+				"GROUP BY m." + aParentColumn + ") median " +
+				"ON r." + aParentColumn + " = median." + aParentColumn + " AND r.pos = median.median_pos";
+	}
+
+	private interface QueryBuilder {
+
+		public String build(String aFilter);
+
+	}
+
+}
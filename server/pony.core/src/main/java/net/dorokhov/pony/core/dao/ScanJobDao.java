@@ -3,12 +3,21 @@ package net.dorokhov.pony.core.dao;
 import net.dorokhov.pony.core.domain.ScanJob;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public interface ScanJobDao extends PagingAndSortingRepository<ScanJob, Long> {
 
 	public Page<ScanJob> findByStatusIn(Collection<ScanJob.Status> aStatuses, Pageable aPageable);
 
+	@Query("SELECT j FROM ScanJob j ORDER BY j.creationDate DESC, j.id DESC")
+	public List<ScanJob> seek(Pageable aPageable);
+
+	@Query("SELECT j FROM ScanJob j WHERE j.creationDate < ?1 OR (j.creationDate = ?1 AND j.id < ?2) ORDER BY j.creationDate DESC, j.id DESC")
+	public List<ScanJob> seek(Date aLastCreationDate, Long aLastId, Pageable aPageable);
+
 }
@@ -1,8 +1,19 @@
 package net.dorokhov.pony.core.dao;
 
 import net.dorokhov.pony.core.domain.ScanResult;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Date;
+import java.util.List;
+
 public interface ScanResultDao extends PagingAndSortingRepository<ScanResult, Long> {
 
+	@Query("SELECT r FROM ScanResult r ORDER BY r.date DESC, r.id DESC")
+	public List<ScanResult> seek(Pageable aPageable);
+
+	@Query("SELECT r FROM ScanResult r WHERE r.date < ?1 OR (r.date = ?1 AND r.id < ?2) ORDER BY r.date DESC, r.id DESC")
+	public List<ScanResult> seek(Date aLastDate, Long aLastId, Pageable aPageable);
+
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -27,6 +28,23 @@ public interface SongDao extends PagingAndSortingRepository<Song, Long> {
 
 	public Song findByPath(String aPath);
 
+	public Page<Song> findByArtworkId(Long aStoredFileId, Pageable aPageable);
+
+	@Query("SELECT s.id, s.path FROM Song s WHERE s.id > ?1 ORDER BY s.id")
+	public List<Object[]> findIdsAndPathsByIdGreaterThan(Long aId, Pageable aPageable);
+
+	@Query("SELECT s.path FROM Song s WHERE s.artwork IS NULL")
+	public List<String> findPathsByArtworkNull();
+
+	@Query("SELECT s.genre.id, s.album.id, s.album.artist.id, s.artwork.id FROM Song s WHERE s.id IN ?1")
+	public List<Object[]> findRelatedIdsByIdIn(Collection<Long> aIds);
+
+	@Query("SELECT s.genre.id, s.album.id, s.album.artist.id FROM Song s WHERE s.path IN ?1")
+	public List<Object[]> findRelatedIdsByPathIn(Collection<String> aPaths);
+
+	@Query("SELECT DISTINCT s.artwork.id FROM Song s WHERE s.artwork.id IN ?1")
+	public List<Long> findArtworkIdsByArtworkIdIn(Collection<Long> aStoredFileIds);
+
 	@Query("SELECT s FROM Song s " +
 			"INNER JOIN FETCH s.genre g " +
 			"INNER JOIN FETCH s.album al " +
@@ -65,4 +83,8 @@ public interface SongDao extends PagingAndSortingRepository<Song, Long> {
 	@Query("UPDATE Song s SET s.artwork = NULL WHERE s.artwork.id = ?1")
 	public void clearArtworkByArtworkId(Long aStoredFileId);
 
+	@Modifying
+	@Query("DELETE FROM Song s WHERE s.id IN ?1")
+	public void deleteByIdIn(Collection<Long> aIds);
+
 }
@@ -13,6 +13,7 @@ public interface StoredFileDao extends PagingAndSortingRepository<StoredFile, Lo
 
 	public long countByTag(String aTag);
 	public long countByTagAndDateGreaterThan(String aTag, Date aDate);
+	public long countByPath(String aPath);
 
 	@Query("SELECT SUM(f.size) FROM StoredFile f WHERE f.tag = ?1")
 	public Long sumSizeByTag(String aTag);
@@ -1,11 +1,21 @@
 package net.dorokhov.pony.core.dao;
 
 import net.dorokhov.pony.core.domain.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.List;
+
 public interface UserDao extends PagingAndSortingRepository<User, Long> {
 
 	public User findByEmail(String aEmail);
 	public User findByEmailAndPassword(String aEmail, String aPassword);
 
+	@Query("SELECT u FROM User u ORDER BY u.name ASC, u.id ASC")
+	public List<User> seek(Pageable aPageable);
+
+	@Query("SELECT u FROM User u WHERE u.name > ?1 OR (u.name = ?1 AND u.id > ?2) ORDER BY u.name ASC, u.id ASC")
+	public List<User> seek(String aLastName, Long aLastId, Pageable aPageable);
+
 }
@@ -0,0 +1,73 @@
+package net.dorokhov.pony.core.domain;
+
+import net.dorokhov.pony.core.domain.common.BaseEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+@Entity
+@Table(name = "file_checksum")
+public class FileChecksum extends BaseEntity<Long> {
+
+	private String path;
+
+	private Long length;
+
+	private Long lastModified;
+
+	private String checksum;
+
+	@Column(name = "path", unique = true)
+	@NotNull
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String aPath) {
+		path = aPath;
+	}
+
+	@Column(name = "length")
+	@NotNull
+	public Long getLength() {
+		return length;
+	}
+
+	public void setLength(Long aLength) {
+		length = aLength;
+	}
+
+	@Column(name = "last_modified")
+	@NotNull
+	public Long getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Long aLastModified) {
+		lastModified = aLastModified;
+	}
+
+	@Column(name = "checksum")
+	@NotNull
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public void setChecksum(String aChecksum) {
+		checksum = aChecksum;
+	}
+
+	@Override
+	public String toString() {
+		return "FileChecksum{" +
+				"id=" + getId() +
+				", path='" + path + '\'' +
+				", length=" + length +
+				", lastModified=" + lastModified +
+				", checksum='" + checksum + '\'' +
+				'}';
+	}
+
+}
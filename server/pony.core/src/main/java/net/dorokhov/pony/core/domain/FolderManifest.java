@@ -0,0 +1,59 @@
+package net.dorokhov.pony.core.domain;
+
+import net.dorokhov.pony.core.domain.common.BaseEntity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "folder_manifest")
+public class FolderManifest extends BaseEntity<Long> {
+
+	private String path;
+
+	private Long lastModified;
+
+	private List<FolderManifestFile> files = new ArrayList<>();
+
+	@Column(name = "path", unique = true)
+	@NotNull
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String aPath) {
+		path = aPath;
+	}
+
+	@Column(name = "last_modified")
+	@NotNull
+	public Long getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Long aLastModified) {
+		lastModified = aLastModified;
+	}
+
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "folder_manifest_file", joinColumns = @JoinColumn(name = "folder_manifest_id"))
+	public List<FolderManifestFile> getFiles() {
+		return files;
+	}
+
+	public void setFiles(List<FolderManifestFile> aFiles) {
+		files = aFiles;
+	}
+
+	@Override
+	public String toString() {
+		return "FolderManifest{" +
+				"id=" + getId() +
+				", path='" + path + '\'' +
+				", lastModified=" + lastModified +
+				'}';
+	}
+
+}
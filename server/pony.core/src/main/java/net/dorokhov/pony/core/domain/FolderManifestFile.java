@@ -0,0 +1,97 @@
+package net.dorokhov.pony.core.domain;
+
+import org.springframework.util.ObjectUtils;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.validation.constraints.NotNull;
+
+@Embeddable
+public class FolderManifestFile {
+
+	private String name;
+
+	private Long size;
+
+	private Long lastModified;
+
+	public FolderManifestFile() {
+		this(null, null, null);
+	}
+
+	public FolderManifestFile(String aName, Long aSize, Long aLastModified) {
+		setName(aName);
+		setSize(aSize);
+		setLastModified(aLastModified);
+	}
+
+	@Column(name = "name")
+	@NotNull
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String aName) {
+		name = aName;
+	}
+
+	@Column(name = "size")
+	@NotNull
+	public Long getSize() {
+		return size;
+	}
+
+	public void setSize(Long aSize) {
+		size = aSize;
+	}
+
+	@Column(name = "last_modified")
+	@NotNull
+	public Long getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Long aLastModified) {
+		lastModified = aLastModified;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int result = name != null ? name.hashCode() : 0;
+
+		result = 31 * result + (size != null ? size.hashCode() : 0);
+		result = 31 * result + (lastModified != null ? lastModified.hashCode() : 0);
+
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object aObj) {
+
+		if (this == aObj) {
+			return true;
+		}
+
+		if (aObj != null && getClass().equals(aObj.getClass())) {
+
+			FolderManifestFile that = (FolderManifestFile) aObj;
+
+			return ObjectUtils.nullSafeEquals(name, that.name) &&
+					ObjectUtils.nullSafeEquals(size, that.size) &&
+					ObjectUtils.nullSafeEquals(lastModified, that.lastModified);
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "FolderManifestFile{" +
+				"name='" + name + '\'' +
+				", size=" + size +
+				", lastModified=" + lastModified +
+				'}';
+	}
+
+}
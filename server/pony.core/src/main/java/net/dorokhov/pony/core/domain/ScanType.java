@@ -1,5 +1,5 @@
 package net.dorokhov.pony.core.domain;
 
 public enum ScanType {
-	FULL, EDIT
+	FULL, INCREMENTAL, PARTIAL, EDIT
 }
@@ -2,6 +2,7 @@ package net.dorokhov.pony.core.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 
 public interface ChecksumService {
 
@@ -9,4 +10,9 @@ public interface ChecksumService {
 
 	public String calculateChecksum(byte[] aData);
 
+	/**
+	 * Calculates checksum of the region of the file. The region is read with a small buffer, so it is never copied to the heap as a whole.
+	 */
+	public String calculateChecksum(FileChannel aChannel, long aOffset, long aLength) throws IOException;
+
 }
@@ -1,18 +1,52 @@
 package net.dorokhov.pony.core.file;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 @Service
 public class ChecksumServiceImpl implements ChecksumService {
 
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Direct buffers are expensive to allocate, so every thread reuses its own one
+	private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	};
+
 	@Override
 	public String calculateChecksum(File aFile) throws IOException {
-		return DigestUtils.md5Hex(new FileInputStream(aFile));
+
+		MessageDigest digest = createDigest();
+
+		ByteBuffer buffer = buffers.get();
+
+		buffer.clear();
+
+		try (FileChannel channel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+
+				buffer.flip();
+
+				digest.update(buffer);
+
+				buffer.clear();
+			}
+		}
+
+		return Hex.encodeHexString(digest.digest());
 	}
 
 	@Override
@@ -20,4 +54,42 @@ public class ChecksumServiceImpl implements ChecksumService {
 		return DigestUtils.md5Hex(aData);
 	}
 
+	@Override
+	public String calculateChecksum(FileChannel aChannel, long aOffset, long aLength) throws IOException {
+
+		MessageDigest digest = createDigest();
+
+		ByteBuffer buffer = buffers.get();
+
+		long position = 0;
+
+		while (position < aLength) {
+
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), aLength - position));
+
+			int count = aChannel.read(buffer, aOffset + position);
+
+			if (count < 0) {
+				throw new EOFException("Region [" + aOffset + ", " + aLength + "] exceeds the file.");
+			}
+
+			buffer.flip();
+
+			digest.update(buffer);
+
+			position += count;
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 }
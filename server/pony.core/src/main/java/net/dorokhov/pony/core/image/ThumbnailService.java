@@ -8,4 +8,8 @@ public interface ThumbnailService {
 
 	public void makeThumbnail(File aImage, File aOutFile) throws Exception;
 
+	public void makeThumbnail(byte[] aImage, File aOutFile, int aWidth, int aHeight) throws Exception;
+
+	public void makeThumbnail(File aImage, File aOutFile, int aWidth, int aHeight) throws Exception;
+
 }
@@ -1,11 +1,21 @@
 package net.dorokhov.pony.core.image;
 
 import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
 import java.io.*;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class ThumbnailServiceImpl implements ThumbnailService {
@@ -16,6 +26,10 @@ public class ThumbnailServiceImpl implements ThumbnailService {
 
 	private double imageQuality = 1.0;
 
+	private int pixelBudget = 25000000;
+
+	private Semaphore pixelSemaphore = new Semaphore(pixelBudget, true);
+
 	public int getImageWidth() {
 		return imageWidth;
 	}
@@ -61,44 +75,158 @@ public class ThumbnailServiceImpl implements ThumbnailService {
 		imageQuality = aImageQuality;
 	}
 
+	public int getPixelBudget() {
+		return pixelBudget;
+	}
+
+	/**
+	 * Maximum number of pixels decoded at the same time by all threads. Decoding of a bigger image takes the whole budget.
+	 */
+	@Value("${library.artworkPixelBudget}")
+	public void setPixelBudget(int aPixelBudget) {
+
+		if (aPixelBudget <= 0) {
+			throw new RuntimeException("Incorrect artwork pixel budget value [" + aPixelBudget + "]");
+		}
+
+		pixelBudget = aPixelBudget;
+		pixelSemaphore = new Semaphore(aPixelBudget, true);
+	}
+
 	@Override
 	public void makeThumbnail(byte[] aImage, File aOutFile) throws Exception {
+		makeThumbnail(aImage, aOutFile, imageWidth, imageHeight);
+	}
+
+	@Override
+	public void makeThumbnail(File aImage, File aOutFile) throws Exception {
+		makeThumbnail(aImage, aOutFile, imageWidth, imageHeight);
+	}
+
+	@Override
+	public void makeThumbnail(byte[] aImage, File aOutFile, int aWidth, int aHeight) throws Exception {
 
 		InputStream in = null;
-		OutputStream out = null;
 
 		try {
 
 			in = new ByteArrayInputStream(aImage);
-			out = new FileOutputStream(aOutFile);
 
-			// Using toOutputStream instead of toFile to preserve original image format
-			Thumbnails.of(in).size(imageWidth, imageHeight).outputQuality(getImageQuality()).toOutputStream(out);
+			makeThumbnail(in, aOutFile, aWidth, aHeight);
 
 		} finally {
 			IOUtils.closeQuietly(in);
-			IOUtils.closeQuietly(out);
 		}
 	}
 
 	@Override
-	public void makeThumbnail(File aImage, File aOutFile) throws Exception {
+	public void makeThumbnail(File aImage, File aOutFile, int aWidth, int aHeight) throws Exception {
 
 		InputStream in = null;
-		OutputStream out = null;
 
 		try {
 
-			in = new FileInputStream(aImage);
-			out = new FileOutputStream(aOutFile);
+			in = new BufferedInputStream(new FileInputStream(aImage));
 
-			// Using toOutputStream instead of toFile to preserve original image format
-			Thumbnails.of(in).size(imageWidth, imageHeight).outputQuality(getImageQuality()).toOutputStream(out);
+			makeThumbnail(in, aOutFile, aWidth, aHeight);
 
 		} finally {
 			IOUtils.closeQuietly(in);
-			IOUtils.closeQuietly(out);
 		}
 	}
 
+	private void makeThumbnail(InputStream aImage, File aOutFile, int aWidth, int aHeight) throws Exception {
+
+		ImageInputStream in = null;
+		ImageReader reader = null;
+
+		try {
+
+			in = ImageIO.createImageInputStream(aImage);
+
+			Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+
+			if (readers == null || !readers.hasNext()) {
+				throw new IOException("Image format is not supported.");
+			}
+
+			reader = readers.next();
+			reader.setInput(in, true, true);
+
+			String format = reader.getFormatName();
+
+			Orientation orientation = null;
+
+			if ("jpeg".equalsIgnoreCase(format)) {
+				orientation = ExifUtils.getExifOrientation(reader, 0);
+			}
+
+			boolean isRotated = orientation != null && orientation.ordinal() >= Orientation.LEFT_TOP.ordinal();
+
+			// Target box is applied before Exif rotation
+			int width = isRotated ? aHeight : aWidth;
+			int height = isRotated ? aWidth : aHeight;
+
+			int sourceWidth = reader.getWidth(0);
+			int sourceHeight = reader.getHeight(0);
+
+			int subsampling = getSubsampling(sourceWidth, sourceHeight, width, height);
+
+			ImageReadParam param = reader.getDefaultReadParam();
+
+			param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+			long pixelCount = (long) ((sourceWidth + subsampling - 1) / subsampling) * ((sourceHeight + subsampling - 1) / subsampling);
+
+			Semaphore semaphore = pixelSemaphore;
+
+			int permits = (int) Math.min(pixelCount, pixelBudget);
+
+			semaphore.acquire(permits);
+
+			try {
+
+				BufferedImage image = reader.read(0, param);
+
+				OutputStream out = null;
+
+				try {
+
+					out = new FileOutputStream(aOutFile);
+
+					// Using toOutputStream instead of toFile to preserve original image format
+					Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(image).size(width, height).outputFormat(format).outputQuality(getImageQuality());
+
+					if (orientation != null) {
+						builder.addFilter(ExifFilterUtils.getFilterForOrientation(orientation));
+					}
+
+					builder.toOutputStream(out);
+
+				} finally {
+					IOUtils.closeQuietly(out);
+				}
+
+			} finally {
+				semaphore.release(permits);
+			}
+
+		} finally {
+
+			if (reader != null) {
+				reader.dispose();
+			}
+
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	private int getSubsampling(int aSourceWidth, int aSourceHeight, int aTargetWidth, int aTargetHeight) {
+
+		double scale = Math.min(aTargetWidth / (double) aSourceWidth, aTargetHeight / (double) aSourceHeight);
+
+		// Decoded image stays at least twice as big as the thumbnail to keep resizing quality
+		return Math.max((int) (1 / (scale * 2)), 1);
+	}
+
 }
@@ -188,6 +188,9 @@ public class InstallationServiceImpl implements InstallationService {
 			}
 		});
 
+		// Queued log messages must not be written after tables are dropped
+		logService.flush();
+
 		installationDao.uninstall();
 
 		log.info("Successfully uninstalled.");
@@ -7,4 +7,12 @@ public interface ArtworkDiscoveryService {
 
 	public LibraryImage discoverArtwork(LibrarySong aSong);
 
+	/**
+	 * Starts caching of artworks found in folders, including folders without artwork.
+	 * Caching must be stopped as soon as folder contents could change.
+	 */
+	public void startCaching();
+
+	public void stopCaching();
+
 }
@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 @Service
 public class ArtworkDiscoveryServiceImpl implements ArtworkDiscoveryService {
@@ -23,6 +24,8 @@ public class ArtworkDiscoveryServiceImpl implements ArtworkDiscoveryService {
 	private Set<String> artworkFileNames = new HashSet<>();
 	private Set<String> artworkFolderNames = new HashSet<>();
 
+	private volatile ConcurrentMap<String, Future<LibraryImage>> folderArtworks;
+
 	public double getArtworkMinSizeRatio() {
 		return artworkMinSizeRatio;
 	}
@@ -67,6 +70,16 @@ public class ArtworkDiscoveryServiceImpl implements ArtworkDiscoveryService {
 		setArtworkFolderNames(splitCommaSeparatedList(aArtworkFolderNames));
 	}
 
+	@Override
+	public void startCaching() {
+		folderArtworks = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void stopCaching() {
+		folderArtworks = null;
+	}
+
 	@Override
 	public LibraryImage discoverArtwork(LibrarySong aSong) {
 
@@ -76,7 +89,7 @@ public class ArtworkDiscoveryServiceImpl implements ArtworkDiscoveryService {
 
 		while (folder != null) {
 
-			artwork = doFetchArtwork(folder);
+			artwork = fetchArtwork(folder);
 
 			if (artwork != null) {
 				break;
@@ -88,6 +101,51 @@ public class ArtworkDiscoveryServiceImpl implements ArtworkDiscoveryService {
 		return artwork;
 	}
 
+	private LibraryImage fetchArtwork(final LibraryFolder aFolder) {
+
+		ConcurrentMap<String, Future<LibraryImage>> cache = folderArtworks;
+
+		if (cache == null) {
+			return doFetchArtwork(aFolder);
+		}
+
+		String path = aFolder.getFile().getAbsolutePath();
+
+		Future<LibraryImage> future = cache.get(path);
+
+		// Songs of the same folder are usually processed concurrently, folder is checked only by the first of them
+		if (future == null) {
+
+			FutureTask<LibraryImage> task = new FutureTask<>(new Callable<LibraryImage>() {
+				@Override
+				public LibraryImage call() throws Exception {
+					return doFetchArtwork(aFolder);
+				}
+			});
+
+			future = cache.putIfAbsent(path, task);
+
+			if (future == null) {
+
+				future = task;
+
+				task.run();
+			}
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+
+			throw new RuntimeException(e);
+
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
 	private LibraryImage doFetchArtwork(LibraryFolder aFolder) {
 
 		LibraryImage artwork = fetchArtworkFromFolder(aFolder);
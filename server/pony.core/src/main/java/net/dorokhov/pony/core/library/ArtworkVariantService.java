@@ -0,0 +1,22 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.domain.StoredFile;
+
+import java.io.File;
+import java.util.Set;
+
+public interface ArtworkVariantService {
+
+	public Set<Integer> getSizes();
+
+	/**
+	 * Returns artwork resized to fit the square of the given size. Variant is made from the original image or embedded artwork
+	 * on the first request and then cached on disk. Concurrent requests of the same variant wait for a single resizing.
+	 * Returned file can be evicted from the cache at any moment, caller must be ready to fall back to the stored file.
+	 * Missing original image is remembered for a while, so that it is not looked for on every request.
+	 *
+	 * @return variant file or null if original image is not available
+	 */
+	public File getVariant(StoredFile aArtwork, int aSize);
+
+}
@@ -0,0 +1,365 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.audio.SongDataService;
+import net.dorokhov.pony.core.dao.SongDao;
+import net.dorokhov.pony.core.domain.Song;
+import net.dorokhov.pony.core.domain.StoredFile;
+import net.dorokhov.pony.core.file.ChecksumService;
+import net.dorokhov.pony.core.image.ThumbnailService;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+@Service
+public class ArtworkVariantServiceImpl implements ArtworkVariantService {
+
+	private static final int MISSING_VARIANTS_MAX_COUNT = 1000;
+
+	private static final long MISSING_VARIANT_EXPIRATION = TimeUnit.MINUTES.toMillis(10);
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Object lock = new Object();
+
+	// Access-ordered, eldest entry is the least recently used variant
+	private final LinkedHashMap<String, Long> variantSizes = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Variants which original image is not available, with the time of the check
+	private final LinkedHashMap<String, Long> missingVariants = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> aEldest) {
+			return size() > MISSING_VARIANTS_MAX_COUNT;
+		}
+	};
+
+	private final ConcurrentMap<String, Future<File>> pendingVariants = new ConcurrentHashMap<>();
+
+	private SongDao songDao;
+
+	private SongDataService songDataService;
+
+	private ChecksumService checksumService;
+
+	private ThumbnailService thumbnailService;
+
+	private String storagePath;
+
+	private Set<Integer> sizes = new TreeSet<>();
+
+	private long cacheSize = 100 * 1024 * 1024;
+
+	private long cachedSize = 0;
+
+	private File variantsFolder;
+
+	@Autowired
+	public void setSongDao(SongDao aSongDao) {
+		songDao = aSongDao;
+	}
+
+	@Autowired
+	public void setSongDataService(SongDataService aSongDataService) {
+		songDataService = aSongDataService;
+	}
+
+	@Autowired
+	public void setChecksumService(ChecksumService aChecksumService) {
+		checksumService = aChecksumService;
+	}
+
+	@Autowired
+	public void setThumbnailService(ThumbnailService aThumbnailService) {
+		thumbnailService = aThumbnailService;
+	}
+
+	@Value("${storage.path}")
+	public void setStoragePath(String aStoragePath) {
+		storagePath = aStoragePath;
+	}
+
+	@Override
+	public Set<Integer> getSizes() {
+		return new TreeSet<>(sizes);
+	}
+
+	public void setSizes(Set<Integer> aSizes) {
+		sizes = new TreeSet<>(aSizes);
+	}
+
+	@Value("${library.artworkVariantSizes}")
+	public void setSizes(String aSizes) {
+
+		Set<Integer> result = new TreeSet<>();
+
+		for (String size : aSizes.split(",")) {
+
+			size = size.trim();
+
+			if (size.length() > 0) {
+				result.add(Integer.valueOf(size));
+			}
+		}
+
+		setSizes(result);
+	}
+
+	public long getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Maximum size of all cached variants in bytes. Least recently used variants are deleted when it is exceeded.
+	 */
+	@Value("${library.artworkVariantCacheSize}")
+	public void setCacheSize(long aCacheSize) {
+
+		synchronized (lock) {
+
+			cacheSize = aCacheSize;
+
+			if (variantsFolder != null) {
+				evictVariants();
+			}
+		}
+	}
+
+	@PostConstruct
+	public void postConstruct() {
+
+		variantsFolder = new File(FileUtils.getUserDirectory(), storagePath + "/variants");
+
+		if (!variantsFolder.exists()) {
+			if (!variantsFolder.mkdirs()) {
+				throw new RuntimeException("Could not create directory [" + variantsFolder.getAbsolutePath() + "] for storing artwork variants.");
+			}
+		}
+
+		List<File> files = new ArrayList<>();
+
+		File[] children = variantsFolder.listFiles();
+
+		if (children != null) {
+			for (File file : children) {
+				if (file.getName().endsWith(".tmp")) {
+					FileUtils.deleteQuietly(file);
+				} else if (file.isFile()) {
+					files.add(file);
+				}
+			}
+		}
+
+		// Modification date is the best guess of access order after restart
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File aFile1, File aFile2) {
+				return Long.compare(aFile1.lastModified(), aFile2.lastModified());
+			}
+		});
+
+		synchronized (lock) {
+
+			for (File file : files) {
+				putVariant(file);
+			}
+
+			evictVariants();
+		}
+	}
+
+	@Override
+	public File getVariant(final StoredFile aArtwork, final int aSize) {
+
+		if (!sizes.contains(aSize)) {
+			throw new RuntimeException("Artwork size [" + aSize + "] is not supported.");
+		}
+
+		final String name = aArtwork.getId() + "_" + aArtwork.getChecksum() + "_" + aSize;
+
+		synchronized (lock) {
+
+			if (variantSizes.get(name) != null) {
+
+				File file = new File(variantsFolder, name);
+
+				if (file.exists()) {
+					return file;
+				}
+
+				cachedSize -= variantSizes.remove(name);
+			}
+
+			// Original image is not looked for again on every request
+			Long missingTime = missingVariants.get(name);
+
+			if (missingTime != null) {
+				if (System.currentTimeMillis() - missingTime < MISSING_VARIANT_EXPIRATION) {
+					return null;
+				}
+				missingVariants.remove(name);
+			}
+		}
+
+		Future<File> future = pendingVariants.get(name);
+
+		if (future == null) {
+
+			FutureTask<File> task = new FutureTask<>(new Callable<File>() {
+				@Override
+				public File call() throws Exception {
+					return makeVariant(aArtwork, aSize, name);
+				}
+			});
+
+			future = pendingVariants.putIfAbsent(name, task);
+
+			if (future == null) {
+
+				future = task;
+
+				try {
+					task.run();
+				} finally {
+					pendingVariants.remove(name, task);
+				}
+			}
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+
+			throw new RuntimeException(e);
+
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private File makeVariant(StoredFile aArtwork, int aSize, String aName) throws Exception {
+
+		File tempFile = new File(variantsFolder, aName + "." + UUID.randomUUID() + ".tmp");
+
+		try {
+
+			if (!makeThumbnail(aArtwork, tempFile, aSize)) {
+
+				synchronized (lock) {
+					missingVariants.put(aName, System.currentTimeMillis());
+				}
+
+				return null;
+			}
+
+			File file = new File(variantsFolder, aName);
+
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			synchronized (lock) {
+
+				putVariant(file);
+
+				evictVariants();
+			}
+
+			return file;
+
+		} finally {
+			FileUtils.deleteQuietly(tempFile);
+		}
+	}
+
+	private boolean makeThumbnail(StoredFile aArtwork, File aOutFile, int aSize) throws Exception {
+
+		if (StoredFile.TAG_ARTWORK_FILE.equals(aArtwork.getTag()) && aArtwork.getUserData() != null) {
+
+			File file = new File(aArtwork.getUserData());
+
+			if (file.exists()) {
+
+				byte[] image = FileUtils.readFileToByteArray(file);
+
+				// Artwork file could be modified after it has been stored, then stored file is used instead
+				if (aArtwork.getChecksum().equals(checksumService.calculateChecksum(image))) {
+
+					thumbnailService.makeThumbnail(image, aOutFile, aSize, aSize);
+
+					return true;
+
+				} else {
+					log.debug("Artwork file [{}] has been modified since it was stored.", file.getAbsolutePath());
+				}
+			}
+		}
+
+		if (StoredFile.TAG_ARTWORK_EMBEDDED.equals(aArtwork.getTag())) {
+
+			for (Song song : songDao.findByArtworkId(aArtwork.getId(), new PageRequest(0, 1))) {
+
+				File file = new File(song.getPath());
+
+				byte[] image = null;
+
+				try {
+					image = songDataService.readArtwork(file, aArtwork.getChecksum());
+				} catch (Exception e) {
+					log.debug("Could not read embedded artwork of song [{}].", file.getAbsolutePath(), e);
+				}
+
+				if (image != null) {
+
+					thumbnailService.makeThumbnail(image, aOutFile, aSize, aSize);
+
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void putVariant(File aFile) {
+
+		Long oldSize = variantSizes.put(aFile.getName(), aFile.length());
+
+		if (oldSize != null) {
+			cachedSize -= oldSize;
+		}
+
+		cachedSize += aFile.length();
+	}
+
+	private void evictVariants() {
+
+		Iterator<Map.Entry<String, Long>> iterator = variantSizes.entrySet().iterator();
+
+		// The most recent variant is always kept, even if it is bigger than the cache
+		while (cachedSize > cacheSize && variantSizes.size() > 1 && iterator.hasNext()) {
+
+			Map.Entry<String, Long> entry = iterator.next();
+
+			File file = new File(variantsFolder, entry.getKey());
+
+			if (file.exists() && !file.delete()) {
+				log.warn("Could not delete artwork variant [{}] from file system.", file.getAbsolutePath());
+			}
+
+			cachedSize -= entry.getValue();
+
+			iterator.remove();
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.library.file.LibraryNode;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+public interface DiskLocalityService {
+
+	/**
+	 * Sorts files in the order of their physical location, if the platform exposes it (inode number), or by path otherwise.
+	 */
+	public <T extends LibraryNode> List<T> sortByLocation(Collection<T> aFiles);
+
+	/**
+	 * Returns key of the device the file is stored on. Files of the same device have equal keys.
+	 */
+	public Object getDeviceKey(File aFile);
+
+}
@@ -0,0 +1,103 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.library.file.LibraryNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.*;
+
+@Service
+public class DiskLocalityServiceImpl implements DiskLocalityService {
+
+	private static final Object UNKNOWN_DEVICE = new Object();
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final boolean unixAttributesSupported = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+	@Override
+	public <T extends LibraryNode> List<T> sortByLocation(Collection<T> aFiles) {
+
+		final Map<T, Long> inodes = new HashMap<>();
+
+		for (T file : aFiles) {
+
+			Long inode = getInode(file.getFile());
+
+			if (inode == null) {
+				break;
+			}
+
+			inodes.put(file, inode);
+		}
+
+		List<T> result = new ArrayList<>(aFiles);
+
+		// Inode order is used only if it is known for every file
+		final boolean isInodeOrder = inodes.size() == aFiles.size();
+
+		Collections.sort(result, new Comparator<T>() {
+			@Override
+			public int compare(T aFile1, T aFile2) {
+				if (isInodeOrder) {
+					return inodes.get(aFile1).compareTo(inodes.get(aFile2));
+				}
+				return aFile1.getFile().getAbsolutePath().compareTo(aFile2.getFile().getAbsolutePath());
+			}
+		});
+
+		return result;
+	}
+
+	@Override
+	public Object getDeviceKey(File aFile) {
+
+		try {
+
+			Object device = getUnixAttribute(aFile, "unix:dev");
+
+			return device != null ? device : Files.getFileStore(aFile.toPath());
+
+		} catch (IOException e) {
+
+			log.debug("Could not get device of file [{}].", aFile.getAbsolutePath(), e);
+
+			return UNKNOWN_DEVICE;
+		}
+	}
+
+	private Long getInode(File aFile) {
+
+		try {
+
+			Object inode = getUnixAttribute(aFile, "unix:ino");
+
+			return inode instanceof Number ? ((Number) inode).longValue() : null;
+
+		} catch (IOException e) {
+
+			log.debug("Could not get inode of file [{}].", aFile.getAbsolutePath(), e);
+
+			return null;
+		}
+	}
+
+	private Object getUnixAttribute(File aFile, String aAttribute) throws IOException {
+
+		if (!unixAttributesSupported) {
+			return null;
+		}
+
+		try {
+			return Files.getAttribute(aFile.toPath(), aAttribute);
+		} catch (UnsupportedOperationException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,25 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.library.file.LibraryFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+public interface FileChecksumService {
+
+	/**
+	 * Returns checksum stored for the file path, if length and modification date of the file are not changed.
+	 * Otherwise checksum is calculated and stored.
+	 */
+	public String getChecksum(LibraryFile aFile) throws IOException;
+
+	/**
+	 * Deletes checksums of files which paths are not found in the given set.
+	 *
+	 * @param aTargetFolders folders to clean or null to clean checksums of all files
+	 */
+	public void cleanChecksums(List<File> aTargetFolders, Set<String> aFilePaths);
+
+}
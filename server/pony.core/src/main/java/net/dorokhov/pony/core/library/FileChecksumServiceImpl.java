@@ -0,0 +1,156 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.common.PageProcessor;
+import net.dorokhov.pony.core.common.Partition;
+import net.dorokhov.pony.core.common.PonyUtils;
+import net.dorokhov.pony.core.dao.FileChecksumDao;
+import net.dorokhov.pony.core.domain.FileChecksum;
+import net.dorokhov.pony.core.file.ChecksumService;
+import net.dorokhov.pony.core.library.file.LibraryFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class FileChecksumServiceImpl implements FileChecksumService {
+
+	private static final int CLEANING_BUFFER_SIZE = 300;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private TransactionTemplate newTransactionTemplate;
+	private TransactionTemplate readOnlyTransactionTemplate;
+
+	private FileChecksumDao fileChecksumDao;
+
+	private ChecksumService checksumService;
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
+
+		newTransactionTemplate = new TransactionTemplate(aTransactionManager, new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+
+		DefaultTransactionDefinition readOnlyDefinition = new DefaultTransactionDefinition();
+
+		readOnlyDefinition.setReadOnly(true);
+
+		readOnlyTransactionTemplate = new TransactionTemplate(aTransactionManager, readOnlyDefinition);
+	}
+
+	@Autowired
+	public void setFileChecksumDao(FileChecksumDao aFileChecksumDao) {
+		fileChecksumDao = aFileChecksumDao;
+	}
+
+	@Autowired
+	public void setChecksumService(ChecksumService aChecksumService) {
+		checksumService = aChecksumService;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public String getChecksum(LibraryFile aFile) throws IOException {
+
+		final String path = aFile.getFile().getAbsolutePath();
+
+		final long length = aFile.getLength();
+		final long lastModified = aFile.getLastModified();
+
+		FileChecksum storedChecksum = readOnlyTransactionTemplate.execute(new TransactionCallback<FileChecksum>() {
+			@Override
+			public FileChecksum doInTransaction(TransactionStatus status) {
+				return fileChecksumDao.findByPath(path);
+			}
+		});
+
+		if (storedChecksum != null && storedChecksum.getLength() == length && storedChecksum.getLastModified() == lastModified) {
+			return storedChecksum.getChecksum();
+		}
+
+		final String checksum = checksumService.calculateChecksum(aFile.getFile());
+
+		try {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+
+					FileChecksum fileChecksum = fileChecksumDao.findByPath(path);
+
+					if (fileChecksum == null) {
+						fileChecksum = new FileChecksum();
+						fileChecksum.setPath(path);
+					}
+
+					fileChecksum.setLength(length);
+					fileChecksum.setLastModified(lastModified);
+					fileChecksum.setChecksum(checksum);
+
+					fileChecksumDao.save(fileChecksum);
+				}
+			});
+		} catch (Exception e) {
+			// Checksum of the same file could be stored concurrently, it will be stored next time
+			log.debug("Could not store checksum of file [" + path + "].", e);
+		}
+
+		return checksum;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void cleanChecksums(final List<File> aTargetFolders, final Set<String> aFilePaths) {
+
+		final List<Long> checksumsToDelete = new ArrayList<>();
+
+		readOnlyTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				PageProcessor.Handler<FileChecksum> handler = new PageProcessor.Handler<FileChecksum>() {
+					@Override
+					public void process(FileChecksum aChecksum, Page<FileChecksum> aPage, int aIndexInPage, long aIndexInAll) {
+						if ((aTargetFolders == null || PonyUtils.isPathInFolders(aChecksum.getPath(), aTargetFolders)) && !aFilePaths.contains(aChecksum.getPath())) {
+							checksumsToDelete.add(aChecksum.getId());
+						}
+					}
+
+					@Override
+					public Page<FileChecksum> getPage(Pageable aPageable) {
+						return fileChecksumDao.findAll(aPageable);
+					}
+				};
+				new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), handler).run();
+			}
+		});
+
+		for (final List<Long> chunk : Partition.partition(checksumsToDelete, CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+					for (Long id : chunk) {
+						fileChecksumDao.delete(id);
+					}
+				}
+			});
+		}
+	}
+
+}
@@ -11,4 +11,25 @@ public interface FileScanService {
 
 	public LibraryFolder scanFolder(File aFolder);
 
+	/**
+	 * Scans folder reporting each sub-folder to the delegate as soon as the whole sub-tree of this sub-folder is scanned.
+	 * Delegate can be called concurrently. Songs of the folder are released after delegate call, images and child folders
+	 * are released as well unless the folder is held, so that scanned tree is not kept in memory.
+	 */
+	public void scanFolder(File aFolder, Delegate aDelegate);
+
+	/**
+	 * Keeps images and child folders of the folder and its parent folders until {@link #releaseFolder(LibraryFolder)} is called.
+	 * Must be called by the delegate of {@link #scanFolder(File, Delegate)}, e.g. while folder songs are waiting for artwork discovery.
+	 */
+	public void holdFolder(LibraryFolder aFolder);
+
+	public void releaseFolder(LibraryFolder aFolder);
+
+	public static interface Delegate {
+
+		public void onFolderScanFinish(LibraryFolder aFolder);
+
+	}
+
 }
@@ -9,9 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class FileScanServiceImpl implements FileScanService {
@@ -22,6 +23,8 @@ public class FileScanServiceImpl implements FileScanService {
 
 	private ChecksumService checksumService;
 
+	private FileChecksumService fileChecksumService;
+
 	@Autowired
 	public void setFileTypeService(FileTypeService aFileTypeService) {
 		fileTypeService = aFileTypeService;
@@ -37,6 +40,11 @@ public class FileScanServiceImpl implements FileScanService {
 		checksumService = aChecksumService;
 	}
 
+	@Autowired
+	public void setFileChecksumService(FileChecksumService aFileChecksumService) {
+		fileChecksumService = aFileChecksumService;
+	}
+
 	@Override
 	public LibraryFile scanFile(File aFile) {
 		return doScanFile(aFile, null);
@@ -44,7 +52,22 @@ public class FileScanServiceImpl implements FileScanService {
 
 	@Override
 	public LibraryFolder scanFolder(File aFolder) {
-		return doScanFolder(aFolder, null);
+		return doScanFolder(aFolder, null, null);
+	}
+
+	@Override
+	public void scanFolder(File aFolder, Delegate aDelegate) {
+		doScanFolder(aFolder, null, aDelegate);
+	}
+
+	@Override
+	public void holdFolder(LibraryFolder aFolder) {
+		((LibraryFolderImpl) aFolder).hold();
+	}
+
+	@Override
+	public void releaseFolder(LibraryFolder aFolder) {
+		((LibraryFolderImpl) aFolder).release();
 	}
 
 	private AbstractLibraryFile doScanFile(File aFile, LibraryFolder aParentFolder) {
@@ -56,6 +79,11 @@ public class FileScanServiceImpl implements FileScanService {
 			throw new IllegalArgumentException("File [" + aFile.getAbsolutePath() + "] must not be a directory.");
 		}
 
+		return createLibraryFile(aFile, aParentFolder);
+	}
+
+	protected AbstractLibraryFile createLibraryFile(File aFile, LibraryFolder aParentFolder) {
+
 		AbstractLibraryFile result = null;
 
 		FileTypeService.FileType type = fileTypeService.getFileType(aFile.getName());
@@ -76,7 +104,7 @@ public class FileScanServiceImpl implements FileScanService {
 		return result;
 	}
 
-	private LibraryFolderImpl doScanFolder(File aFolder, LibraryFolder aParentFolder) {
+	private LibraryFolderImpl doScanFolder(File aFolder, LibraryFolder aParentFolder, Delegate aDelegate) {
 
 		if (!aFolder.exists()) {
 			throw new IllegalArgumentException("File [" + aFolder.getAbsolutePath() + "] must exist.");
@@ -87,40 +115,75 @@ public class FileScanServiceImpl implements FileScanService {
 
 		LibraryFolderImpl currentFolder = new LibraryFolderImpl(aFolder, aParentFolder);
 
-		File[] fileList = aFolder.listFiles();
+		doScanFolderContent(currentFolder, aDelegate);
+
+		return currentFolder;
+	}
+
+	private void doScanFolderContent(LibraryFolderImpl aFolder, Delegate aDelegate) {
+
+		List<LibraryFolderImpl> childFolders = new ArrayList<>();
+
+		File[] fileList = aFolder.getFile().listFiles();
 
 		if (fileList != null) {
 			for (File childFile : fileList) {
 				if (childFile.exists()) { // Check file existence to avoid rare SMB-related problems
 					if (childFile.isDirectory()) {
-						currentFolder.getChildFoldersMutable().add(doScanFolder(childFile, currentFolder));
-					} else {
 
-						LibraryFile libraryFile = doScanFile(childFile, currentFolder);
+						LibraryFolderImpl childFolder = new LibraryFolderImpl(childFile, aFolder);
 
-						if (libraryFile != null) {
-							if (libraryFile instanceof LibraryImage) {
-								currentFolder.getChildImagesMutable().add((LibraryImage) libraryFile);
-							} else if (libraryFile instanceof LibrarySong) {
-								currentFolder.getChildSongsMutable().add((LibrarySong) libraryFile);
-							} else {
-								throw new RuntimeException("Unknown file type.");
-							}
-						}
+						aFolder.getChildFoldersMutable().add(childFolder);
+
+						childFolders.add(childFolder);
+
+					} else {
+						addChildFile(aFolder, doScanFile(childFile, aFolder));
 					}
 				}
 			}
 		}
 
-		return currentFolder;
+		// Whole folder content must be known before scanning child folders, artwork discovery looks into parent folders
+		for (LibraryFolderImpl childFolder : childFolders) {
+			doScanFolderContent(childFolder, aDelegate);
+		}
+
+		if (aDelegate != null) {
+			finishFolderScan(aFolder, aDelegate);
+		}
+	}
+
+	protected void finishFolderScan(LibraryFolderImpl aFolder, Delegate aDelegate) {
+
+		aDelegate.onFolderScanFinish(aFolder);
+
+		aFolder.getChildSongsMutable().clear();
+
+		// Releases the hold taken by folder creation, parent folders are released when they finish
+		aFolder.releaseContent();
+	}
+
+	protected void addChildFile(LibraryFolderImpl aFolder, LibraryFile aFile) {
+		if (aFile != null) {
+			if (aFile instanceof LibraryImage) {
+				aFolder.getChildImagesMutable().add((LibraryImage) aFile);
+			} else if (aFile instanceof LibrarySong) {
+				aFolder.getChildSongsMutable().add((LibrarySong) aFile);
+			} else {
+				throw new RuntimeException("Unknown file type.");
+			}
+		}
 	}
 
-	private abstract class AbstractLibraryNode implements LibraryNode {
+	protected abstract class AbstractLibraryNode implements LibraryNode {
 
 		private File file;
 
 		private LibraryFolder parentFolder;
 
+		private volatile Long lastModified;
+
 		protected AbstractLibraryNode(File aFile, LibraryFolder aParentFolder) {
 			setFile(aFile);
 			setParentFolder(aParentFolder);
@@ -144,6 +207,20 @@ public class FileScanServiceImpl implements FileScanService {
 			parentFolder = aParentFolder;
 		}
 
+		@Override
+		public long getLastModified() {
+
+			if (lastModified == null) {
+				lastModified = file.lastModified();
+			}
+
+			return lastModified;
+		}
+
+		public void setLastModified(Long aLastModified) {
+			lastModified = aLastModified;
+		}
+
 		@Override
 		public int hashCode() {
 			return file.hashCode();
@@ -167,19 +244,22 @@ public class FileScanServiceImpl implements FileScanService {
 		}
 	}
 
-	private class LibraryFolderImpl extends AbstractLibraryNode implements LibraryFolder {
+	protected class LibraryFolderImpl extends AbstractLibraryNode implements LibraryFolder {
 
 		private final Set<LibraryImage> childImages;
 		private final Set<LibrarySong> childSongs;
 		private final Set<LibraryFolderImpl> childFolders;
 
+		// Folder is held by its own scan and by the holds of its sub-folders
+		private final AtomicInteger holdCount = new AtomicInteger(1);
+
 		public LibraryFolderImpl(File aFile, LibraryFolder aParentFolder) {
 
 			super(aFile, aParentFolder);
 
-			childImages = new HashSet<>();
-			childSongs = new HashSet<>();
-			childFolders = new HashSet<>();
+			childImages = Collections.newSetFromMap(new ConcurrentHashMap<LibraryImage, Boolean>());
+			childSongs = Collections.newSetFromMap(new ConcurrentHashMap<LibrarySong, Boolean>());
+			childFolders = Collections.newSetFromMap(new ConcurrentHashMap<LibraryFolderImpl, Boolean>());
 		}
 
 		@Override
@@ -254,6 +334,37 @@ public class FileScanServiceImpl implements FileScanService {
 			return childFolders;
 		}
 
+		public void hold() {
+
+			LibraryFolderImpl folder = this;
+
+			while (folder != null) {
+
+				folder.holdCount.incrementAndGet();
+
+				folder = (LibraryFolderImpl) folder.getParentFolder();
+			}
+		}
+
+		public void release() {
+
+			LibraryFolderImpl folder = this;
+
+			while (folder != null) {
+
+				folder.releaseContent();
+
+				folder = (LibraryFolderImpl) folder.getParentFolder();
+			}
+		}
+
+		private void releaseContent() {
+			if (holdCount.decrementAndGet() == 0) {
+				childImages.clear();
+				childFolders.clear();
+			}
+		}
+
 		private void doGetChildImages(Set<LibraryImage> aResult, boolean aRecursive) {
 
 			for (LibraryImage image : getChildImages()) {
@@ -307,7 +418,7 @@ public class FileScanServiceImpl implements FileScanService {
 
 	}
 
-	private abstract class AbstractLibraryFile extends AbstractLibraryNode implements LibraryFile {
+	protected abstract class AbstractLibraryFile extends AbstractLibraryNode implements LibraryFile {
 
 		private final Object mimeTypeLock = new Object();
 		private final Object checksumLock = new Object();
@@ -317,10 +428,26 @@ public class FileScanServiceImpl implements FileScanService {
 		private volatile String mimeType;
 		private volatile String checksum;
 
+		private volatile Long length;
+
 		protected AbstractLibraryFile(File aFile, LibraryFolder aParentFolder) {
 			super(aFile, aParentFolder);
 		}
 
+		@Override
+		public long getLength() {
+
+			if (length == null) {
+				length = getFile().length();
+			}
+
+			return length;
+		}
+
+		public void setLength(Long aLength) {
+			length = aLength;
+		}
+
 		@Override
 		public String getMimeType() {
 
@@ -346,7 +473,7 @@ public class FileScanServiceImpl implements FileScanService {
 			if (checksum == null) {
 				synchronized (checksumLock) {
 					if (checksum == null) {
-						checksum = checksumService.calculateChecksum(getFile());
+						checksum = fileChecksumService != null ? fileChecksumService.getChecksum(this) : checksumService.calculateChecksum(getFile());
 					}
 				}
 			}
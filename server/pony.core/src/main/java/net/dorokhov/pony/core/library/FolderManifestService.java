@@ -0,0 +1,25 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.domain.FolderManifest;
+import net.dorokhov.pony.core.library.file.LibraryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+public interface FolderManifestService {
+
+	public FolderManifest build(LibraryFolder aFolder);
+
+	public boolean isModified(FolderManifest aManifest);
+
+	public FolderManifest save(FolderManifest aManifest);
+
+	/**
+	 * Deletes manifests of folders which paths are not found in the given set.
+	 *
+	 * @param aTargetFolders folders to clean or null to clean manifests of all folders
+	 */
+	public void cleanManifests(List<File> aTargetFolders, Set<String> aFolderPaths);
+
+}
@@ -0,0 +1,141 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.common.PageProcessor;
+import net.dorokhov.pony.core.common.Partition;
+import net.dorokhov.pony.core.common.PonyUtils;
+import net.dorokhov.pony.core.dao.FolderManifestDao;
+import net.dorokhov.pony.core.domain.FolderManifest;
+import net.dorokhov.pony.core.domain.FolderManifestFile;
+import net.dorokhov.pony.core.library.file.LibraryFile;
+import net.dorokhov.pony.core.library.file.LibraryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class FolderManifestServiceImpl implements FolderManifestService {
+
+	private static final int CLEANING_BUFFER_SIZE = 300;
+
+	private TransactionTemplate newTransactionTemplate;
+	private TransactionTemplate readOnlyTransactionTemplate;
+
+	private FolderManifestDao folderManifestDao;
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
+
+		newTransactionTemplate = new TransactionTemplate(aTransactionManager, new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+
+		DefaultTransactionDefinition readOnlyDefinition = new DefaultTransactionDefinition();
+
+		readOnlyDefinition.setReadOnly(true);
+
+		readOnlyTransactionTemplate = new TransactionTemplate(aTransactionManager, readOnlyDefinition);
+	}
+
+	@Autowired
+	public void setFolderManifestDao(FolderManifestDao aFolderManifestDao) {
+		folderManifestDao = aFolderManifestDao;
+	}
+
+	@Override
+	public FolderManifest build(LibraryFolder aFolder) {
+
+		FolderManifest manifest = new FolderManifest();
+
+		manifest.setPath(aFolder.getFile().getAbsolutePath());
+		manifest.setLastModified(aFolder.getLastModified());
+
+		for (LibraryFile file : aFolder.getChildFiles()) {
+			manifest.getFiles().add(new FolderManifestFile(file.getFile().getName(), file.getLength(), file.getLastModified()));
+		}
+
+		return manifest;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public boolean isModified(FolderManifest aManifest) {
+
+		FolderManifest storedManifest = folderManifestDao.findByPath(aManifest.getPath());
+
+		return storedManifest == null ||
+				!storedManifest.getLastModified().equals(aManifest.getLastModified()) ||
+				!new HashSet<>(storedManifest.getFiles()).equals(new HashSet<>(aManifest.getFiles()));
+	}
+
+	@Override
+	@Transactional
+	public FolderManifest save(FolderManifest aManifest) {
+
+		FolderManifest manifest = folderManifestDao.findByPath(aManifest.getPath());
+
+		if (manifest == null) {
+			manifest = new FolderManifest();
+			manifest.setPath(aManifest.getPath());
+		}
+
+		manifest.setLastModified(aManifest.getLastModified());
+
+		manifest.getFiles().clear();
+		manifest.getFiles().addAll(aManifest.getFiles());
+
+		return folderManifestDao.save(manifest);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void cleanManifests(final List<File> aTargetFolders, final Set<String> aFolderPaths) {
+
+		final List<Long> manifestsToDelete = new ArrayList<>();
+
+		readOnlyTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				PageProcessor.Handler<FolderManifest> handler = new PageProcessor.Handler<FolderManifest>() {
+					@Override
+					public void process(FolderManifest aManifest, Page<FolderManifest> aPage, int aIndexInPage, long aIndexInAll) {
+						if ((aTargetFolders == null || PonyUtils.isPathInFolders(aManifest.getPath(), aTargetFolders)) && !aFolderPaths.contains(aManifest.getPath())) {
+							manifestsToDelete.add(aManifest.getId());
+						}
+					}
+
+					@Override
+					public Page<FolderManifest> getPage(Pageable aPageable) {
+						return folderManifestDao.findAll(aPageable);
+					}
+				};
+				new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), handler).run();
+			}
+		});
+
+		for (final List<Long> chunk : Partition.partition(manifestsToDelete, CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+					for (Long id : chunk) {
+						folderManifestDao.delete(id);
+					}
+				}
+			});
+		}
+	}
+
+}
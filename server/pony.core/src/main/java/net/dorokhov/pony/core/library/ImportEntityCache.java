@@ -0,0 +1,91 @@
+package net.dorokhov.pony.core.library;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps names of genres, artists and albums to ids of existing entities. Names are compared exactly,
+ * so that cache hit never requires the entity name to be updated.
+ */
+public class ImportEntityCache {
+
+	private final ConcurrentMap<List<Object>, Long> genreIds = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<List<Object>, Long> artistIds = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<List<Object>, AlbumEntry> albums = new ConcurrentHashMap<>();
+
+	public Long getGenreId(String aName) {
+		return genreIds.get(buildKey(aName));
+	}
+
+	public void putGenre(Long aId, String aName) {
+		genreIds.put(buildKey(aName), aId);
+	}
+
+	public void removeGenre(Long aId, String aName) {
+		genreIds.remove(buildKey(aName), aId);
+	}
+
+	public Long getArtistId(String aName) {
+		return artistIds.get(buildKey(aName));
+	}
+
+	public void putArtist(Long aId, String aName) {
+		artistIds.put(buildKey(aName), aId);
+	}
+
+	public void removeArtist(Long aId, String aName) {
+		artistIds.remove(buildKey(aName), aId);
+	}
+
+	public AlbumEntry getAlbum(Long aArtistId, String aName) {
+		return albums.get(buildKey(aArtistId, aName));
+	}
+
+	public void putAlbum(Long aId, Long aArtistId, String aName, Integer aYear) {
+		albums.put(buildKey(aArtistId, aName), new AlbumEntry(aId, aYear));
+	}
+
+	public void removeAlbum(Long aId, Long aArtistId, String aName) {
+
+		List<Object> key = buildKey(aArtistId, aName);
+
+		AlbumEntry entry = albums.get(key);
+
+		if (entry != null && entry.getId().equals(aId)) {
+			albums.remove(key, entry);
+		}
+	}
+
+	public int size() {
+		return genreIds.size() + artistIds.size() + albums.size();
+	}
+
+	private List<Object> buildKey(Object... aParts) {
+		return Arrays.asList(aParts);
+	}
+
+	public static class AlbumEntry {
+
+		private final Long id;
+
+		private final Integer year;
+
+		public AlbumEntry(Long aId, Integer aYear) {
+			id = aId;
+			year = aYear;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public Integer getYear() {
+			return year;
+		}
+	}
+
+}
@@ -2,21 +2,60 @@ package net.dorokhov.pony.core.library;
 
 import net.dorokhov.pony.core.audio.data.SongDataWritable;
 import net.dorokhov.pony.core.domain.Song;
-import net.dorokhov.pony.core.library.file.LibraryImage;
 import net.dorokhov.pony.core.library.file.LibrarySong;
 
+import java.io.File;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface LibraryService {
 
-	public void cleanSongs(List<LibrarySong> aSongFiles, ProgressDelegate aDelegate);
+	/**
+	 * Deletes songs which paths are not found in the given set.
+	 *
+	 * @param aTargetFolders folders to clean or null to clean the whole library
+	 */
+	public void cleanSongs(List<File> aTargetFolders, Set<String> aSongPaths, ProgressDelegate aDelegate);
 
-	public void cleanArtworks(List<LibraryImage> aImageFiles, ProgressDelegate aDelegate);
+	/**
+	 * Deletes external artworks which paths are not found in the given set.
+	 *
+	 * @param aTargetFolders folders to clean or null to clean the whole library
+	 */
+	public void cleanArtworks(List<File> aTargetFolders, Set<String> aImagePaths, ProgressDelegate aDelegate);
+
+	public void cleanModifiedArtworks(ProgressDelegate aDelegate);
 
 	public void normalize(ProgressDelegate aDelegate);
 
+	/**
+	 * Normalizes only the given entities, entities not found are ignored.
+	 */
+	public void normalize(Collection<Long> aAlbumIds, Collection<Long> aArtistIds, Collection<Long> aGenreIds, ProgressDelegate aDelegate);
+
+	/**
+	 * Loads ids of all genres, artists and albums, so that following imports do not have to look them up.
+	 * Cache must be cleared as soon as the imports finish, entities deleted outside of imports are not tracked.
+	 */
+	public void loadImportCache();
+
+	public void clearImportCache();
+
 	public Song importSong(LibrarySong aSongFile);
 
+	public SongImport readSong(LibrarySong aSongFile);
+
+	public void prepareArtwork(SongImport aSongImport);
+
+	public Song importSong(SongImport aSongImport);
+
+	/**
+	 * Imports songs in a single transaction. If the transaction fails, songs are imported one by one.
+	 * Delegate is called outside of any transaction.
+	 */
+	public void importSongs(List<SongImport> aSongImports, ImportDelegate aDelegate);
+
 	public Song writeAndImportSong(LibrarySong aSongFile, SongDataWritable aSongData);
 
 	public static interface ProgressDelegate {
@@ -25,4 +64,12 @@ public interface LibraryService {
 
 	}
 
+	public static interface ImportDelegate {
+
+		public void onSongImported(SongImport aSongImport, Song aSong);
+
+		public void onSongImportFailed(SongImport aSongImport, Exception aException);
+
+	}
+
 }
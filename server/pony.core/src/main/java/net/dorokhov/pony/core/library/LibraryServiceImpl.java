@@ -5,20 +5,25 @@ import net.dorokhov.pony.core.audio.data.SongDataReadable;
 import net.dorokhov.pony.core.audio.data.SongDataWritable;
 import net.dorokhov.pony.core.common.PageProcessor;
 import net.dorokhov.pony.core.common.Partition;
+import net.dorokhov.pony.core.common.PonyUtils;
+import net.dorokhov.pony.core.common.StripedLock;
 import net.dorokhov.pony.core.dao.AlbumDao;
 import net.dorokhov.pony.core.dao.ArtistDao;
 import net.dorokhov.pony.core.dao.GenreDao;
+import net.dorokhov.pony.core.dao.NormalizationDao;
 import net.dorokhov.pony.core.dao.SongDao;
 import net.dorokhov.pony.core.domain.*;
 import net.dorokhov.pony.core.image.ThumbnailService;
 import net.dorokhov.pony.core.library.file.LibraryImage;
 import net.dorokhov.pony.core.library.file.LibrarySong;
 import net.dorokhov.pony.core.logging.LogService;
+import net.dorokhov.pony.core.search.SearchService;
 import net.dorokhov.pony.core.storage.StoreFileCommand;
 import net.dorokhov.pony.core.storage.StoredFileService;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +40,13 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ObjectUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.File;
 import java.util.*;
 
@@ -46,13 +55,21 @@ public class LibraryServiceImpl implements LibraryService {
 
 	private static final int CLEANING_BUFFER_SIZE = 300;
 
+	private static final int PROJECTION_BUFFER_SIZE = 5000;
+
+	private static final int NUMBER_OF_IMPORT_LOCK_STRIPES = 64;
+
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	private final Object lock = new Object();
+	private final StripedLock importLock = new StripedLock(NUMBER_OF_IMPORT_LOCK_STRIPES);
+
+	private volatile ImportEntityCache importCache;
 
 	private TransactionTemplate newTransactionTemplate;
 	private TransactionTemplate readOnlyTransactionTemplate;
 
+	private EntityManager entityManager;
+
 	private LogService logService;
 
 	private SongDao songDao;
@@ -63,6 +80,8 @@ public class LibraryServiceImpl implements LibraryService {
 
 	private GenreDao genreDao;
 
+	private NormalizationDao normalizationDao;
+
 	private StoredFileService storedFileService;
 
 	private SongDataService songDataService;
@@ -71,6 +90,8 @@ public class LibraryServiceImpl implements LibraryService {
 
 	private ArtworkDiscoveryService artworkDiscoveryService;
 
+	private SearchService searchService;
+
 	@Autowired
 	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
 
@@ -83,6 +104,11 @@ public class LibraryServiceImpl implements LibraryService {
 		readOnlyTransactionTemplate = new TransactionTemplate(aTransactionManager, readOnlyDefinition);
 	}
 
+	@PersistenceContext
+	public void setEntityManager(EntityManager aEntityManager) {
+		entityManager = aEntityManager;
+	}
+
 	@Autowired
 	public void setLogService(LogService aLogService) {
 		logService = aLogService;
@@ -108,6 +134,11 @@ public class LibraryServiceImpl implements LibraryService {
 		genreDao = aGenreDao;
 	}
 
+	@Autowired
+	public void setNormalizationDao(NormalizationDao aNormalizationDao) {
+		normalizationDao = aNormalizationDao;
+	}
+
 	@Autowired
 	public void setStoredFileService(StoredFileService aStoredFileService) {
 		storedFileService = aStoredFileService;
@@ -128,38 +159,47 @@ public class LibraryServiceImpl implements LibraryService {
 		artworkDiscoveryService = aArtworkDiscoveryService;
 	}
 
+	@Autowired
+	public void setSearchService(SearchService aSearchService) {
+		searchService = aSearchService;
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.NOT_SUPPORTED)
-	public void cleanSongs(List<LibrarySong> aSongFiles, final ProgressDelegate aDelegate) {
+	public void cleanSongs(final List<File> aTargetFolders, final Set<String> aSongPaths, final ProgressDelegate aDelegate) {
 
 		if (aDelegate != null) {
 			aDelegate.onProgress(-1.0);
 		}
 
-		final Set<String> songPaths = new HashSet<>();
-		for (LibrarySong songFile : aSongFiles) {
-			songPaths.add(songFile.getFile().getAbsolutePath());
-		}
-
-		final List<Long> songsToDelete = new ArrayList<>();
+		final List<SongDeletionTask> songsToDelete = new ArrayList<>();
 
+		// Only ids and paths are loaded, pages are fetched by id to avoid slow offsets
 		readOnlyTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
 			@Override
 			protected void doInTransactionWithoutResult(TransactionStatus status) {
-				PageProcessor.Handler<Song> handler = new PageProcessor.Handler<Song>() {
-					@Override
-					public void process(Song aSong, Page<Song> aPage, int aIndexInPage, long aIndexInAll) {
-						if (!songPaths.contains(aSong.getPath())) {
-							songsToDelete.add(aSong.getId());
+
+				Long lastId = Long.MIN_VALUE;
+
+				List<Object[]> page;
+
+				do {
+
+					page = songDao.findIdsAndPathsByIdGreaterThan(lastId, new PageRequest(0, PROJECTION_BUFFER_SIZE));
+
+					for (Object[] row : page) {
+
+						Long id = (Long) row[0];
+						String path = (String) row[1];
+
+						if (isInTargetFolders(path, aTargetFolders) && !aSongPaths.contains(path)) {
+							songsToDelete.add(new SongDeletionTask(id, path));
 						}
-					}
 
-					@Override
-					public Page<Song> getPage(Pageable aPageable) {
-						return songDao.findAll(aPageable);
+						lastId = id;
 					}
-				};
-				new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), handler).run();
+
+				} while (page.size() == PROJECTION_BUFFER_SIZE);
 			}
 		});
 
@@ -167,35 +207,165 @@ public class LibraryServiceImpl implements LibraryService {
 			aDelegate.onProgress(0.0);
 		}
 
-		final MutableInt i = new MutableInt();
+		final Set<Long> genreIds = new HashSet<>();
+		final Set<Long> albumIds = new HashSet<>();
+		final Set<Long> artistIds = new HashSet<>();
+		final Set<Long> artworkIds = new HashSet<>();
+
+		int deletedCount = 0;
+
+		for (final List<SongDeletionTask> chunk : Partition.partition(songsToDelete, CLEANING_BUFFER_SIZE)) {
 
-		for (final List<Long> chunk : Partition.partition(songsToDelete, CLEANING_BUFFER_SIZE)) {
 			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
 				@Override
 				protected void doInTransactionWithoutResult(TransactionStatus status) {
-					for (Long id : chunk) {
 
-						Song song = songDao.findOne(id);
+					List<Long> ids = new ArrayList<>();
 
-						if (song != null) {
+					for (SongDeletionTask task : chunk) {
 
-							logService.debug(log, "libraryService.deletingNotFoundSong",
-									"Deleting song [" + song + "], song file not found [" + song.getPath() + "].",
-									Arrays.asList(song.toString(), song.getPath()));
+						logService.debug(log, "libraryService.deletingNotFoundSong",
+								"Deleting song [" + task.getId() + "], song file not found [" + task.getPath() + "].",
+								Arrays.asList(task.getId().toString(), task.getPath()));
 
-							songDao.delete(song);
+						ids.add(task.getId());
+					}
 
-							deleteGenreIfNotUsed(song.getGenre());
-							deleteAlbumIfNotUsed(song.getAlbum());
-							deleteArtistIfNotUsed(song.getAlbum().getArtist());
-							deleteArtworkIfNotUsed(song.getArtwork());
-						}
+					// Entities referred by deleted songs are deleted afterwards if they are not used anymore
+					for (Object[] row : songDao.findRelatedIdsByIdIn(ids)) {
 
-						if (aDelegate != null) {
-							aDelegate.onProgress((i.getValue() + 1) / (double) songsToDelete.size());
+						genreIds.add((Long) row[0]);
+						albumIds.add((Long) row[1]);
+						artistIds.add((Long) row[2]);
+
+						if (row[3] != null) {
+							artworkIds.add((Long) row[3]);
 						}
+					}
 
-						i.increment();
+					songDao.deleteByIdIn(ids);
+
+					searchService.purgeIndex(Song.class, ids);
+				}
+			});
+
+			deletedCount += chunk.size();
+
+			if (aDelegate != null) {
+				aDelegate.onProgress(deletedCount / (double) songsToDelete.size());
+			}
+		}
+
+		deleteNotUsedGenres(genreIds);
+		deleteNotUsedAlbums(albumIds);
+		deleteNotUsedArtists(artistIds);
+		deleteNotUsedArtworks(artworkIds);
+	}
+
+	private void deleteNotUsedGenres(Set<Long> aIds) {
+		for (final List<Long> chunk : Partition.partition(new ArrayList<>(aIds), CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+
+					List<Long> ids = new ArrayList<>();
+
+					for (Genre genre : genreDao.findNotUsedByIdIn(chunk)) {
+
+						logService.debug(log, "libraryService.deletingGenre", "Deleting genre without songs " + genre + ".",
+								Arrays.asList(genre.toString()));
+
+						ids.add(genre.getId());
+					}
+
+					if (ids.size() > 0) {
+
+						genreDao.deleteByIdIn(ids);
+
+						searchService.purgeIndex(Genre.class, ids);
+					}
+				}
+			});
+		}
+	}
+
+	private void deleteNotUsedAlbums(Set<Long> aIds) {
+		for (final List<Long> chunk : Partition.partition(new ArrayList<>(aIds), CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+
+					List<Long> ids = new ArrayList<>();
+
+					for (Album album : albumDao.findNotUsedByIdIn(chunk)) {
+
+						logService.debug(log, "libraryService.deletingAlbum", "Deleting album without songs " + album + ".",
+								Arrays.asList(album.toString()));
+
+						ids.add(album.getId());
+					}
+
+					if (ids.size() > 0) {
+
+						albumDao.deleteByIdIn(ids);
+
+						searchService.purgeIndex(Album.class, ids);
+					}
+				}
+			});
+		}
+	}
+
+	private void deleteNotUsedArtists(Set<Long> aIds) {
+		for (final List<Long> chunk : Partition.partition(new ArrayList<>(aIds), CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+
+					List<Long> ids = new ArrayList<>();
+
+					for (Artist artist : artistDao.findNotUsedByIdIn(chunk)) {
+
+						logService.debug(log, "libraryService.deletingArtist", "Deleting artist without albums " + artist + ".",
+								Arrays.asList(artist.toString()));
+
+						ids.add(artist.getId());
+					}
+
+					if (ids.size() > 0) {
+
+						artistDao.deleteByIdIn(ids);
+
+						searchService.purgeIndex(Artist.class, ids);
+					}
+				}
+			});
+		}
+	}
+
+	private void deleteNotUsedArtworks(Set<Long> aIds) {
+		for (final List<Long> chunk : Partition.partition(new ArrayList<>(aIds), CLEANING_BUFFER_SIZE)) {
+			newTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+
+					List<Long> ids = new ArrayList<>(chunk);
+
+					ids.removeAll(songDao.findArtworkIdsByArtworkIdIn(chunk));
+
+					if (ids.size() > 0) {
+
+						albumDao.clearArtworkByArtworkIdIn(ids);
+						artistDao.clearArtworkByArtworkIdIn(ids);
+						genreDao.clearArtworkByArtworkIdIn(ids);
+
+						for (Long id : ids) {
+
+							logService.debug(log, "libraryService.deletingNotUsedArtwork", "Deleting not used artwork [" + id + "].",
+									Arrays.asList(id.toString()));
+
+							storedFileService.delete(id);
+						}
 					}
 				}
 			});
@@ -204,17 +374,22 @@ public class LibraryServiceImpl implements LibraryService {
 
 	@Override
 	@Transactional(propagation = Propagation.NOT_SUPPORTED)
-	public void cleanArtworks(List<LibraryImage> aImageFiles, final ProgressDelegate aDelegate) {
+	public void cleanArtworks(List<File> aTargetFolders, Set<String> aImagePaths, ProgressDelegate aDelegate) {
+		doCleanArtworks(aTargetFolders, aImagePaths, aDelegate);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void cleanModifiedArtworks(ProgressDelegate aDelegate) {
+		doCleanArtworks(null, null, aDelegate);
+	}
+
+	private void doCleanArtworks(final List<File> aTargetFolders, final Set<String> aImagePaths, final ProgressDelegate aDelegate) {
 
 		if (aDelegate != null) {
 			aDelegate.onProgress(-1.0);
 		}
 
-		final Set<String> imagePaths = new HashSet<>();
-		for (LibraryImage imageFile : aImageFiles) {
-			imagePaths.add(imageFile.getFile().getAbsolutePath());
-		}
-
 		final List<ExternalArtworkDeletionTask> artworksToDelete = new ArrayList<>();
 
 		readOnlyTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
@@ -226,7 +401,7 @@ public class LibraryServiceImpl implements LibraryService {
 
 						String externalFilePath = aStoredFile.getUserData();
 
-						if (!imagePaths.contains(externalFilePath)) {
+						if (aImagePaths != null && isInTargetFolders(externalFilePath, aTargetFolders) && !aImagePaths.contains(externalFilePath)) {
 
 							artworksToDelete.add(new ExternalArtworkDeletionTask(aStoredFile.getId(), externalFilePath, ExternalArtworkDeletionReason.NOT_FOUND));
 
@@ -294,192 +469,211 @@ public class LibraryServiceImpl implements LibraryService {
 		}
 	}
 
+	private boolean isInTargetFolders(String aPath, List<File> aTargetFolders) {
+		return aTargetFolders == null || PonyUtils.isPathInFolders(aPath, aTargetFolders);
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
-	public void normalize(final ProgressDelegate aDelegate) {
-
-		final long albumCount = albumDao.countByArtworkId(null);
-		final long genreCount = genreDao.countByArtworkId(null);
-		final long artistCount = artistDao.countByArtworkId(null);
+	public void normalize(ProgressDelegate aDelegate) {
+		doNormalize(null, null, null, aDelegate);
+	}
 
-		final long entityCount = albumCount + genreCount + artistCount;
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public void normalize(Collection<Long> aAlbumIds, Collection<Long> aArtistIds, Collection<Long> aGenreIds, ProgressDelegate aDelegate) {
+		doNormalize(aAlbumIds, aArtistIds, aGenreIds, aDelegate);
+	}
 
-		PageProcessor.Handler<Album> albumHandler = new PageProcessor.Handler<Album>() {
+	private void doNormalize(Collection<Long> aAlbumIds, Collection<Long> aArtistIds, Collection<Long> aGenreIds, ProgressDelegate aDelegate) {
 
-			@Override
-			public void process(Album aAlbum, Page<Album> aPage, int aIndexInPage, long aIndexInAll) {
+		if (aDelegate != null) {
+			aDelegate.onProgress(0.0);
+		}
 
-				if (songDao.countByAlbumId(aAlbum.getId()) > 0) {
+		// Albums go first, artist artwork is selected from album artworks
+		int albumCount = normalizationDao.updateAlbumArtworks(aAlbumIds);
 
-					Page<Song> songPage = songDao.findByAlbumIdAndArtworkNotNull(aAlbum.getId(), new PageRequest(0, 1, new Sort(Sort.Direction.ASC, "id")));
+		if (aDelegate != null) {
+			aDelegate.onProgress(1 / 3.0);
+		}
 
-					if (songPage.hasContent()) {
+		int genreCount = normalizationDao.updateGenreArtworks(aGenreIds);
 
-						StoredFile artwork = songPage.getContent().get(0).getArtwork();
+		if (aDelegate != null) {
+			aDelegate.onProgress(2 / 3.0);
+		}
 
-						logService.debug(log, "libraryService.settingAlbumArtwork", "Setting album artwork " + aAlbum + " with " + artwork,
-								Arrays.asList(aAlbum.toString(), artwork.toString()));
+		int artistCount = normalizationDao.updateArtistArtworks(aArtistIds);
 
-						aAlbum.setArtwork(artwork);
+		if (aDelegate != null) {
+			aDelegate.onProgress(1.0);
+		}
 
-						albumDao.save(aAlbum);
-					}
-				}
+		logService.debug(log, "libraryService.settingArtworks",
+				"Setting artworks of " + albumCount + " albums, " + genreCount + " genres and " + artistCount + " artists.",
+				Arrays.asList(String.valueOf(albumCount), String.valueOf(genreCount), String.valueOf(artistCount)));
+	}
 
-				if (aDelegate != null) {
-					aDelegate.onProgress((aIndexInAll + 1) / (double) entityCount);
-				}
-			}
+	@Override
+	@Transactional(readOnly = true)
+	public void loadImportCache() {
 
-			@Override
-			public Page<Album> getPage(Pageable aPageable) {
-				return albumDao.findByArtworkId(null, aPageable);
-			}
-		};
-		new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), albumHandler).run();
+		ImportEntityCache cache = new ImportEntityCache();
 
-		PageProcessor.Handler<Genre> genreHandler = new PageProcessor.Handler<Genre>() {
+		for (Object[] row : genreDao.findIdsAndNames()) {
+			cache.putGenre((Long) row[0], (String) row[1]);
+		}
+		for (Object[] row : artistDao.findIdsAndNames()) {
+			cache.putArtist((Long) row[0], (String) row[1]);
+		}
+		for (Object[] row : albumDao.findIdsAndNames()) {
+			cache.putAlbum((Long) row[0], (Long) row[1], (String) row[2], (Integer) row[3]);
+		}
 
-			@Override
-			public void process(Genre aGenre, Page<Genre> aPage, int aIndexInPage, long aIndexInAll) {
+		importCache = cache;
 
-				long genreSongCount = songDao.countByGenreIdAndArtworkNotNull(aGenre.getId());
+		log.debug("Loaded " + cache.size() + " entities into import cache.");
+	}
 
-				if (genreSongCount > 0) {
+	@Override
+	public void clearImportCache() {
+		importCache = null;
+	}
 
-					Page<Song> songPage = songDao.findByGenreIdAndArtworkNotNull(aGenre.getId(),
-							new PageRequest((int) Math.floor(genreSongCount / 2.0), 1, new Sort(Sort.Direction.ASC, "year")));
+	@Override
+	@Transactional(readOnly = true)
+	public Song importSong(LibrarySong aSongFile) {
 
-					if (songPage.hasContent()) {
+		SongImport songImport = readSong(aSongFile);
 
-						StoredFile artwork = songPage.getContent().get(0).getArtwork();
+		prepareArtwork(songImport);
 
-						logService.debug(log, "libraryService.settingGenreArtwork", "Setting genre artwork " + aGenre + " with " + artwork,
-								Arrays.asList(aGenre.toString(), artwork.toString()));
+		return importSong(songImport);
+	}
 
-						aGenre.setArtwork(artwork);
+	@Override
+	@Transactional(readOnly = true)
+	public SongImport readSong(LibrarySong aSongFile) {
 
-						genreDao.save(aGenre);
-					}
-				}
+		Song song = songDao.findByPath(aSongFile.getFile().getAbsolutePath());
 
-				if (aDelegate != null) {
-					aDelegate.onProgress((albumCount + aIndexInAll + 1) / (double) entityCount);
-				}
-			}
+		boolean shouldImport = (song == null);
 
-			@Override
-			public Page<Genre> getPage(Pageable aPageable) {
-				return genreDao.findByArtworkId(null, aPageable);
+		if (!shouldImport) {
+			if (song.getUpdateDate() != null) {
+				shouldImport = (song.getUpdateDate().getTime() < aSongFile.getFile().lastModified());
+			} else {
+				shouldImport = (song.getCreationDate().getTime() < aSongFile.getFile().lastModified());
 			}
-		};
-		new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), genreHandler).run();
-
-		PageProcessor.Handler<Artist> artistHandler = new PageProcessor.Handler<Artist>() {
-
-			@Override
-			public void process(Artist aArtist, Page<Artist> aPage, int aIndexInPage, long aIndexInAll) {
-
-				long artistAlbumCount = albumDao.countByArtistIdAndArtworkNotNull(aArtist.getId());
+		}
 
-				if (artistAlbumCount > 0) {
+		SongDataReadable songData = null;
 
-					Page<Album> albumPage = albumDao.findByArtistIdAndArtworkNotNull(aArtist.getId(),
-							new PageRequest((int) Math.floor(artistAlbumCount / 2.0), 1, Sort.Direction.ASC, "year"));
+		if (shouldImport) {
+			try {
+				songData = songDataService.read(aSongFile.getFile());
+			} catch (Exception e) {
+				throw new RuntimeException("Could not read song data from [" + aSongFile.getFile().getAbsolutePath() + "]", e);
+			}
 
-					if (albumPage.hasContent()) {
+			// Artwork checksum is needed to lock the artwork, which could be deleted during import
+			if (song != null && song.getArtwork() != null) {
+				Hibernate.initialize(song.getArtwork());
+			}
+		}
 
-						StoredFile artwork = albumPage.getContent().get(0).getArtwork();
+		return new SongImport(aSongFile, song, songData);
+	}
 
-						logService.debug(log, "libraryService.settingArtistArtwork", "Setting artist artwork " + aArtist + " with " + artwork,
-								Arrays.asList(aArtist.toString(), artwork.toString()));
+	@Override
+	@Transactional(readOnly = true)
+	public void prepareArtwork(SongImport aSongImport) {
+		if (aSongImport.getSongData() != null) {
+			if (!prepareEmbeddedArtwork(aSongImport)) {
+				prepareFileArtwork(aSongImport);
+			}
+		} else if (aSongImport.getSong().getArtwork() == null) {
+			prepareFileArtwork(aSongImport);
+		}
+	}
 
-						aArtist.setArtwork(artwork);
+	@Override
+	@Transactional(readOnly = true)
+	public Song importSong(final SongImport aSongImport) {
 
-						artistDao.save(aArtist);
-					}
-				}
+		Song song = aSongImport.getSong();
 
-				if (aDelegate != null) {
-					aDelegate.onProgress((albumCount + genreCount + aIndexInAll + 1) / (double) entityCount);
-				}
+		try {
+			if (aSongImport.isImportNeeded()) {
+				song = importSongsWithLock(Collections.singletonList(aSongImport)).get(0);
 			}
+		} finally {
+			deleteArtworkCommandFile(aSongImport);
+		}
 
-			@Override
-			public Page<Artist> getPage(Pageable aPageable) {
-				return artistDao.findByArtworkId(null, aPageable);
-			}
-		};
-		new PageProcessor<>(CLEANING_BUFFER_SIZE, new Sort("id"), artistHandler).run();
+		return song;
 	}
 
 	@Override
-	@Transactional(readOnly = true)
-	public Song importSong(final LibrarySong aSongFile) {
-
-		Song song = songDao.findByPath(aSongFile.getFile().getAbsolutePath());
+	public void importSongs(List<SongImport> aSongImports, ImportDelegate aDelegate) {
 
-		boolean shouldImport = (song == null);
+		List<SongImport> songImports = new ArrayList<>();
 
-		if (!shouldImport) {
-			if (song.getUpdateDate() != null) {
-				shouldImport = (song.getUpdateDate().getTime() < aSongFile.getFile().lastModified());
+		for (SongImport songImport : aSongImports) {
+			if (songImport.isImportNeeded()) {
+				songImports.add(songImport);
 			} else {
-				shouldImport = (song.getCreationDate().getTime() < aSongFile.getFile().lastModified());
+				aDelegate.onSongImported(songImport, songImport.getSong());
 			}
 		}
 
-		if (shouldImport) {
-
-			final SongDataReadable songData;
+		List<Song> songs = null;
 
+		if (songImports.size() > 1) {
 			try {
-				songData = songDataService.read(aSongFile.getFile());
+				songs = importSongsWithLock(songImports);
 			} catch (Exception e) {
-				throw new RuntimeException("Could not read song data from [" + aSongFile.getFile().getAbsolutePath() + "]", e);
+				log.debug("Could not import batch of " + songImports.size() + " songs, importing songs one by one.", e);
 			}
+		}
 
-			synchronized (lock) {
-				song = newTransactionTemplate.execute(new TransactionCallback<Song>() {
-					@Override
-					public Song doInTransaction(TransactionStatus status) {
-						return importSong(aSongFile, songData);
-					}
-				});
-			}
+		if (songs != null) {
+			for (int i = 0; i < songImports.size(); i++) {
+
+				deleteArtworkCommandFile(songImports.get(i));
 
+				aDelegate.onSongImported(songImports.get(i), songs.get(i));
+			}
 		} else {
-			if (song.getArtwork() == null) {
-				synchronized (lock) {
-					song = newTransactionTemplate.execute(new TransactionCallback<Song>() {
-						@Override
-						public Song doInTransaction(TransactionStatus status) {
+			// Failed song is reported separately and does not prevent other songs of the batch from being imported
+			for (SongImport songImport : songImports) {
 
-							Song song = songDao.findByPath(aSongFile.getFile().getAbsolutePath());
+				Song song;
 
-							if (song != null && song.getArtwork() == null) {
-								song = discoverSongArtwork(song, aSongFile);
-							}
+				try {
+					song = importSong(songImport);
+				} catch (Exception e) {
 
-							return song;
-						}
-					});
+					aDelegate.onSongImportFailed(songImport, e);
+
+					continue;
 				}
+
+				aDelegate.onSongImported(songImport, song);
 			}
 		}
-
-		return song;
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public Song writeAndImportSong(final LibrarySong aSongFile, final SongDataWritable aSongData) {
+	public Song writeAndImportSong(LibrarySong aSongFile, SongDataWritable aSongData) {
 
 		Song song = songDao.findByPath(aSongFile.getFile().getAbsolutePath());
 
 		if (song != null) {
 
-			final SongDataReadable updatedSongData;
+			SongDataReadable updatedSongData;
 
 			try {
 				updatedSongData = songDataService.write(new File(song.getPath()), aSongData);
@@ -487,24 +681,149 @@ public class LibraryServiceImpl implements LibraryService {
 				throw new RuntimeException("Could not write data " + aSongData + " to song [" + song.getPath() + "]");
 			}
 
-			synchronized (lock) {
-				song = newTransactionTemplate.execute(new TransactionCallback<Song>() {
-					@Override
-					public Song doInTransaction(TransactionStatus status) {
-						return importSong(aSongFile, updatedSongData);
+			SongImport songImport = new SongImport(aSongFile, song, updatedSongData);
+
+			prepareArtwork(songImport);
+
+			song = importSong(songImport);
+		}
+
+		return song;
+	}
+
+	private List<Song> importSongsWithLock(List<SongImport> aSongImports) {
+		try {
+			return importSongsWithLock(aSongImports, false);
+		} catch (CreationNotLockedException e) {
+			return importSongsWithLock(aSongImports, true);
+		}
+	}
+
+	/**
+	 * Only entities touched by the import are locked, so that imports of different albums run concurrently.
+	 * Existing genres, artists and artworks are locked in shared mode: if one of them must be created,
+	 * {@link CreationNotLockedException} is thrown and import must be repeated with creation locked.
+	 */
+	private List<Song> importSongsWithLock(final List<SongImport> aSongImports, final boolean aCreationLocked) {
+
+		List<String> exclusiveKeys = new ArrayList<>();
+		List<String> sharedKeys = new ArrayList<>();
+
+		for (SongImport songImport : aSongImports) {
+			buildLockKeys(songImport, aCreationLocked, exclusiveKeys, sharedKeys);
+		}
+
+		StripedLock.LockedStripes lockedStripes = importLock.lock(exclusiveKeys, sharedKeys);
+
+		try {
+			return newTransactionTemplate.execute(new TransactionCallback<List<Song>>() {
+				@Override
+				public List<Song> doInTransaction(TransactionStatus status) {
+
+					List<Song> songs = new ArrayList<>();
+
+					for (SongImport songImport : aSongImports) {
+						if (songImport.getSongData() != null) {
+							songs.add(doImportSong(songImport, aCreationLocked));
+						} else {
+
+							Song song = songDao.findByPath(songImport.getSongFile().getFile().getAbsolutePath());
+
+							if (song != null && song.getArtwork() == null) {
+								song = discoverSongArtwork(song, songImport, aCreationLocked);
+							}
+
+							songs.add(song);
+						}
 					}
-				});
+
+					return songs;
+				}
+			});
+		} finally {
+			lockedStripes.unlock();
+		}
+	}
+
+	private void buildLockKeys(SongImport aSongImport, boolean aCreationLocked, List<String> aExclusiveKeys, List<String> aSharedKeys) {
+
+		// Songs are not locked: song paths are unique within a scan and the database rejects duplicate paths,
+		// while every song key would lock one more stripe and make concurrent batches block each other
+		SongDataReadable songData = aSongImport.getSongData();
+		Song song = aSongImport.getSong();
+
+		if (songData != null) {
+
+			String genreName = normalizeName(songData.getGenre());
+			String artistName = normalizeName(songData.getAlbumArtist() != null ? songData.getAlbumArtist() : songData.getArtist());
+			String albumName = normalizeName(songData.getAlbum());
+
+			(aCreationLocked ? aExclusiveKeys : aSharedKeys).add(buildLockKey("genre", genreName));
+			(aCreationLocked ? aExclusiveKeys : aSharedKeys).add(buildLockKey("artist", artistName));
+
+			aExclusiveKeys.add(buildLockKey("album", artistName, albumName));
+
+			// Entities of existing song can be deleted if song does not refer to them anymore
+			if (song != null) {
+
+				String oldGenreName = normalizeName(song.getGenreName());
+				String oldArtistName = normalizeName(song.getAlbumArtistName() != null ? song.getAlbumArtistName() : song.getArtistName());
+				String oldAlbumName = normalizeName(song.getAlbumName());
+
+				if (!ObjectUtils.nullSafeEquals(oldGenreName, genreName)) {
+					aExclusiveKeys.add(buildLockKey("genre", oldGenreName));
+				}
+				if (!ObjectUtils.nullSafeEquals(oldArtistName, artistName)) {
+					aExclusiveKeys.add(buildLockKey("artist", oldArtistName));
+				}
+				if (!ObjectUtils.nullSafeEquals(oldArtistName, artistName) || !ObjectUtils.nullSafeEquals(oldAlbumName, albumName)) {
+					aExclusiveKeys.add(buildLockKey("album", oldArtistName, oldAlbumName));
+				}
+				if (song.getArtwork() != null) {
+					aExclusiveKeys.add(buildLockKey("artwork", song.getArtwork().getTag(), song.getArtwork().getChecksum()));
+				}
 			}
+
+		} else {
+
+			String artistName = normalizeName(song.getAlbumArtistName() != null ? song.getAlbumArtistName() : song.getArtistName());
+
+			aExclusiveKeys.add(buildLockKey("album", artistName, normalizeName(song.getAlbumName())));
 		}
 
-		return song;
+		if (aSongImport.getArtworkChecksum() != null) {
+			(aCreationLocked ? aExclusiveKeys : aSharedKeys).add(buildLockKey("artwork", aSongImport.getArtworkTag(), aSongImport.getArtworkChecksum()));
+		}
 	}
 
-	private Song importSong(LibrarySong aSongFile, SongDataReadable aSongData) {
-		return importSong(aSongFile, aSongData, importAlbum(aSongData, importArtist(aSongData)), importGenre(aSongData));
+	private void deleteArtworkCommandFile(SongImport aSongImport) {
+		if (aSongImport.getArtworkCommand() != null) {
+			FileUtils.deleteQuietly(aSongImport.getArtworkCommand().getFile());
+		}
 	}
 
-	private Song importSong(LibrarySong aSongFile, SongDataReadable aSongData, Album aAlbum, Genre aGenre) {
+	private String normalizeName(String aName) {
+		return StringUtils.defaultIfEmpty(StringUtils.normalizeSpace(aName), null);
+	}
+
+	private String buildLockKey(String aType, String... aNames) {
+		// Case is ignored to be on the safe side, database could compare names case-insensitively
+		return aType + ":" + StringUtils.lowerCase(StringUtils.join(aNames, ":"));
+	}
+
+	private Song doImportSong(SongImport aSongImport, boolean aCreationLocked) {
+
+		SongDataReadable songData = aSongImport.getSongData();
+
+		// Entities which can require import to be repeated are imported first
+		Genre genre = importGenre(songData, aCreationLocked);
+		Artist artist = importArtist(songData, aCreationLocked);
+		StoredFile artwork = storeArtwork(aSongImport, aCreationLocked);
+
+		return doImportSong(songData, importAlbum(songData, artist), genre, artwork);
+	}
+
+	private Song doImportSong(SongDataReadable aSongData, Album aAlbum, Genre aGenre, StoredFile aArtwork) {
 
 		boolean shouldSave = false;
 
@@ -522,11 +841,6 @@ public class LibraryServiceImpl implements LibraryService {
 			shouldSave = true;
 		}
 
-		StoredFile artwork = discoverEmbeddedArtwork(aSongData);
-		if (artwork == null) {
-			artwork = discoverFileArtwork(null, aSongData, aSongFile);
-		}
-
 		if (song.getId() != null) {
 			if (!ObjectUtils.nullSafeEquals(song.getFormat(), aSongData.getFormat()) ||
 					!ObjectUtils.nullSafeEquals(song.getMimeType(), aSongData.getMimeType()) ||
@@ -560,7 +874,7 @@ public class LibraryServiceImpl implements LibraryService {
 
 				shouldSave = true;
 			}
-			if (!ObjectUtils.nullSafeEquals(song.getArtwork(), artwork)) {
+			if (!ObjectUtils.nullSafeEquals(song.getArtwork(), aArtwork)) {
 
 				overriddenArtwork = song.getArtwork();
 
@@ -591,7 +905,7 @@ public class LibraryServiceImpl implements LibraryService {
 
 			song.setAlbum(aAlbum);
 			song.setGenre(aGenre);
-			song.setArtwork(artwork);
+			song.setArtwork(aArtwork);
 
 			boolean newSong = (song.getId() == null);
 
@@ -616,12 +930,12 @@ public class LibraryServiceImpl implements LibraryService {
 				albumDao.save(song.getAlbum());
 			}
 
-			if (artwork != null && song.getAlbum().getArtwork() == null) {
+			if (aArtwork != null && song.getAlbum().getArtwork() == null) {
 
-				logService.debug(log, "libraryService.settingAlbumArtwork", "Setting album artwork " + song.getAlbum() + " with " + artwork,
-						Arrays.asList(song.getAlbum().toString(), artwork.toString()));
+				logService.debug(log, "libraryService.settingAlbumArtwork", "Setting album artwork " + song.getAlbum() + " with " + aArtwork,
+						Arrays.asList(song.getAlbum().toString(), aArtwork.toString()));
 
-				song.getAlbum().setArtwork(artwork);
+				song.getAlbum().setArtwork(aArtwork);
 
 				albumDao.save(song.getAlbum());
 			}
@@ -630,9 +944,17 @@ public class LibraryServiceImpl implements LibraryService {
 		return song;
 	}
 
-	private Genre importGenre(SongDataReadable aSongData) {
+	private Genre importGenre(SongDataReadable aSongData, boolean aCreationLocked) {
 
-		String genreName = StringUtils.defaultIfEmpty(StringUtils.normalizeSpace(aSongData.getGenre()), null);
+		String genreName = normalizeName(aSongData.getGenre());
+
+		final ImportEntityCache cache = importCache;
+
+		Long cachedId = cache != null ? cache.getGenreId(genreName) : null;
+
+		if (cachedId != null) {
+			return entityManager.getReference(Genre.class, cachedId);
+		}
 
 		Genre genre = genreDao.findByName(genreName);
 
@@ -653,6 +975,14 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (shouldSave) {
 
+			if (!aCreationLocked) {
+				throw new CreationNotLockedException();
+			}
+
+			if (cache != null && genre.getId() != null) {
+				cache.removeGenre(genre.getId(), genre.getName());
+			}
+
 			genre.setName(genreName);
 
 			boolean newGenre = (genre.getId() == null);
@@ -668,16 +998,37 @@ public class LibraryServiceImpl implements LibraryService {
 			}
 		}
 
+		if (cache != null) {
+
+			final Long id = genre.getId();
+			final String name = genre.getName();
+
+			runAfterCommit(new Runnable() {
+				@Override
+				public void run() {
+					cache.putGenre(id, name);
+				}
+			});
+		}
+
 		return genre;
 	}
 
-	private Artist importArtist(SongDataReadable aSongData) {
+	private Artist importArtist(SongDataReadable aSongData, boolean aCreationLocked) {
 
 		String artistName = aSongData.getAlbumArtist();
 		if (artistName == null) {
 			artistName = aSongData.getArtist();
 		}
-		artistName = StringUtils.defaultIfEmpty(StringUtils.normalizeSpace(artistName), null);
+		artistName = normalizeName(artistName);
+
+		final ImportEntityCache cache = importCache;
+
+		Long cachedId = cache != null ? cache.getArtistId(artistName) : null;
+
+		if (cachedId != null) {
+			return entityManager.getReference(Artist.class, cachedId);
+		}
 
 		Artist artist = artistDao.findByName(artistName);
 
@@ -698,6 +1049,14 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (shouldSave) {
 
+			if (!aCreationLocked) {
+				throw new CreationNotLockedException();
+			}
+
+			if (cache != null && artist.getId() != null) {
+				cache.removeArtist(artist.getId(), artist.getName());
+			}
+
 			artist.setName(artistName);
 
 			boolean newArtist = (artist.getId() == null);
@@ -713,12 +1072,33 @@ public class LibraryServiceImpl implements LibraryService {
 			}
 		}
 
+		if (cache != null) {
+
+			final Long id = artist.getId();
+			final String name = artist.getName();
+
+			runAfterCommit(new Runnable() {
+				@Override
+				public void run() {
+					cache.putArtist(id, name);
+				}
+			});
+		}
+
 		return artist;
 	}
 
 	private Album importAlbum(SongDataReadable aSongData, Artist aArtist) {
 
-		String albumName = StringUtils.defaultIfEmpty(StringUtils.normalizeSpace(aSongData.getAlbum()), null);
+		String albumName = normalizeName(aSongData.getAlbum());
+
+		final ImportEntityCache cache = importCache;
+
+		ImportEntityCache.AlbumEntry cachedAlbum = cache != null ? cache.getAlbum(aArtist.getId(), albumName) : null;
+
+		if (cachedAlbum != null && ObjectUtils.nullSafeEquals(cachedAlbum.getYear(), aSongData.getYear())) {
+			return entityManager.getReference(Album.class, cachedAlbum.getId());
+		}
 
 		Album album = albumDao.findByArtistIdAndName(aArtist.getId(), albumName);
 
@@ -742,6 +1122,10 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (shouldSave) {
 
+			if (cache != null && album.getId() != null) {
+				cache.removeAlbum(album.getId(), aArtist.getId(), album.getName());
+			}
+
 			album.setName(albumName);
 			album.setYear(aSongData.getYear());
 
@@ -758,12 +1142,27 @@ public class LibraryServiceImpl implements LibraryService {
 			}
 		}
 
+		if (cache != null) {
+
+			final Long id = album.getId();
+			final Long artistId = aArtist.getId();
+			final String name = album.getName();
+			final Integer year = album.getYear();
+
+			runAfterCommit(new Runnable() {
+				@Override
+				public void run() {
+					cache.putAlbum(id, artistId, name, year);
+				}
+			});
+		}
+
 		return album;
 	}
 
-	private Song discoverSongArtwork(Song aSong, LibrarySong aSongFile) {
+	private Song discoverSongArtwork(Song aSong, SongImport aSongImport, boolean aCreationLocked) {
 
-		StoredFile artwork = discoverFileArtwork(aSong, null, aSongFile);
+		StoredFile artwork = storeArtwork(aSongImport, aCreationLocked);
 
 		if (artwork != null) {
 
@@ -785,43 +1184,42 @@ public class LibraryServiceImpl implements LibraryService {
 		return aSong;
 	}
 
-	private StoredFile discoverEmbeddedArtwork(SongDataReadable aSongData) {
-
-		StoredFile artwork = null;
-
-		if (aSongData.getArtwork() != null && aSongData.getArtwork().getChecksum() != null) {
+	private boolean prepareEmbeddedArtwork(SongImport aSongImport) {
 
-			artwork = storedFileService.getByTagAndChecksum(StoredFile.TAG_ARTWORK_EMBEDDED, aSongData.getArtwork().getChecksum());
+		SongDataReadable songData = aSongImport.getSongData();
 
-			if (artwork == null) {
-
-				StoreFileCommand command = null;
+		if (songData.getArtwork() != null && songData.getArtwork().getChecksum() != null) {
 
+			// Artwork is read from the file only if it is not stored yet
+			if (!isSongArtwork(aSongImport.getSong(), StoredFile.TAG_ARTWORK_EMBEDDED, songData.getArtwork().getChecksum()) &&
+					storedFileService.getByTagAndChecksum(StoredFile.TAG_ARTWORK_EMBEDDED, songData.getArtwork().getChecksum()) == null) {
 				try {
-					command = buildEmbeddedArtworkStoreCommand(aSongData);
+					aSongImport.setArtworkCommand(buildEmbeddedArtworkStoreCommand(songData));
 				} catch (Exception e) {
-					logService.warn(log, "libraryService.couldNotStoreEmbeddedArtwork", "Could not store embedded artwork of " + aSongData.toString() + ".",
-							e, Arrays.asList(aSongData.toString()));
-				}
 
-				if (command != null) {
+					logService.warn(log, "libraryService.couldNotStoreEmbeddedArtwork", "Could not store embedded artwork of " + songData.toString() + ".",
+							e, Arrays.asList(songData.toString()));
 
-					artwork = storedFileService.save(command);
-
-					logService.debug(log, "libraryService.storingEmbeddedArtwork", "Storing embedded artwork " + artwork + ".",
-							Arrays.asList(artwork.toString()));
+					return false;
 				}
 			}
+
+			aSongImport.setArtworkTag(StoredFile.TAG_ARTWORK_EMBEDDED);
+			aSongImport.setArtworkChecksum(songData.getArtwork().getChecksum());
+
+			return true;
 		}
 
-		return artwork;
+		return false;
 	}
 
-	private StoredFile discoverFileArtwork(Song aSong, SongDataReadable aSongData, LibrarySong aSongFile) {
+	private boolean isSongArtwork(Song aSong, String aTag, String aChecksum) {
+		return aSong != null && aSong.getArtwork() != null && aSong.getArtwork().getTag().equals(aTag) && aSong.getArtwork().getChecksum().equals(aChecksum);
+	}
 
-		StoredFile artwork = null;
+	private void prepareFileArtwork(SongImport aSongImport) {
 
-		LibraryImage artworkImage = artworkDiscoveryService.discoverArtwork(aSongFile);
+		LibraryImage artworkImage = artworkDiscoveryService.discoverArtwork(aSongImport.getSongFile());
 
 		if (artworkImage != null) {
 
@@ -839,25 +1237,73 @@ public class LibraryServiceImpl implements LibraryService {
 
 				if (checksum != null) {
 
-					artwork = storedFileService.getByTagAndChecksum(StoredFile.TAG_ARTWORK_FILE, checksum);
-
-					if (artwork == null) {
-
-						StoreFileCommand command = null;
-
+					if (storedFileService.getByTagAndChecksum(StoredFile.TAG_ARTWORK_FILE, checksum) == null) {
 						try {
-							command = buildFileArtworkStoreCommand(aSong, aSongData, artworkImage, mimeType, checksum);
+							aSongImport.setArtworkCommand(buildFileArtworkStoreCommand(aSongImport.getSong(), aSongImport.getSongData(), artworkImage, mimeType, checksum));
 						} catch (Exception e) {
+
 							logService.warn(log, "libraryService.couldNotStoreFileArtwork", "Could not store file artwork", e);
+
+							return;
 						}
+					}
+
+					aSongImport.setArtworkTag(StoredFile.TAG_ARTWORK_FILE);
+					aSongImport.setArtworkChecksum(checksum);
+					aSongImport.setArtworkImage(artworkImage);
+				}
+			}
+		}
+	}
+
+	private StoredFile storeArtwork(SongImport aSongImport, boolean aCreationLocked) {
 
-						if (command != null) {
+		StoredFile artwork = null;
 
-							artwork = storedFileService.save(command);
+		if (aSongImport.getArtworkChecksum() != null) {
 
-							logService.debug(log, "libraryService.storingFileArtwork", "Storing file artwork " + artwork + ".",
-									Arrays.asList(artwork.toString()));
+			artwork = storedFileService.getByTagAndChecksum(aSongImport.getArtworkTag(), aSongImport.getArtworkChecksum());
+
+			if (artwork == null) {
+
+				if (!aCreationLocked) {
+					throw new CreationNotLockedException();
+				}
+
+				StoreFileCommand command = aSongImport.getArtworkCommand();
+
+				// Artwork could be deleted by concurrent import after it has been prepared,
+				// prepared file is also consumed by the import which has been rolled back
+				if (command == null || !command.getFile().exists()) {
+					try {
+						if (aSongImport.getArtworkTag().equals(StoredFile.TAG_ARTWORK_EMBEDDED)) {
+							command = buildEmbeddedArtworkStoreCommand(aSongImport.getSongData());
+						} else {
+							command = buildFileArtworkStoreCommand(aSongImport.getSong(), aSongImport.getSongData(), aSongImport.getArtworkImage(),
+									aSongImport.getArtworkImage().getMimeType(), aSongImport.getArtworkChecksum());
 						}
+					} catch (Exception e) {
+
+						command = null;
+
+						logService.warn(log, "libraryService.couldNotStoreArtwork", "Could not store artwork of " + aSongImport + ".",
+								e, Arrays.asList(aSongImport.toString()));
+					}
+
+					// Rebuilt command file will be deleted after import
+					aSongImport.setArtworkCommand(command);
+				}
+
+				if (command != null) {
+
+					artwork = storedFileService.save(command);
+
+					if (command.getTag().equals(StoredFile.TAG_ARTWORK_EMBEDDED)) {
+						logService.debug(log, "libraryService.storingEmbeddedArtwork", "Storing embedded artwork " + artwork + ".",
+								Arrays.asList(artwork.toString()));
+					} else {
+						logService.debug(log, "libraryService.storingFileArtwork", "Storing file artwork " + artwork + ".",
+								Arrays.asList(artwork.toString()));
 					}
 				}
 			}
@@ -870,7 +1316,7 @@ public class LibraryServiceImpl implements LibraryService {
 
 		File file = new File(FileUtils.getTempDirectory(), "pony." + StoredFile.TAG_ARTWORK_EMBEDDED + "." + UUID.randomUUID() + ".tmp");
 
-		thumbnailService.makeThumbnail(aSongData.getArtwork().getBinaryData(), file);
+		thumbnailService.makeThumbnail(songDataService.readArtwork(new File(aSongData.getPath()), aSongData.getArtwork()), file);
 
 		StoreFileCommand command = new StoreFileCommand(StoreFileCommand.Type.MOVE, file);
 
@@ -924,6 +1370,12 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (aAlbum != null && songDao.countByAlbumId(aAlbum.getId()) == 0) {
 
+			ImportEntityCache cache = importCache;
+
+			if (cache != null) {
+				cache.removeAlbum(aAlbum.getId(), aAlbum.getArtist().getId(), aAlbum.getName());
+			}
+
 			albumDao.delete(aAlbum);
 
 			logService.debug(log, "libraryService.deletingAlbum", "Deleting album without songs " + aAlbum + ".",
@@ -939,6 +1391,12 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (aArtist != null && albumDao.countByArtistId(aArtist.getId()) == 0) {
 
+			ImportEntityCache cache = importCache;
+
+			if (cache != null) {
+				cache.removeArtist(aArtist.getId(), aArtist.getName());
+			}
+
 			artistDao.delete(aArtist);
 
 			logService.debug(log, "libraryService.deletingArtist", "Deleting artist without albums " + aArtist + ".",
@@ -954,6 +1412,12 @@ public class LibraryServiceImpl implements LibraryService {
 
 		if (aGenre != null && songDao.countByGenreId(aGenre.getId()) == 0) {
 
+			ImportEntityCache cache = importCache;
+
+			if (cache != null) {
+				cache.removeGenre(aGenre.getId(), aGenre.getName());
+			}
+
 			genreDao.delete(aGenre);
 
 			logService.debug(log, "libraryService.deletingGenre", "Deleting genre without songs " + aGenre + ".",
@@ -986,10 +1450,44 @@ public class LibraryServiceImpl implements LibraryService {
 		return false;
 	}
 
+	/**
+	 * Cached entities must not be visible to other imports before they are committed.
+	 */
+	private void runAfterCommit(final Runnable aTask) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				aTask.run();
+			}
+		});
+	}
+
+	private static class CreationNotLockedException extends RuntimeException {}
+
 	private enum ExternalArtworkDeletionReason {
 		NOT_FOUND, MODIFIED
 	}
 
+	private class SongDeletionTask {
+
+		private final Long id;
+
+		private final String path;
+
+		public SongDeletionTask(Long aId, String aPath) {
+			id = aId;
+			path = aPath;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getPath() {
+			return path;
+		}
+	}
+
 	private class ExternalArtworkDeletionTask {
 
 		private final Long id;
@@ -0,0 +1,379 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.common.PonyUtils;
+import net.dorokhov.pony.core.config.ConfigService;
+import net.dorokhov.pony.core.domain.ScanJob;
+import net.dorokhov.pony.core.installation.InstallationService;
+import net.dorokhov.pony.core.library.exception.LibraryNotDefinedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+@Service
+public class LibraryWatcher {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+
+	// Values are times of the last change detected in the folder
+	private final ConcurrentMap<File, Long> changedFolders = new ConcurrentHashMap<>();
+
+	private volatile List<File> libraryFolders = new ArrayList<>();
+
+	private WatchService watchService;
+
+	private Long lastJobId;
+
+	// Folders of the last job are queued again if the job does not complete
+	private List<File> lastJobFolders;
+
+	private InstallationService installationService;
+
+	private ConfigService configService;
+
+	private ScanJobService scanJobService;
+
+	private ScanService scanService;
+
+	private boolean watchEnabled;
+
+	private long watchDelay;
+
+	@Autowired
+	public void setInstallationService(InstallationService aInstallationService) {
+		installationService = aInstallationService;
+	}
+
+	@Autowired
+	public void setConfigService(ConfigService aConfigService) {
+		configService = aConfigService;
+	}
+
+	@Autowired
+	public void setScanJobService(ScanJobService aScanJobService) {
+		scanJobService = aScanJobService;
+	}
+
+	@Autowired
+	public void setScanService(ScanService aScanService) {
+		scanService = aScanService;
+	}
+
+	@Value("${library.watchEnabled}")
+	public void setWatchEnabled(boolean aWatchEnabled) {
+		watchEnabled = aWatchEnabled;
+	}
+
+	@Value("${library.watchDelay}")
+	public void setWatchDelay(long aWatchDelay) {
+		watchDelay = aWatchDelay;
+	}
+
+	@PostConstruct
+	public void onPostConstruct() throws IOException {
+		if (watchEnabled) {
+
+			watchService = FileSystems.getDefault().newWatchService();
+
+			Thread thread = new Thread(new WatchTask(), "pony-library-watcher");
+
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	@PreDestroy
+	public void onPreDestroy() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				log.warn("Could not close watch service.", e);
+			}
+		}
+	}
+
+	@Transactional(readOnly = true)
+	@Scheduled(fixedDelay = 60 * 1000)
+	synchronized public void updateWatchedFolders() {
+		if (watchService != null && installationService.getInstallation() != null) {
+
+			List<File> folders = configService.fetchLibraryFolders();
+
+			if (!folders.equals(libraryFolders)) {
+
+				for (WatchKey key : watchedFolders.keySet()) {
+					key.cancel();
+				}
+
+				watchedFolders.clear();
+				changedFolders.clear();
+
+				libraryFolders = folders;
+
+				for (File folder : folders) {
+					if (folder.isDirectory()) {
+						watchFolderTree(folder.toPath());
+					}
+				}
+
+				log.info("Watching " + watchedFolders.size() + " library folders for changes.");
+			}
+		}
+	}
+
+	@Scheduled(fixedDelay = 1000)
+	synchronized public void startScanJob() {
+
+		// Partial scan would fail while other scan is running
+		if (changedFolders.isEmpty() || isLastJobRunning() || scanService.getStatus() != null) {
+			return;
+		}
+
+		long currentTime = System.currentTimeMillis();
+
+		List<File> targetFolders = new ArrayList<>();
+
+		for (Map.Entry<File, Long> entry : changedFolders.entrySet()) {
+			// Folder is scanned only after it stops changing, new changes can arrive while entry is being removed
+			if (currentTime - entry.getValue() >= watchDelay && changedFolders.remove(entry.getKey(), entry.getValue())) {
+				targetFolders.add(entry.getKey());
+			}
+		}
+
+		targetFolders = coalesceFolders(targetFolders);
+
+		if (targetFolders.size() > 0) {
+
+			log.info("Starting scan of changed folders " + targetFolders + "...");
+
+			try {
+
+				lastJobId = scanJobService.startPartialScanJob(targetFolders).getId();
+				lastJobFolders = targetFolders;
+
+			} catch (LibraryNotDefinedException e) {
+				log.warn("Library is not defined.");
+			} catch (RuntimeException e) {
+
+				requeueFolders(targetFolders);
+
+				throw e;
+			}
+		}
+	}
+
+	private boolean isLastJobRunning() {
+
+		if (lastJobId != null) {
+
+			ScanJob job = scanJobService.getById(lastJobId);
+
+			if (job != null && (job.getStatus() == ScanJob.Status.STARTING || job.getStatus() == ScanJob.Status.STARTED)) {
+				return true;
+			}
+
+			if (job == null || job.getStatus() != ScanJob.Status.COMPLETE) {
+
+				log.warn("Scan of changed folders " + lastJobFolders + " did not complete, folders will be scanned again.");
+
+				requeueFolders(lastJobFolders);
+			}
+
+			lastJobId = null;
+			lastJobFolders = null;
+		}
+
+		return false;
+	}
+
+	private void requeueFolders(List<File> aFolders) {
+
+		long currentTime = System.currentTimeMillis();
+
+		// Newer changes of the folder are kept
+		for (File folder : aFolders) {
+			changedFolders.putIfAbsent(folder, currentTime);
+		}
+	}
+
+	private List<File> coalesceFolders(List<File> aFolders) {
+
+		List<File> existingFolders = new ArrayList<>();
+
+		for (File folder : aFolders) {
+			if (folder.isDirectory()) {
+				existingFolders.add(folder);
+			} else {
+
+				// Deleted folder is cleaned by the scan of library folder containing it
+				File libraryFolder = resolveLibraryFolder(folder);
+
+				if (libraryFolder != null && libraryFolder.isDirectory() && !existingFolders.contains(libraryFolder)) {
+					existingFolders.add(libraryFolder);
+				}
+			}
+		}
+
+		List<File> result = new ArrayList<>();
+
+		for (File folder : existingFolders) {
+
+			List<File> otherFolders = new ArrayList<>(existingFolders);
+
+			otherFolders.remove(folder);
+
+			if (!PonyUtils.isPathInFolders(folder.getAbsolutePath(), otherFolders)) {
+				result.add(folder);
+			}
+		}
+
+		return result;
+	}
+
+	private File resolveLibraryFolder(File aFile) {
+
+		for (File libraryFolder : libraryFolders) {
+			if (PonyUtils.isPathInFolders(aFile.getAbsolutePath(), Collections.singletonList(libraryFolder))) {
+				return libraryFolder;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Changes are tracked per top-level folder of the library (artist folder in most cases),
+	 * so that artwork discovery can still look into parent folders of changed albums.
+	 */
+	private File resolveTargetFolder(File aFolder) {
+
+		File libraryFolder = resolveLibraryFolder(aFolder);
+
+		if (libraryFolder != null) {
+
+			String libraryPath = libraryFolder.getAbsolutePath();
+			String path = aFolder.getAbsolutePath();
+
+			if (path.equals(libraryPath)) {
+				return libraryFolder;
+			}
+
+			String relativePath = path.substring(libraryPath.length() + 1);
+
+			int separatorIndex = relativePath.indexOf(File.separatorChar);
+
+			return new File(libraryFolder, separatorIndex >= 0 ? relativePath.substring(0, separatorIndex) : relativePath);
+		}
+
+		return null;
+	}
+
+	private void watchFolderTree(Path aFolder) {
+		try {
+			Files.walkFileTree(aFolder, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path aDirectory, BasicFileAttributes aAttributes) throws IOException {
+
+					try {
+						watchedFolders.put(aDirectory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), aDirectory);
+					} catch (IOException e) {
+
+						// Watch limit could be reached, other folders are still watched
+						log.warn("Could not watch folder [" + aDirectory + "].", e);
+
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path aFile, IOException aException) throws IOException {
+
+					log.warn("Could not watch folder [" + aFile + "].", aException);
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException | ClosedWatchServiceException e) {
+			log.warn("Could not watch folder [" + aFolder + "].", e);
+		}
+	}
+
+	private void onFolderChange(File aFolder) {
+
+		File targetFolder = resolveTargetFolder(aFolder);
+
+		if (targetFolder != null) {
+			changedFolders.put(targetFolder, System.currentTimeMillis());
+		}
+	}
+
+	private class WatchTask implements Runnable {
+
+		@Override
+		public void run() {
+			while (true) {
+
+				WatchKey key;
+
+				try {
+					key = watchService.take();
+				} catch (InterruptedException | ClosedWatchServiceException e) {
+					break;
+				}
+
+				Path folder = watchedFolders.get(key);
+
+				if (folder != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+
+							// Some events have been lost, whole library must be checked
+							for (File libraryFolder : libraryFolders) {
+								onFolderChange(libraryFolder);
+							}
+
+						} else {
+
+							Path child = folder.resolve((Path) event.context());
+
+							if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+								watchFolderTree(child);
+							}
+
+							onFolderChange(folder.toFile());
+						}
+					}
+				}
+
+				if (!key.reset()) {
+					watchedFolders.remove(key);
+				}
+			}
+		}
+	}
+
+}
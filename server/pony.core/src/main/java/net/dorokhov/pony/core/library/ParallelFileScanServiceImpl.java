@@ -0,0 +1,148 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.library.file.LibraryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+@Primary
+@Service
+public class ParallelFileScanServiceImpl extends FileScanServiceImpl {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private int scanParallelism = Runtime.getRuntime().availableProcessors();
+
+	@Value("${library.scanParallelism}")
+	public void setScanParallelism(int aScanParallelism) {
+		scanParallelism = aScanParallelism;
+	}
+
+	@Override
+	public LibraryFolder scanFolder(File aFolder) {
+
+		if (scanParallelism <= 1) {
+			return super.scanFolder(aFolder);
+		}
+
+		return doScanFolder(aFolder, null);
+	}
+
+	@Override
+	public void scanFolder(File aFolder, Delegate aDelegate) {
+
+		if (scanParallelism <= 1) {
+			super.scanFolder(aFolder, aDelegate);
+		} else {
+			doScanFolder(aFolder, aDelegate);
+		}
+	}
+
+	private LibraryFolderImpl doScanFolder(File aFolder, Delegate aDelegate) {
+
+		BasicFileAttributes attributes = readAttributes(aFolder.toPath());
+
+		if (attributes == null) {
+			throw new IllegalArgumentException("File [" + aFolder.getAbsolutePath() + "] must exist.");
+		}
+		if (!attributes.isDirectory()) {
+			throw new IllegalArgumentException("File [" + aFolder.getAbsolutePath() + "] must be a directory.");
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(scanParallelism);
+
+		try {
+			LibraryFolderImpl folder = new LibraryFolderImpl(aFolder, null);
+
+			folder.setLastModified(attributes.lastModifiedTime().toMillis());
+
+			pool.invoke(new ScanFolderTask(folder, aDelegate));
+
+			return folder;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private BasicFileAttributes readAttributes(Path aPath) {
+		try {
+			return Files.readAttributes(aPath, BasicFileAttributes.class);
+		} catch (IOException e) {
+			// File could be deleted or become inaccessible during scanning (e.g. rare SMB-related problems)
+			return null;
+		}
+	}
+
+	private class ScanFolderTask extends RecursiveAction {
+
+		private final LibraryFolderImpl folder;
+
+		private final Delegate delegate;
+
+		public ScanFolderTask(LibraryFolderImpl aFolder, Delegate aDelegate) {
+			folder = aFolder;
+			delegate = aDelegate;
+		}
+
+		@Override
+		protected void compute() {
+
+			List<ScanFolderTask> childTasks = new ArrayList<>();
+
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.getFile().toPath())) {
+				for (Path childPath : stream) {
+
+					BasicFileAttributes attributes = readAttributes(childPath);
+
+					if (attributes != null) {
+						if (attributes.isDirectory()) {
+
+							LibraryFolderImpl childFolder = new LibraryFolderImpl(childPath.toFile(), folder);
+
+							childFolder.setLastModified(attributes.lastModifiedTime().toMillis());
+
+							folder.getChildFoldersMutable().add(childFolder);
+
+							childTasks.add(new ScanFolderTask(childFolder, delegate));
+
+						} else if (attributes.isRegularFile()) {
+
+							AbstractLibraryFile childFile = createLibraryFile(childPath.toFile(), folder);
+
+							if (childFile != null) {
+								childFile.setLastModified(attributes.lastModifiedTime().toMillis());
+								childFile.setLength(attributes.size());
+							}
+
+							addChildFile(folder, childFile);
+						}
+					}
+				}
+			} catch (IOException | DirectoryIteratorException e) {
+				log.warn("Could not list folder [" + folder.getFile().getAbsolutePath() + "].", e);
+			}
+
+			// Whole folder content must be known before scanning child folders, artwork discovery looks into parent folders
+			invokeAll(childTasks);
+
+			if (delegate != null) {
+				finishFolderScan(folder, delegate);
+			}
+		}
+	}
+
+}
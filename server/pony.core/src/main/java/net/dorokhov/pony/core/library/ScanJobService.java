@@ -5,6 +5,8 @@ import net.dorokhov.pony.core.library.exception.LibraryNotDefinedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.File;
+import java.util.Date;
 import java.util.List;
 
 public interface ScanJobService {
@@ -13,11 +15,17 @@ public interface ScanJobService {
 
 	public void removeDelegate(Delegate aDelegate);
 
+	public long getCount();
+
 	public Page<ScanJob> getAll(Pageable aPageable);
 
+	// Returns jobs following the given one in (creation date, id) descending order, the first ones if the job is not defined
+	public List<ScanJob> seekAll(Date aLastCreationDate, Long aLastId, int aCount);
+
 	public ScanJob getById(Long aId);
 
 	public ScanJob startScanJob() throws LibraryNotDefinedException;
+	public ScanJob startPartialScanJob(List<File> aTargetFolders) throws LibraryNotDefinedException;
 	public ScanJob startEditJob(List<ScanEditCommand> aCommands);
 
 	public void interruptCurrentJobs();
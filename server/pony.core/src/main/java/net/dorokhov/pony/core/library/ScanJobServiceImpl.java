@@ -102,6 +102,23 @@ public class ScanJobServiceImpl implements ScanJobService {
 		return scanJobDao.findAll(aPageable);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public long getCount() {
+		return scanJobDao.count();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ScanJob> seekAll(Date aLastCreationDate, Long aLastId, int aCount) {
+
+		if (aLastCreationDate != null && aLastId != null) {
+			return scanJobDao.seek(aLastCreationDate, aLastId, new PageRequest(0, aCount));
+		}
+
+		return scanJobDao.seek(new PageRequest(0, aCount));
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public ScanJob getById(Long aId) {
@@ -111,7 +128,13 @@ public class ScanJobServiceImpl implements ScanJobService {
 	@Override
 	@Transactional(propagation = Propagation.NOT_SUPPORTED)
 	public ScanJob startScanJob() throws LibraryNotDefinedException {
-		return doCreateScanJob(configService.fetchLibraryFolders());
+		return doCreateScanJob(ScanType.FULL, configService.fetchLibraryFolders());
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ScanJob startPartialScanJob(List<File> aTargetFolders) throws LibraryNotDefinedException {
+		return doCreateScanJob(ScanType.PARTIAL, aTargetFolders);
 	}
 
 	@Override
@@ -122,7 +145,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 			@Override
 			public ScanJob doInTransaction(TransactionStatus status) {
 
-				LogMessage logMessage = logService.info(log, "scanJobService.editJobStarting", "Starting edit job for [" + aCommands.size() + "] songs...", String.valueOf(aCommands.size()));
+				LogMessage logMessage = logService.logSync(log, LogMessage.Type.INFO, "scanJobService.editJobStarting", "Starting edit job for [" + aCommands.size() + "] songs...", String.valueOf(aCommands.size()), null);
 
 				ScanJob startingJob = new ScanJob();
 
@@ -155,7 +178,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 							ScanJob failedJob = scanJobDao.findOne(job.getId());
 
 							failedJob.setStatus(ScanJob.Status.FAILED);
-							failedJob.setLogMessage(logService.error(log, "scanJobService.editJobErrorUnknown", "Unexpected error occurred when performing edit job.", e));
+							failedJob.setLogMessage(logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorUnknown", "Unexpected error occurred when performing edit job.", e, null));
 
 							return scanJobDao.save(failedJob);
 						}
@@ -261,14 +284,14 @@ public class ScanJobServiceImpl implements ScanJobService {
 			log.info("Starting automatic scan...");
 
 			try {
-				doCreateScanJob(libraryFolders);
+				doCreateScanJob(ScanType.INCREMENTAL, libraryFolders);
 			} catch (LibraryNotDefinedException e) {
 				log.warn("Library is not defined.");
 			}
 		}
 	}
 
-	private ScanJob doCreateScanJob(final List<File> aTargetFolders) throws LibraryNotDefinedException {
+	private ScanJob doCreateScanJob(final ScanType aType, final List<File> aTargetFolders) throws LibraryNotDefinedException {
 
 		if (aTargetFolders.size() == 0) {
 			throw new LibraryNotDefinedException();
@@ -285,9 +308,9 @@ public class ScanJobServiceImpl implements ScanJobService {
 
 				ScanJob startingJob = new ScanJob();
 
-				startingJob.setScanType(ScanType.FULL);
+				startingJob.setScanType(aType);
 				startingJob.setStatus(ScanJob.Status.STARTING);
-				startingJob.setLogMessage(logService.info(log, "scanJobService.scanJobStarting", "Starting scan job for " + aTargetFolders + "...", targetPaths));
+				startingJob.setLogMessage(logService.logSync(log, LogMessage.Type.INFO, "scanJobService.scanJobStarting", "Starting scan job for " + aTargetFolders + "...", targetPaths));
 
 				return scanJobDao.save(startingJob);
 			}
@@ -305,7 +328,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 			@Override
 			public void run() {
 				try {
-					doScanJob(job.getId(), aTargetFolders);
+					doScanJob(job.getId(), aType, aTargetFolders);
 				} catch (final Exception e) {
 					propagateUpdate(transactionTemplate.execute(new TransactionCallback<ScanJob>() {
 						@Override
@@ -314,7 +337,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 							ScanJob failedJob = scanJobDao.findOne(job.getId());
 
 							failedJob.setStatus(ScanJob.Status.FAILED);
-							failedJob.setLogMessage(logService.error(log, "scanJobService.scanJobErrorUnknown", "Unexpected error occurred when performing scan job.", e));
+							failedJob.setLogMessage(logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.scanJobErrorUnknown", "Unexpected error occurred when performing scan job.", e, null));
 
 							return scanJobDao.save(failedJob);
 						}
@@ -326,7 +349,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 		return job;
 	}
 
-	private void doScanJob(final Long aJobId, final List<File> aTargetFolders) {
+	private void doScanJob(final Long aJobId, final ScanType aType, final List<File> aTargetFolders) {
 
 		final List<String> targetPaths = new ArrayList<>();
 		for (File file : aTargetFolders) {
@@ -340,7 +363,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 				ScanJob job = scanJobDao.findOne(aJobId);
 
 				job.setStatus(ScanJob.Status.STARTED);
-				job.setLogMessage(logService.info(log, "scanJobService.scanJobStarted", "Started scan job for " + aTargetFolders + ".", targetPaths));
+				job.setLogMessage(logService.logSync(log, LogMessage.Type.INFO, "scanJobService.scanJobStarted", "Started scan job for " + aTargetFolders + ".", targetPaths));
 
 				return scanJobDao.save(job);
 			}
@@ -350,15 +373,21 @@ public class ScanJobServiceImpl implements ScanJobService {
 		LogMessage logMessage = null;
 
 		try {
-			result = scanService.scan(aTargetFolders);
+			if (aType == ScanType.INCREMENTAL) {
+				result = scanService.scanIncrementally(aTargetFolders);
+			} else if (aType == ScanType.PARTIAL) {
+				result = scanService.scanPartially(aTargetFolders);
+			} else {
+				result = scanService.scan(aTargetFolders);
+			}
 		} catch (FileNotFoundException e) {
-			logMessage = logService.error(log, "scanJobService.scanJobErrorFileNotFound", "File [" + e.getFile().getAbsolutePath() + "] not found.", Arrays.asList(e.getFile().getAbsolutePath()));
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.scanJobErrorFileNotFound", "File [" + e.getFile().getAbsolutePath() + "] not found.", Arrays.asList(e.getFile().getAbsolutePath()));
 		} catch (NotFolderException e) {
-			logMessage = logService.error(log, "scanJobService.scanJobErrorNotFolder", "File [" + e.getFile().getAbsolutePath() + "] must be a folder.", Arrays.asList(e.getFile().getAbsolutePath()));
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.scanJobErrorNotFolder", "File [" + e.getFile().getAbsolutePath() + "] must be a folder.", Arrays.asList(e.getFile().getAbsolutePath()));
 		} catch (ConcurrentScanException e) {
-			logMessage = logService.error(log, "scanJobService.scanJobErrorConcurrentScan", "Library is already scanning.", e);
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.scanJobErrorConcurrentScan", "Library is already scanning.", e, null);
 		} catch (Exception e) {
-			logMessage = logService.error(log, "scanJobService.scanJobErrorUnknown", "Unexpected error occurred when performing scan job.", e);
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.scanJobErrorUnknown", "Unexpected error occurred when performing scan job.", e, null);
 		}
 
 		final ScanResult currentResult = result;
@@ -374,7 +403,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 
 				if (currentResult != null) {
 					job.setStatus(ScanJob.Status.COMPLETE);
-					job.setLogMessage(logService.info(log, "scanJobService.scanJobComplete", "Scan job complete for " + aTargetFolders + ".", targetPaths));
+					job.setLogMessage(logService.logSync(log, LogMessage.Type.INFO, "scanJobService.scanJobComplete", "Scan job complete for " + aTargetFolders + ".", targetPaths));
 				} else {
 					job.setStatus(ScanJob.Status.FAILED);
 					job.setLogMessage(currentLogMessage);
@@ -394,7 +423,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 				ScanJob job = scanJobDao.findOne(aJobId);
 
 				job.setStatus(ScanJob.Status.STARTED);
-				job.setLogMessage(logService.info(log, "scanJobService.editJobStarted", "Started edit job for [" + aCommands.size() + "] songs...", String.valueOf(aCommands.size())));
+				job.setLogMessage(logService.logSync(log, LogMessage.Type.INFO, "scanJobService.editJobStarted", "Started edit job for [" + aCommands.size() + "] songs...", String.valueOf(aCommands.size()), null));
 
 				return scanJobDao.save(job);
 			}
@@ -406,15 +435,15 @@ public class ScanJobServiceImpl implements ScanJobService {
 		try {
 			result = scanService.edit(aCommands);
 		} catch (SongNotFoundException e) {
-			logMessage = logService.error(log, "scanJobService.editJobErrorSongNotFound", "Song [" + e.getSongId() + "] not found.", Arrays.asList(String.valueOf(e.getSongId())));
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorSongNotFound", "Song [" + e.getSongId() + "] not found.", Arrays.asList(String.valueOf(e.getSongId())));
 		} catch (FileNotFoundException e) {
-			logMessage = logService.error(log, "scanJobService.editJobErrorFileNotFound", "File [" + e.getFile().getAbsolutePath() + "] not found.", Arrays.asList(e.getFile().getAbsolutePath()));
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorFileNotFound", "File [" + e.getFile().getAbsolutePath() + "] not found.", Arrays.asList(e.getFile().getAbsolutePath()));
 		} catch (NotSongException e) {
-			logMessage = logService.error(log, "scanJobService.editJobErrorNotSong", "File [" + e.getFile().getAbsolutePath() + "] is not a song.", Arrays.asList(e.getFile().getAbsolutePath()));
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorNotSong", "File [" + e.getFile().getAbsolutePath() + "] is not a song.", Arrays.asList(e.getFile().getAbsolutePath()));
 		} catch (ConcurrentScanException e) {
-			logMessage = logService.error(log, "scanJobService.editJobErrorConcurrentScan", "Library is already scanning.", e);
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorConcurrentScan", "Library is already scanning.", e, null);
 		} catch (Exception e) {
-			logMessage = logService.error(log, "scanJobService.editJobErrorUnknown", "Unexpected error occurred when performing edit job.", e);
+			logMessage = logService.logSync(log, LogMessage.Type.ERROR, "scanJobService.editJobErrorUnknown", "Unexpected error occurred when performing edit job.", e, null);
 		}
 
 		final ScanResult currentResult = result;
@@ -430,7 +459,7 @@ public class ScanJobServiceImpl implements ScanJobService {
 
 				if (currentResult != null) {
 					job.setStatus(ScanJob.Status.COMPLETE);
-					job.setLogMessage(logService.info(log, "scanJobService.editJobComplete", "Edit job complete for [" + aCommands.size() + "] songs.", String.valueOf(aCommands.size())));
+					job.setLogMessage(logService.logSync(log, LogMessage.Type.INFO, "scanJobService.editJobComplete", "Edit job complete for [" + aCommands.size() + "] songs.", String.valueOf(aCommands.size()), null));
 				} else {
 					job.setStatus(ScanJob.Status.FAILED);
 					job.setLogMessage(currentLogMessage);
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.File;
+import java.util.Date;
 import java.util.List;
 
 public interface ScanService {
@@ -17,12 +18,21 @@ public interface ScanService {
 
 	public Status getStatus();
 
+	public long getCount();
+
 	public Page<ScanResult> getAll(Pageable aPageable);
 
+	// Returns results following the given one in (date, id) descending order, the first ones if the result is not defined
+	public List<ScanResult> seekAll(Date aLastDate, Long aLastId, int aCount);
+
 	public ScanResult getById(Long aId);
 
 	public ScanResult scan(List<File> aTargetFolders) throws FileNotFoundException, NotFolderException, ConcurrentScanException;
 
+	public ScanResult scanIncrementally(List<File> aTargetFolders) throws FileNotFoundException, NotFolderException, ConcurrentScanException;
+
+	public ScanResult scanPartially(List<File> aTargetFolders) throws FileNotFoundException, NotFolderException, ConcurrentScanException;
+
 	public ScanResult edit(List<ScanEditCommand> aCommands) throws SongNotFoundException, FileNotFoundException, NotSongException, ConcurrentScanException;
 
 	public static interface Status {
@@ -1,7 +1,10 @@
 package net.dorokhov.pony.core.library;
 
 import net.dorokhov.pony.core.audio.data.SongDataWritable;
+import net.dorokhov.pony.core.common.Partition;
+import net.dorokhov.pony.core.common.PipelineStage;
 import net.dorokhov.pony.core.dao.*;
+import net.dorokhov.pony.core.domain.FolderManifest;
 import net.dorokhov.pony.core.domain.ScanResult;
 import net.dorokhov.pony.core.domain.ScanType;
 import net.dorokhov.pony.core.domain.Song;
@@ -19,6 +22,7 @@ import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -43,14 +47,13 @@ import java.util.concurrent.atomic.AtomicReference;
 @Service
 public class ScanServiceImpl implements ScanService {
 
-	private final static int NUMBER_OF_SCAN_THREADS = 10;
 	private final static int NUMBER_OF_SCAN_STEPS = 6;
 
 	private final static int STEP_SCAN_PREPARING = 1;
 	private final static int STEP_SCAN_SEARCHING_MEDIA_FILES = 2;
-	private final static int STEP_SCAN_CLEANING_SONGS = 3;
-	private final static int STEP_SCAN_CLEANING_ARTWORKS = 4;
-	private final static int STEP_SCAN_IMPORTING_SONGS = 5;
+	private final static int STEP_SCAN_IMPORTING_SONGS = 3;
+	private final static int STEP_SCAN_CLEANING_SONGS = 4;
+	private final static int STEP_SCAN_CLEANING_ARTWORKS = 5;
 	private final static int STEP_SCAN_NORMALIZING = 6;
 
 	private final static String STEP_CODE_SCAN_PREPARING = "preparing";
@@ -60,7 +63,7 @@ public class ScanServiceImpl implements ScanService {
 	private final static String STEP_CODE_SCAN_IMPORTING_SONGS = "importingSongs";
 	private final static String STEP_CODE_SCAN_NORMALIZING = "normalizing";
 
-	private final static int NUMBER_OF_EDIT_THREADS = 10;
+	private final static int PATHS_BUFFER_SIZE = 500;
 	private final static int NUMBER_OF_EDIT_STEPS = 3;
 
 	private final static int STEP_EDIT_PREPARING = 1;
@@ -75,7 +78,6 @@ public class ScanServiceImpl implements ScanService {
 
 	private final Object delegatesLock = new Object();
 	private final Object statusCheckLock = new Object();
-	private final Object progressLock = new Object();
 
 	private final List<Delegate> delegates = new ArrayList<>();
 
@@ -83,8 +85,14 @@ public class ScanServiceImpl implements ScanService {
 
 	private final AtomicReference<ExecutorService> executorReference = new AtomicReference<>();
 
+	private final AtomicReference<PipelineStage<List<LibrarySong>, SongImport>> pipelineReference = new AtomicReference<>();
+
+	private final AtomicReference<StatusPublisher> publisherReference = new AtomicReference<>();
+
 	private final AtomicInteger processedTaskCount = new AtomicInteger();
 
+	private final AtomicInteger totalTaskCount = new AtomicInteger(-1);
+
 	private final List<String> failedPaths = Collections.synchronizedList(new ArrayList<String>());
 
 	private TransactionTemplate transactionTemplate;
@@ -104,6 +112,26 @@ public class ScanServiceImpl implements ScanService {
 
 	private StoredFileService storedFileService;
 
+	private FolderManifestService folderManifestService;
+
+	private FileChecksumService fileChecksumService;
+
+	private ArtworkDiscoveryService artworkDiscoveryService;
+
+	private DiskLocalityService diskLocalityService;
+
+	private int importBatchSize;
+
+	private int readingThreadCount;
+	private int readingThreadCountPerDevice;
+	private int artworkThreadCount;
+	private int writingThreadCount;
+	private int editThreadCount;
+
+	private int stageQueueSize;
+
+	private long progressInterval;
+
 	@Autowired
 	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
 		transactionTemplate = new TransactionTemplate(aTransactionManager, new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
@@ -154,6 +182,69 @@ public class ScanServiceImpl implements ScanService {
 		storedFileService = aStoredFileService;
 	}
 
+	@Autowired
+	public void setFolderManifestService(FolderManifestService aFolderManifestService) {
+		folderManifestService = aFolderManifestService;
+	}
+
+	@Autowired
+	public void setFileChecksumService(FileChecksumService aFileChecksumService) {
+		fileChecksumService = aFileChecksumService;
+	}
+
+	@Autowired
+	public void setArtworkDiscoveryService(ArtworkDiscoveryService aArtworkDiscoveryService) {
+		artworkDiscoveryService = aArtworkDiscoveryService;
+	}
+
+	@Autowired
+	public void setDiskLocalityService(DiskLocalityService aDiskLocalityService) {
+		diskLocalityService = aDiskLocalityService;
+	}
+
+	@Value("${library.importBatchSize}")
+	public void setImportBatchSize(int aImportBatchSize) {
+		importBatchSize = aImportBatchSize;
+	}
+
+	@Value("${library.readingThreads}")
+	public void setReadingThreadCount(int aReadingThreadCount) {
+		readingThreadCount = aReadingThreadCount;
+	}
+
+	// Limits concurrent reading of the same disk, zero means no limit
+	@Value("${library.readingThreadsPerDevice}")
+	public void setReadingThreadCountPerDevice(int aReadingThreadCountPerDevice) {
+		readingThreadCountPerDevice = aReadingThreadCountPerDevice;
+	}
+
+	// Zero means one thread per available processor, artwork resizing is CPU-bound
+	@Value("${library.artworkThreads}")
+	public void setArtworkThreadCount(int aArtworkThreadCount) {
+		artworkThreadCount = aArtworkThreadCount;
+	}
+
+	@Value("${library.writingThreads}")
+	public void setWritingThreadCount(int aWritingThreadCount) {
+		writingThreadCount = aWritingThreadCount;
+	}
+
+	@Value("${library.editThreads}")
+	public void setEditThreadCount(int aEditThreadCount) {
+		editThreadCount = aEditThreadCount;
+	}
+
+	@Value("${library.stageQueueSize}")
+	public void setStageQueueSize(int aStageQueueSize) {
+		stageQueueSize = aStageQueueSize;
+	}
+
+	// Delegates receive progress at most once per interval in milliseconds, step changes are published immediately
+	@Value("${library.progressInterval}")
+	public void setProgressInterval(long aProgressInterval) {
+		progressInterval = aProgressInterval;
+	}
+
 	@PreDestroy
 	public void onPreDestroy() {
 
@@ -162,6 +253,18 @@ public class ScanServiceImpl implements ScanService {
 		if (executor != null) {
 			executor.shutdownNow();
 		}
+
+		PipelineStage<List<LibrarySong>, SongImport> pipeline = pipelineReference.get();
+
+		if (pipeline != null) {
+			pipeline.abort();
+		}
+
+		StatusPublisher publisher = publisherReference.get();
+
+		if (publisher != null) {
+			publisher.abort();
+		}
 	}
 
 	@Override
@@ -183,9 +286,7 @@ public class ScanServiceImpl implements ScanService {
 	@Override
 	public Status getStatus() {
 
-		Status status = statusReference.get();
-
-		return status != null ? new StatusImpl(status) : null;
+		return buildStatus();
 	}
 
 	@Override
@@ -194,6 +295,23 @@ public class ScanServiceImpl implements ScanService {
 		return scanResultDao.findAll(aPageable);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public long getCount() {
+		return scanResultDao.count();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ScanResult> seekAll(Date aLastDate, Long aLastId, int aCount) {
+
+		if (aLastDate != null && aLastId != null) {
+			return scanResultDao.seek(aLastDate, aLastId, new PageRequest(0, aCount));
+		}
+
+		return scanResultDao.seek(new PageRequest(0, aCount));
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public ScanResult getById(Long aId) {
@@ -202,7 +320,23 @@ public class ScanServiceImpl implements ScanService {
 
 	@Override
 	@Transactional(propagation = Propagation.NOT_SUPPORTED)
-	public ScanResult scan(final List<File> aTargetFolders) throws ConcurrentScanException, FileNotFoundException, NotFolderException {
+	public ScanResult scan(List<File> aTargetFolders) throws ConcurrentScanException, FileNotFoundException, NotFolderException {
+		return doScan(ScanType.FULL, aTargetFolders);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ScanResult scanIncrementally(List<File> aTargetFolders) throws ConcurrentScanException, FileNotFoundException, NotFolderException {
+		return doScan(ScanType.INCREMENTAL, aTargetFolders);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ScanResult scanPartially(List<File> aTargetFolders) throws ConcurrentScanException, FileNotFoundException, NotFolderException {
+		return doScan(ScanType.PARTIAL, aTargetFolders);
+	}
+
+	private ScanResult doScan(final ScanType aType, final List<File> aTargetFolders) throws ConcurrentScanException, FileNotFoundException, NotFolderException {
 
 		for (File folder : aTargetFolders) {
 			if (!folder.exists()) {
@@ -219,34 +353,40 @@ public class ScanServiceImpl implements ScanService {
 				throw new ConcurrentScanException();
 			}
 
-			statusReference.set(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_PREPARING, STEP_CODE_SCAN_PREPARING, -1));
+			statusReference.set(StatusImpl.buildScanStatus(aType, aTargetFolders, STEP_SCAN_PREPARING, STEP_CODE_SCAN_PREPARING, -1));
 		}
 
 		logService.info(log, "libraryScanService.scanStarted", "Scanning library " + aTargetFolders + "...",
 				Arrays.asList(aTargetFolders.toString()));
 
+		LogService.Sampling sampling = logService.startSampling();
+
 		synchronized (delegatesLock) {
 			for (Delegate next : new ArrayList<>(delegates)) {
 				try {
-					next.onScanStart(ScanType.FULL, new ArrayList<>(aTargetFolders));
+					next.onScanStart(aType, new ArrayList<>(aTargetFolders));
 				} catch (Exception e) {
 					log.error("Exception thrown when delegating onScanStart to " + next, e);
 				}
 			}
 		}
 
-		updateStatus(statusReference.get());
+		startPublishing();
 
 		try {
 
-			executorReference.set(Executors.newFixedThreadPool(NUMBER_OF_SCAN_THREADS, new BasicThreadFactory.Builder().namingPattern("pony-scan-import-%d").build()));
+			ScanResult scanResult;
 
-			ScanResult scanResult = transactionTemplate.execute(new TransactionCallback<ScanResult>() {
-				@Override
-				public ScanResult doInTransaction(TransactionStatus status) {
-					return doScan(aTargetFolders);
-				}
-			});
+			try {
+				scanResult = transactionTemplate.execute(new TransactionCallback<ScanResult>() {
+					@Override
+					public ScanResult doInTransaction(TransactionStatus status) {
+						return performScan(aType, aTargetFolders);
+					}
+				});
+			} finally {
+				stopPublishing();
+			}
 
 			logService.info(log, "libraryScanService.scanFinished", "Scan of " + scanResult.getTargetPaths() + " has been finished with result " + scanResult.toString() + ".",
 					Arrays.asList(StringUtils.join(scanResult.getTargetPaths(), ", "), scanResult.toString()));
@@ -280,8 +420,9 @@ public class ScanServiceImpl implements ScanService {
 			throw new RuntimeException(scanException);
 
 		} finally {
-			executorReference.set(null);
+			logService.finishSampling(sampling);
 			processedTaskCount.set(0);
+			totalTaskCount.set(-1);
 			failedPaths.clear();
 			statusReference.set(null);
 		}
@@ -334,6 +475,8 @@ public class ScanServiceImpl implements ScanService {
 
 		logService.info(log, "libraryScanService.editStarted", "Editing files " + targetFiles + "...", targetPaths);
 
+		LogService.Sampling sampling = logService.startSampling();
+
 		synchronized (delegatesLock) {
 			for (Delegate next : new ArrayList<>(delegates)) {
 				try {
@@ -344,18 +487,24 @@ public class ScanServiceImpl implements ScanService {
 			}
 		}
 
-		updateStatus(statusReference.get());
+		startPublishing();
 
 		try {
 
-			executorReference.set(Executors.newFixedThreadPool(NUMBER_OF_EDIT_THREADS, new BasicThreadFactory.Builder().namingPattern("pony-edit-import-%d").build()));
+			executorReference.set(Executors.newFixedThreadPool(getThreadCount(editThreadCount), new BasicThreadFactory.Builder().namingPattern("pony-edit-import-%d").build()));
 
-			ScanResult scanResult = transactionTemplate.execute(new TransactionCallback<ScanResult>() {
-				@Override
-				public ScanResult doInTransaction(TransactionStatus status) {
-					return doEdit(editCommands);
-				}
-			});
+			ScanResult scanResult;
+
+			try {
+				scanResult = transactionTemplate.execute(new TransactionCallback<ScanResult>() {
+					@Override
+					public ScanResult doInTransaction(TransactionStatus status) {
+						return doEdit(editCommands);
+					}
+				});
+			} finally {
+				stopPublishing();
+			}
 
 			logService.info(log, "libraryScanService.editFinished", "Edit of files " + scanResult.getTargetPaths() + " has been finished with result " + scanResult.toString() + ".",
 					Arrays.asList(StringUtils.join(scanResult.getTargetPaths(), ", "), scanResult.toString()));
@@ -389,24 +538,26 @@ public class ScanServiceImpl implements ScanService {
 			throw new RuntimeException(editException);
 
 		} finally {
+			logService.finishSampling(sampling);
 			executorReference.set(null);
 			processedTaskCount.set(0);
+			totalTaskCount.set(-1);
 			failedPaths.clear();
 			statusReference.set(null);
 		}
 	}
 
-	private ScanResult doScan(final List<File> aTargetFolders) {
+	private ScanResult performScan(final ScanType aType, final List<File> aTargetFolders) {
 
 		List<String> targetPaths = new ArrayList<>();
 		for (File folder : aTargetFolders) {
 			targetPaths.add(folder.getAbsolutePath());
 		}
 
-		return calculateScanResult(ScanType.FULL, targetPaths, new ScanProcessor() {
+		return calculateScanResult(aType, targetPaths, new ScanProcessor() {
 			@Override
 			public int process() {
-				return performScanSteps(aTargetFolders);
+				return performScanSteps(aType, aTargetFolders);
 			}
 		});
 	}
@@ -426,73 +577,158 @@ public class ScanServiceImpl implements ScanService {
 		});
 	}
 
-	private int performScanSteps(final List<File> aTargetFolders) {
+	private int performScanSteps(final ScanType aType, final List<File> aTargetFolders) {
+
+		logService.info(log, "libraryScanService.cleaningModifiedArtworks", "Cleaning modified artworks...");
+		libraryService.cleanModifiedArtworks(null);
+
+		// Artwork can be discovered outside of the song folder, songs without artwork are imported even if their folder is not modified
+		final Set<String> songPathsWithoutArtwork = aType != ScanType.FULL ? new HashSet<>(songDao.findPathsByArtworkNull()) : null;
 
 		logService.info(log, "libraryScanService.searchingMediaFiles", "Searching media files...");
-		updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_SEARCHING_MEDIA_FILES, STEP_CODE_SCAN_SEARCHING_MEDIA_FILES, -1.0));
-		List<LibrarySong> songFiles = new ArrayList<>();
-		List<LibraryImage> imageFiles = new ArrayList<>();
-		for (File targetFolder : aTargetFolders) {
+		updateStatus(StatusImpl.buildScanStatus(aType, aTargetFolders, STEP_SCAN_SEARCHING_MEDIA_FILES, STEP_CODE_SCAN_SEARCHING_MEDIA_FILES, -1.0));
+
+		final Set<String> songPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		final Set<String> imagePaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		final Set<String> folderPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		final AtomicInteger importTaskCount = new AtomicInteger();
+
+		final ScanContext context = new ScanContext(aType, aTargetFolders);
+
+		// Partial scan must not touch anything outside of target folders
+		final List<File> cleaningFolders = aType == ScanType.PARTIAL ? aTargetFolders : null;
+
+		libraryService.loadImportCache();
+		artworkDiscoveryService.startCaching();
+
+		PipelineStage<SongImport, Void> writingStage = new PipelineStage<>("pony-scan-writing",
+				getThreadCount(writingThreadCount), stageQueueSize, importBatchSize, new ImportSongHandler(context));
+		PipelineStage<SongImport, SongImport> artworkStage = new PipelineStage<>("pony-scan-artwork",
+				getThreadCount(artworkThreadCount), stageQueueSize, new PrepareArtworkHandler(context), writingStage);
+		// Every folder is read sequentially by a single thread
+		final PipelineStage<List<LibrarySong>, SongImport> readingStage = new PipelineStage<>("pony-scan-reading",
+				getThreadCount(readingThreadCount), stageQueueSize, 1, new ReadFolderHandler(context), artworkStage);
+
+		pipelineReference.set(readingStage);
 
-			LibraryFolder libraryFolder = fileScanService.scanFolder(targetFolder);
+		try {
+
+			for (File targetFolder : aTargetFolders) {
+				fileScanService.scanFolder(targetFolder, new FileScanService.Delegate() {
+					@Override
+					public void onFolderScanFinish(LibraryFolder aFolder) {
+
+						String folderPath = aFolder.getFile().getAbsolutePath();
+
+						folderPaths.add(folderPath);
+
+						for (LibraryImage imageFile : aFolder.getChildImages()) {
+							imagePaths.add(imageFile.getFile().getAbsolutePath());
+						}
+
+						Set<LibrarySong> songFiles = aFolder.getChildSongs();
+
+						for (LibrarySong songFile : songFiles) {
+							songPaths.add(songFile.getFile().getAbsolutePath());
+						}
+
+						FolderManifest manifest = folderManifestService.build(aFolder);
+
+						boolean isModified = folderManifestService.isModified(manifest);
+
+						List<LibrarySong> songsToImport = new ArrayList<>();
+
+						// Songs of unmodified folders are skipped by incremental and partial scans, unless they have no artwork
+						if (aType != ScanType.FULL && !isModified) {
+							for (LibrarySong songFile : songFiles) {
+								if (songPathsWithoutArtwork.contains(songFile.getFile().getAbsolutePath())) {
+									songsToImport.add(songFile);
+								}
+							}
+						} else {
+							songsToImport.addAll(songFiles);
+						}
+
+						if (songsToImport.size() > 0) {
+
+							// Manifest is saved only after all folder songs have been successfully imported
+							context.getFolderImports().put(folderPath, new FolderImport(isModified ? manifest : null, songsToImport.size()));
+
+							importTaskCount.addAndGet(songsToImport.size());
+
+							// Artwork discovery of queued songs needs images of the folder and its parent folders
+							fileScanService.holdFolder(aFolder);
+
+							try {
+								readingStage.put(songsToImport);
+							} catch (InterruptedException e) {
+								throw new RuntimeException(e);
+							}
+
+						} else if (isModified) {
+							folderManifestService.save(manifest);
+						}
+					}
+				});
+			}
+
+			logService.info(log, "libraryScanService.importingSongs", "Importing songs...");
+
+			// Progress is unknown until all media files are found
+			totalTaskCount.set(importTaskCount.get());
+
+			updateStatus(StatusImpl.buildCountedScanStatus(aType, aTargetFolders, STEP_SCAN_IMPORTING_SONGS, STEP_CODE_SCAN_IMPORTING_SONGS));
+
+			readingStage.finish();
 
-			songFiles.addAll(libraryFolder.getChildSongs(true));
-			imageFiles.addAll(libraryFolder.getChildImages(true));
+		} catch (Exception e) {
+
+			readingStage.abort();
+
+			throw new RuntimeException(e);
+
+		} finally {
+
+			pipelineReference.set(null);
+
+			libraryService.clearImportCache();
+			artworkDiscoveryService.stopCaching();
 		}
 
+		folderManifestService.cleanManifests(cleaningFolders, folderPaths);
+
+		// Checksums are calculated only for image files
+		fileChecksumService.cleanChecksums(cleaningFolders, imagePaths);
+
 		logService.info(log, "libraryScanService.cleaningSongs", "Cleaning songs...");
-		updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_CLEANING_SONGS, STEP_CODE_SCAN_CLEANING_SONGS, 0.0));
-		libraryService.cleanSongs(songFiles, new LibraryService.ProgressDelegate() {
+		updateStatus(StatusImpl.buildScanStatus(aType, aTargetFolders, STEP_SCAN_CLEANING_SONGS, STEP_CODE_SCAN_CLEANING_SONGS, 0.0));
+		libraryService.cleanSongs(cleaningFolders, songPaths, new LibraryService.ProgressDelegate() {
 			@Override
 			public void onProgress(double aProgress) {
-				updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_CLEANING_SONGS, STEP_CODE_SCAN_CLEANING_SONGS, aProgress));
+				updateProgress(aProgress);
 			}
 		});
 
 		logService.info(log, "libraryScanService.cleaningArtworks", "Cleaning artworks...");
-		updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_CLEANING_ARTWORKS, STEP_CODE_SCAN_CLEANING_ARTWORKS, 0.0));
-		libraryService.cleanArtworks(imageFiles, new LibraryService.ProgressDelegate() {
+		updateStatus(StatusImpl.buildScanStatus(aType, aTargetFolders, STEP_SCAN_CLEANING_ARTWORKS, STEP_CODE_SCAN_CLEANING_ARTWORKS, 0.0));
+		libraryService.cleanArtworks(cleaningFolders, imagePaths, new LibraryService.ProgressDelegate() {
 			@Override
 			public void onProgress(double aProgress) {
-				updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_CLEANING_ARTWORKS, STEP_CODE_SCAN_CLEANING_ARTWORKS, aProgress));
+				updateProgress(aProgress);
 			}
 		});
 
-		logService.info(log, "libraryScanService.importingSongs", "Importing songs...");
-		updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_IMPORTING_SONGS, STEP_CODE_SCAN_IMPORTING_SONGS, 0.0));
-
-		Collections.sort(songFiles, new Comparator<LibrarySong>() {
-			@Override
-			public int compare(LibrarySong song1, LibrarySong song2) {
-				return song1.getFile().getAbsolutePath().compareTo(song2.getFile().getAbsolutePath());
-			}
-		});
-
-		ExecutorService executor = executorReference.get();
-
-		List<Future<Void>> futureList = new ArrayList<>();
-		for (LibrarySong file : songFiles) {
-			futureList.add(executor.submit(new ImportSongTask(aTargetFolders, file, songFiles.size())));
-		}
-		for (Future<Void> future : futureList) {
-			try {
-				future.get();
-			} catch (InterruptedException | ExecutionException e) {
-				throw new RuntimeException(e);
-			}
-		}
-		executor.shutdown();
-
 		logService.info(log, "libraryScanService.normalizing", "Normalizing...");
-		updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_NORMALIZING, STEP_CODE_SCAN_NORMALIZING, 0.0));
+		updateStatus(StatusImpl.buildScanStatus(aType, aTargetFolders, STEP_SCAN_NORMALIZING, STEP_CODE_SCAN_NORMALIZING, 0.0));
 		libraryService.normalize(new LibraryService.ProgressDelegate() {
 			@Override
 			public void onProgress(double aProgress) {
-				updateStatus(StatusImpl.buildScanStatus(aTargetFolders, STEP_SCAN_NORMALIZING, STEP_CODE_SCAN_NORMALIZING, aProgress));
+				updateProgress(aProgress);
 			}
 		});
 
-		return songFiles.size();
+		return importTaskCount.get();
 	}
 
 	private int performEditSteps(List<EditCommand> aCommands) {
@@ -502,14 +738,23 @@ public class ScanServiceImpl implements ScanService {
 			targetFiles.add(command.getSongFile().getFile());
 		}
 
+		// Only entities which songs are moved from or to can require normalization
+		Set<Long> albumIds = new HashSet<>();
+		Set<Long> artistIds = new HashSet<>();
+		Set<Long> genreIds = new HashSet<>();
+
+		fetchRelatedIds(targetFiles, albumIds, artistIds, genreIds);
+
 		logService.info(log, "libraryScanService.writingSongs", "Importing songs...");
-		updateStatus(StatusImpl.buildScanStatus(targetFiles, STEP_EDIT_WRITING_SONGS, STEP_CODE_EDIT_WRITING_SONGS, 0.0));
+		totalTaskCount.set(aCommands.size());
+
+		updateStatus(StatusImpl.buildCountedEditStatus(targetFiles, STEP_EDIT_WRITING_SONGS, STEP_CODE_EDIT_WRITING_SONGS));
 
 		ExecutorService executor = executorReference.get();
 
 		List<Future<Void>> futureList = new ArrayList<>();
 		for (EditCommand command : aCommands) {
-			futureList.add(executor.submit(new WriteSongTask(targetFiles, command, aCommands.size())));
+			futureList.add(executor.submit(new WriteSongTask(command)));
 		}
 		for (Future<Void> future : futureList) {
 			try {
@@ -520,12 +765,14 @@ public class ScanServiceImpl implements ScanService {
 		}
 		executor.shutdown();
 
+		fetchRelatedIds(targetFiles, albumIds, artistIds, genreIds);
+
 		logService.info(log, "libraryScanService.normalizing", "Normalizing...");
-		updateStatus(StatusImpl.buildScanStatus(targetFiles, STEP_EDIT_NORMALIZING, STEP_CODE_EDIT_NORMALIZING, 0.0));
-		libraryService.normalize(new LibraryService.ProgressDelegate() {
+		updateStatus(StatusImpl.buildEditStatus(targetFiles, STEP_EDIT_NORMALIZING, STEP_CODE_EDIT_NORMALIZING, 0.0));
+		libraryService.normalize(albumIds, artistIds, genreIds, new LibraryService.ProgressDelegate() {
 			@Override
 			public void onProgress(double aProgress) {
-				updateStatus(StatusImpl.buildScanStatus(targetFiles, STEP_EDIT_NORMALIZING, STEP_CODE_EDIT_NORMALIZING, aProgress));
+				updateProgress(aProgress);
 			}
 		});
 
@@ -536,14 +783,51 @@ public class ScanServiceImpl implements ScanService {
 
 		statusReference.set(aStatus);
 
-		synchronized (delegatesLock) {
-			for (Delegate next : new ArrayList<>(delegates)) {
-				try {
-					next.onScanProgress(aStatus);
-				} catch (Exception e) {
-					log.error("Exception thrown when delegating onScanProgress to " + next, e);
-				}
-			}
+		StatusPublisher publisher = publisherReference.get();
+
+		if (publisher != null) {
+			publisher.publish();
+		}
+	}
+
+	private void updateProgress(double aProgress) {
+
+		StatusImpl status = statusReference.get();
+
+		if (status != null) {
+			statusReference.set(status.withProgress(aProgress));
+		}
+	}
+
+	private StatusImpl buildStatus() {
+
+		StatusImpl status = statusReference.get();
+
+		if (status != null && status.isCounted()) {
+
+			int taskCount = totalTaskCount.get();
+
+			return status.withProgress(taskCount > 0 ? processedTaskCount.get() / (double) taskCount : 1.0);
+		}
+
+		return status;
+	}
+
+	private void startPublishing() {
+
+		StatusPublisher publisher = new StatusPublisher();
+
+		publisherReference.set(publisher);
+
+		publisher.publish();
+	}
+
+	private void stopPublishing() {
+
+		StatusPublisher publisher = publisherReference.getAndSet(null);
+
+		if (publisher != null) {
+			publisher.stop();
 		}
 	}
 
@@ -645,18 +929,16 @@ public class ScanServiceImpl implements ScanService {
 		private final String stepCode;
 		private final int totalSteps;
 		private final double progress;
+		private final boolean counted;
 
-		public StatusImpl(ScanType aType, List<File> aFiles, int aStep, String aStepCode, int aTotalSteps, double aProgress) {
+		public StatusImpl(ScanType aType, List<File> aFiles, int aStep, String aStepCode, int aTotalSteps, double aProgress, boolean aCounted) {
 			type = aType;
 			files = aFiles != null ? new ArrayList<>(aFiles) : null;
 			step = aStep;
 			stepCode = aStepCode;
 			totalSteps = aTotalSteps;
 			progress = aProgress;
-		}
-
-		public StatusImpl(Status aStatus) {
-			this(aStatus.getScanType(), aStatus.getFiles(), aStatus.getStep(), aStatus.getStepCode(), aStatus.getTotalSteps(), aStatus.getProgress());
+			counted = aCounted;
 		}
 
 		@Override
@@ -689,12 +971,98 @@ public class ScanServiceImpl implements ScanService {
 			return totalSteps;
 		}
 
-		public static StatusImpl buildScanStatus(List<File> aFiles, int aStep, String aStepCode, double aProgress) {
-			return new StatusImpl(ScanType.FULL, aFiles, aStep, aStepCode, NUMBER_OF_SCAN_STEPS, aProgress);
+		/**
+		 * @return true if progress of the step is calculated from processed and total task counts
+		 */
+		public boolean isCounted() {
+			return counted;
+		}
+
+		public StatusImpl withProgress(double aProgress) {
+			return new StatusImpl(type, files, step, stepCode, totalSteps, aProgress, counted);
+		}
+
+		public boolean isSameAs(StatusImpl aStatus) {
+			return aStatus != null && step == aStatus.step && progress == aStatus.progress;
+		}
+
+		public static StatusImpl buildScanStatus(ScanType aType, List<File> aFiles, int aStep, String aStepCode, double aProgress) {
+			return new StatusImpl(aType, aFiles, aStep, aStepCode, NUMBER_OF_SCAN_STEPS, aProgress, false);
+		}
+
+		public static StatusImpl buildCountedScanStatus(ScanType aType, List<File> aFiles, int aStep, String aStepCode) {
+			return new StatusImpl(aType, aFiles, aStep, aStepCode, NUMBER_OF_SCAN_STEPS, -1, true);
 		}
 
 		public static StatusImpl buildEditStatus(List<File> aFiles, int aStep, String aStepCode, double aProgress) {
-			return new StatusImpl(ScanType.EDIT, aFiles, aStep, aStepCode, NUMBER_OF_EDIT_STEPS, aProgress);
+			return new StatusImpl(ScanType.EDIT, aFiles, aStep, aStepCode, NUMBER_OF_EDIT_STEPS, aProgress, false);
+		}
+
+		public static StatusImpl buildCountedEditStatus(List<File> aFiles, int aStep, String aStepCode) {
+			return new StatusImpl(ScanType.EDIT, aFiles, aStep, aStepCode, NUMBER_OF_EDIT_STEPS, -1, true);
+		}
+	}
+
+	private class StatusPublisher implements Runnable {
+
+		private final ScheduledExecutorService executor;
+
+		// Accessed only by publishing thread
+		private StatusImpl publishedStatus;
+
+		private StatusPublisher() {
+
+			executor = Executors.newSingleThreadScheduledExecutor(new BasicThreadFactory.Builder().namingPattern("pony-scan-progress-%d").build());
+
+			executor.scheduleWithFixedDelay(this, progressInterval, progressInterval, TimeUnit.MILLISECONDS);
+		}
+
+		public void publish() {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				// Publisher is stopped
+			}
+		}
+
+		public void stop() {
+
+			// Last status is published before the executor stops
+			publish();
+
+			executor.shutdown();
+
+			try {
+				executor.awaitTermination(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public void abort() {
+			executor.shutdownNow();
+		}
+
+		@Override
+		public void run() {
+
+			StatusImpl status = buildStatus();
+
+			if (status == null || status.isSameAs(publishedStatus)) {
+				return;
+			}
+
+			publishedStatus = status;
+
+			synchronized (delegatesLock) {
+				for (Delegate next : new ArrayList<>(delegates)) {
+					try {
+						next.onScanProgress(status);
+					} catch (Exception e) {
+						log.error("Exception thrown when delegating onScanProgress to " + next, e);
+					}
+				}
+			}
 		}
 	}
 
@@ -718,39 +1086,287 @@ public class ScanServiceImpl implements ScanService {
 		}
 	}
 
-	private class ImportSongTask implements Callable<Void> {
+	private void onSongImportFailure(LibrarySong aSongFile, Exception aException) {
+
+		logService.warn(log, "libraryScanService.songImportFailed", "Could not import song from file [" + aSongFile.getFile().getAbsolutePath() + "].",
+				aException, Arrays.asList(aSongFile.getFile().getAbsolutePath()));
+
+		failedPaths.add(aSongFile.getFile().getAbsolutePath());
+	}
+
+	private void onSongImportFinish(ScanContext aContext, LibrarySong aSongFile, boolean aSuccess) {
+
+		String folderPath = aSongFile.getParentFolder().getFile().getAbsolutePath();
+
+		FolderImport folderImport = aContext.getFolderImports().get(folderPath);
+
+		if (folderImport != null) {
+
+			if (!aSuccess) {
+				folderImport.setFailed(true);
+			}
+
+			if (folderImport.getRemainingSongCount().decrementAndGet() == 0) {
+
+				aContext.getFolderImports().remove(folderPath);
+
+				fileScanService.releaseFolder(aSongFile.getParentFolder());
+
+				if (folderImport.getManifest() != null && !folderImport.isFailed()) {
+					try {
+						folderManifestService.save(folderImport.getManifest());
+					} catch (Exception e) {
+						log.error("Could not save manifest of folder [" + folderPath + "].", e);
+					}
+				}
+			}
+		}
+
+		processedTaskCount.incrementAndGet();
+	}
+
+	private class ScanContext {
+
+		private final ScanType type;
 
 		private final List<File> targetFolders;
 
-		private final LibrarySong songFile;
+		private final Map<String, FolderImport> folderImports = new ConcurrentHashMap<>();
 
-		private final int taskCount;
+		private final ConcurrentMap<Object, Semaphore> deviceSemaphores = new ConcurrentHashMap<>();
 
-		private ImportSongTask(List<File> aTargetFolders, LibrarySong aSongFile, int aTaskCount) {
+		private ScanContext(ScanType aType, List<File> aTargetFolders) {
+			type = aType;
 			targetFolders = aTargetFolders;
-			songFile = aSongFile;
-			taskCount = aTaskCount;
+		}
+
+		public ScanType getType() {
+			return type;
+		}
+
+		public List<File> getTargetFolders() {
+			return targetFolders;
+		}
+
+		public Map<String, FolderImport> getFolderImports() {
+			return folderImports;
+		}
+
+		public Semaphore getDeviceSemaphore(Object aDeviceKey) {
+
+			Semaphore semaphore = deviceSemaphores.get(aDeviceKey);
+
+			if (semaphore == null) {
+
+				semaphore = new Semaphore(readingThreadCountPerDevice, true);
+
+				Semaphore existingSemaphore = deviceSemaphores.putIfAbsent(aDeviceKey, semaphore);
+
+				if (existingSemaphore != null) {
+					semaphore = existingSemaphore;
+				}
+			}
+
+			return semaphore;
+		}
+	}
+
+	private class FolderImport {
+
+		private final FolderManifest manifest;
+
+		private final AtomicInteger remainingSongCount;
+
+		private volatile boolean failed;
+
+		private FolderImport(FolderManifest aManifest, int aSongCount) {
+			manifest = aManifest;
+			remainingSongCount = new AtomicInteger(aSongCount);
+		}
+
+		/**
+		 * @return manifest to save after import or null if folder has not been modified
+		 */
+		public FolderManifest getManifest() {
+			return manifest;
+		}
+
+		public AtomicInteger getRemainingSongCount() {
+			return remainingSongCount;
+		}
+
+		public boolean isFailed() {
+			return failed;
+		}
+
+		public void setFailed(boolean aFailed) {
+			failed = aFailed;
+		}
+	}
+
+	private class ReadSongHandler implements PipelineStage.Handler<LibrarySong, SongImport> {
+
+		private final ScanContext context;
+
+		private ReadSongHandler(ScanContext aContext) {
+			context = aContext;
 		}
 
 		@Override
-		public Void call() throws Exception {
+		public SongImport process(LibrarySong aSongFile) throws Exception {
+
+			SongImport songImport = null;
 
 			try {
-				libraryService.importSong(songFile);
+				songImport = libraryService.readSong(aSongFile);
 			} catch (Exception e) {
+				onSongImportFailure(aSongFile, e);
+			}
 
-				logService.warn(log, "libraryScanService.songImportFailed", "Could not import song from file [" + songFile.getFile().getAbsolutePath() + "].",
-						e, Arrays.asList(songFile.getFile().getAbsolutePath()));
+			if (songImport == null || !songImport.isImportNeeded()) {
 
-				failedPaths.add(songFile.getFile().getAbsolutePath());
+				onSongImportFinish(context, aSongFile, songImport != null);
+
+				return null;
 			}
 
-			synchronized (progressLock) {
+			return songImport;
+		}
+	}
+
+	private class ReadFolderHandler implements PipelineStage.StreamHandler<List<LibrarySong>, SongImport> {
+
+		private final ScanContext context;
+
+		private final ReadSongHandler songHandler;
+
+		private ReadFolderHandler(ScanContext aContext) {
+			context = aContext;
+			songHandler = new ReadSongHandler(aContext);
+		}
+
+		@Override
+		public void process(List<List<LibrarySong>> aFolders, PipelineStage.Output<SongImport> aOutput) throws Exception {
+			for (List<LibrarySong> songFiles : aFolders) {
+
+				if (songFiles.isEmpty()) {
+					continue;
+				}
+
+				Semaphore semaphore = null;
+
+				if (readingThreadCountPerDevice > 0) {
+					semaphore = context.getDeviceSemaphore(diskLocalityService.getDeviceKey(songFiles.get(0).getFile().getParentFile()));
+				}
+
+				boolean isAcquired = false;
+
+				try {
+					for (LibrarySong songFile : diskLocalityService.sortByLocation(songFiles)) {
+
+						if (semaphore != null && !isAcquired) {
+
+							semaphore.acquire();
 
-				double progress = processedTaskCount.incrementAndGet() / (double) taskCount;
+							isAcquired = true;
+						}
 
-				updateStatus(StatusImpl.buildScanStatus(targetFolders, STEP_SCAN_IMPORTING_SONGS, STEP_CODE_SCAN_IMPORTING_SONGS, progress));
+						SongImport songImport = songHandler.process(songFile);
+
+						// Device is not held while waiting for the next stage, so that other folders of the device can be read meanwhile
+						if (songImport != null && !aOutput.offer(songImport)) {
+
+							if (isAcquired) {
+
+								semaphore.release();
+
+								isAcquired = false;
+							}
+
+							aOutput.put(songImport);
+						}
+					}
+				} finally {
+					if (isAcquired) {
+						semaphore.release();
+					}
+				}
 			}
+		}
+	}
+
+	private class PrepareArtworkHandler implements PipelineStage.Handler<SongImport, SongImport> {
+
+		private final ScanContext context;
+
+		private PrepareArtworkHandler(ScanContext aContext) {
+			context = aContext;
+		}
+
+		@Override
+		public SongImport process(SongImport aSongImport) throws Exception {
+
+			try {
+				libraryService.prepareArtwork(aSongImport);
+			} catch (Exception e) {
+
+				onSongImportFailure(aSongImport.getSongFile(), e);
+				onSongImportFinish(context, aSongImport.getSongFile(), false);
+
+				return null;
+			}
+
+			return aSongImport;
+		}
+	}
+
+	private int getThreadCount(int aConfiguredCount) {
+		return aConfiguredCount > 0 ? aConfiguredCount : Runtime.getRuntime().availableProcessors();
+	}
+
+	private void fetchRelatedIds(List<File> aFiles, Set<Long> aAlbumIds, Set<Long> aArtistIds, Set<Long> aGenreIds) {
+
+		List<String> paths = new ArrayList<>();
+
+		for (File file : aFiles) {
+			paths.add(file.getAbsolutePath());
+		}
+
+		for (List<String> chunk : Partition.partition(paths, PATHS_BUFFER_SIZE)) {
+			for (Object[] row : songDao.findRelatedIdsByPathIn(chunk)) {
+				aGenreIds.add((Long) row[0]);
+				aAlbumIds.add((Long) row[1]);
+				aArtistIds.add((Long) row[2]);
+			}
+		}
+	}
+
+	private class ImportSongHandler implements PipelineStage.BatchHandler<SongImport, Void> {
+
+		private final ScanContext context;
+
+		private ImportSongHandler(ScanContext aContext) {
+			context = aContext;
+		}
+
+		@Override
+		public List<Void> process(List<SongImport> aSongImports) throws Exception {
+
+			libraryService.importSongs(aSongImports, new LibraryService.ImportDelegate() {
+
+				@Override
+				public void onSongImported(SongImport aSongImport, Song aSong) {
+					onSongImportFinish(context, aSongImport.getSongFile(), true);
+				}
+
+				@Override
+				public void onSongImportFailed(SongImport aSongImport, Exception aException) {
+
+					onSongImportFailure(aSongImport.getSongFile(), aException);
+
+					onSongImportFinish(context, aSongImport.getSongFile(), false);
+				}
+			});
 
 			return null;
 		}
@@ -758,16 +1374,10 @@ public class ScanServiceImpl implements ScanService {
 
 	private class WriteSongTask implements Callable<Void> {
 
-		private final List<File> targetFiles;
-
 		private final EditCommand command;
 
-		private final int taskCount;
-
-		private WriteSongTask(List<File> aTargetFiles, EditCommand aCommand, int aTaskCount) {
-			targetFiles = aTargetFiles;
+		private WriteSongTask(EditCommand aCommand) {
 			command = aCommand;
-			taskCount = aTaskCount;
 		}
 
 		@Override
@@ -783,12 +1393,7 @@ public class ScanServiceImpl implements ScanService {
 				failedPaths.add(command.getSongFile().getFile().getAbsolutePath());
 			}
 
-			synchronized (progressLock) {
-
-				double progress = processedTaskCount.incrementAndGet() / (double) taskCount;
-
-				updateStatus(StatusImpl.buildScanStatus(targetFiles, STEP_EDIT_WRITING_SONGS, STEP_CODE_EDIT_WRITING_SONGS, progress));
-			}
+			processedTaskCount.incrementAndGet();
 
 			return null;
 		}
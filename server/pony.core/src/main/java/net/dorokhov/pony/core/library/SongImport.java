@@ -0,0 +1,94 @@
+package net.dorokhov.pony.core.library;
+
+import net.dorokhov.pony.core.audio.data.SongDataReadable;
+import net.dorokhov.pony.core.domain.Song;
+import net.dorokhov.pony.core.library.file.LibraryImage;
+import net.dorokhov.pony.core.library.file.LibrarySong;
+import net.dorokhov.pony.core.storage.StoreFileCommand;
+
+public class SongImport {
+
+	private final LibrarySong songFile;
+
+	private final Song song;
+
+	private final SongDataReadable songData;
+
+	private String artworkTag;
+
+	private String artworkChecksum;
+
+	private LibraryImage artworkImage;
+
+	private StoreFileCommand artworkCommand;
+
+	public SongImport(LibrarySong aSongFile, Song aSong, SongDataReadable aSongData) {
+		songFile = aSongFile;
+		song = aSong;
+		songData = aSongData;
+	}
+
+	public LibrarySong getSongFile() {
+		return songFile;
+	}
+
+	/**
+	 * @return song existing before import or null if song is new
+	 */
+	public Song getSong() {
+		return song;
+	}
+
+	/**
+	 * @return song data or null if song file has not been modified since last import
+	 */
+	public SongDataReadable getSongData() {
+		return songData;
+	}
+
+	public String getArtworkTag() {
+		return artworkTag;
+	}
+
+	public void setArtworkTag(String aArtworkTag) {
+		artworkTag = aArtworkTag;
+	}
+
+	public String getArtworkChecksum() {
+		return artworkChecksum;
+	}
+
+	public void setArtworkChecksum(String aArtworkChecksum) {
+		artworkChecksum = aArtworkChecksum;
+	}
+
+	public LibraryImage getArtworkImage() {
+		return artworkImage;
+	}
+
+	public void setArtworkImage(LibraryImage aArtworkImage) {
+		artworkImage = aArtworkImage;
+	}
+
+	public StoreFileCommand getArtworkCommand() {
+		return artworkCommand;
+	}
+
+	public void setArtworkCommand(StoreFileCommand aArtworkCommand) {
+		artworkCommand = aArtworkCommand;
+	}
+
+	public boolean isImportNeeded() {
+		return songData != null || song.getArtwork() == null;
+	}
+
+	@Override
+	public String toString() {
+		return "SongImport{" +
+				"path='" + songFile.getFile().getAbsolutePath() + '\'' +
+				", artworkTag='" + artworkTag + '\'' +
+				", artworkChecksum='" + artworkChecksum + '\'' +
+				'}';
+	}
+
+}
@@ -4,6 +4,8 @@ public interface LibraryFile extends LibraryNode {
 
 	public String getMimeType();
 
+	public long getLength();
+
 	public String getChecksum() throws Exception;
 
 }
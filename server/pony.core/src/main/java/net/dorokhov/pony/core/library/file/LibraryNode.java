@@ -8,4 +8,6 @@ public interface LibraryNode {
 
 	public LibraryFolder getParentFolder();
 
+	public long getLastModified();
+
 }
@@ -15,6 +15,11 @@ public interface LogService {
 	public Page<LogMessage> getByType(LogMessage.Type aMinimalType, Pageable aPageable);
 	public Page<LogMessage> getByTypeAndDate(LogMessage.Type aMinimalType, Date aMinDate, Date aMaxDate, Pageable aPageable);
 
+	public long getCountByTypeAndDate(LogMessage.Type aMinimalType, Date aMinDate, Date aMaxDate);
+
+	// Returns messages following the given one in (date, id) descending order, the first ones if the message is not defined
+	public List<LogMessage> seekByTypeAndDate(LogMessage.Type aMinimalType, Date aMinDate, Date aMaxDate, Date aLastDate, Long aLastId, int aCount);
+
 	public LogMessage debug(Logger aLogger, String aCode, String aText);
 	public LogMessage debug(Logger aLogger, String aCode, String aText, List<String> aArguments);
 
@@ -51,6 +56,23 @@ public interface LogService {
 	public LogMessage error(Logger aLogger, String aCode, String aText, String aDetails);
 	public LogMessage error(Logger aLogger, String aCode, String aText, String aDetails, List<String> aArguments);
 
+	// Messages logged by the methods above can be written asynchronously, the following methods write them before returning
+
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, List<String> aArguments);
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, Throwable aThrowable, List<String> aArguments);
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, String aDetails, List<String> aArguments);
+
+	public void flush();
+
+	// Between these calls only the first messages of each debug or info code are persisted, the rest are counted.
+	// Sampling covers messages of the calling thread and of the threads it starts, each sampling is counted separately.
+	public Sampling startSampling();
+	public void finishSampling(Sampling aSampling);
+
+	public void cleanMessages();
+
 	public void deleteAll();
 
+	public static interface Sampling {}
+
 }
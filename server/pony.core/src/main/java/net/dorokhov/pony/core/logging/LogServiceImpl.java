@@ -3,28 +3,207 @@ package net.dorokhov.pony.core.logging;
 import net.dorokhov.pony.core.dao.LogMessageDao;
 import net.dorokhov.pony.core.domain.LogMessage;
 import net.dorokhov.pony.core.domain.LogMessageArgument;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
 import java.util.Date;
-import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Service
 public class LogServiceImpl implements LogService {
 
+	public static enum QueueOverflow {
+		DROP, SYNC
+	}
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Queue<LogMessage> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final AtomicLong reportedDroppedCount = new AtomicLong();
+
+	private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+	// Threads started by the sampling thread, e.g. scan pipeline workers, inherit its sampling
+	private final InheritableThreadLocal<SamplingImpl> currentSampling = new InheritableThreadLocal<>();
+
+	private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(
+			new BasicThreadFactory.Builder().namingPattern("pony-log-writer-%d").build());
+
 	private LogMessageDao logMessageDao;
 
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	private boolean async = false;
+
+	private int queueCapacity = 10000;
+
+	private int batchSize = 500;
+
+	private QueueOverflow queueOverflow = QueueOverflow.SYNC;
+
+	private LogMessage.Type minimalType = LogMessage.Type.DEBUG;
+
+	private int sampledCodeLimit = 0;
+
+	private int maxAge = 0;
+
+	private int maxCountPerType = 0;
+
+	private int cleaningChunkSize = 1000;
+
 	@Autowired
 	public void setLogMessageDao(LogMessageDao aLogMessageDao) {
 		logMessageDao = aLogMessageDao;
 	}
 
+	@Autowired
+	public void setDataSource(DataSource aDataSource) {
+		jdbcTemplate = new JdbcTemplate(aDataSource);
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
+		transactionTemplate = new TransactionTemplate(aTransactionManager, new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+	}
+
+	public boolean isAsync() {
+		return async;
+	}
+
+	@Value("${log.async}")
+	public void setAsync(boolean aAsync) {
+		async = aAsync;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	@Value("${log.queueSize}")
+	public void setQueueCapacity(int aQueueCapacity) {
+		queueCapacity = aQueueCapacity;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	@Value("${log.batchSize}")
+	public void setBatchSize(int aBatchSize) {
+		batchSize = aBatchSize;
+	}
+
+	public QueueOverflow getQueueOverflow() {
+		return queueOverflow;
+	}
+
+	@Value("${log.queueOverflow}")
+	public void setQueueOverflow(String aQueueOverflow) {
+		queueOverflow = QueueOverflow.valueOf(aQueueOverflow.trim().toUpperCase());
+	}
+
+	public LogMessage.Type getMinimalType() {
+		return minimalType;
+	}
+
+	// Messages of lower types are printed but not persisted
+	@Value("${log.minimalType}")
+	public void setMinimalType(String aMinimalType) {
+		minimalType = LogMessage.Type.valueOf(aMinimalType.trim().toUpperCase());
+	}
+
+	public int getSampledCodeLimit() {
+		return sampledCodeLimit;
+	}
+
+	// Zero means no limit
+	@Value("${log.sampledCodeLimit}")
+	public void setSampledCodeLimit(int aSampledCodeLimit) {
+		sampledCodeLimit = aSampledCodeLimit;
+	}
+
+	public int getMaxAge() {
+		return maxAge;
+	}
+
+	// Age in days, zero means messages are not deleted by age
+	@Value("${log.maxAge}")
+	public void setMaxAge(int aMaxAge) {
+		maxAge = aMaxAge;
+	}
+
+	public int getMaxCountPerType() {
+		return maxCountPerType;
+	}
+
+	// Zero means messages are not deleted by count
+	@Value("${log.maxCountPerType}")
+	public void setMaxCountPerType(int aMaxCountPerType) {
+		maxCountPerType = aMaxCountPerType;
+	}
+
+	public int getCleaningChunkSize() {
+		return cleaningChunkSize;
+	}
+
+	@Value("${log.cleaningChunkSize}")
+	public void setCleaningChunkSize(int aCleaningChunkSize) {
+		cleaningChunkSize = aCleaningChunkSize;
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	@PreDestroy
+	public void onPreDestroy() {
+
+		writeExecutor.shutdown();
+
+		try {
+			writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Messages queued after shutdown are written by the calling thread
+		writeQueue();
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public long getCount() {
@@ -44,25 +223,38 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Transactional(readOnly = true)
+	public long getCountByTypeAndDate(LogMessage.Type aType, Date aMinDate, Date aMaxDate) {
+		return logMessageDao.countByTypeGreaterThanEqualAndDateBetween(aType, aMinDate, aMaxDate);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<LogMessage> seekByTypeAndDate(LogMessage.Type aType, Date aMinDate, Date aMaxDate, Date aLastDate, Long aLastId, int aCount) {
+
+		if (aLastDate != null && aLastId != null) {
+			return logMessageDao.seekByTypeAndDate(aType, aMinDate, aMaxDate, aLastDate, aLastId, new PageRequest(0, aCount));
+		}
+
+		return logMessageDao.seekByTypeAndDate(aType, aMinDate, aMaxDate, new PageRequest(0, aCount));
+	}
+
+	@Override
 	public LogMessage debug(Logger aLogger, String aCode, String aText) {
 		return debug(aLogger, aCode, aText, (String)null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage debug(Logger aLogger, String aCode, String aText, List<String> aArguments) {
 		return debug(aLogger, aCode, aText, (String)null, aArguments);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage debug(Logger aLogger, String aCode, String aText, Throwable aThrowable) {
 		return debug(aLogger, aCode, aText, aThrowable, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage debug(Logger aLogger, String aCode, String aText, Throwable aThrowable, List<String> aArguments) {
 
 		if (aThrowable == null) {
@@ -73,13 +265,11 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage debug(Logger aLogger, String aCode, String aText, String aDetails) {
 		return debug(aLogger, aCode, aText, aDetails, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage debug(Logger aLogger, String aCode, String aText, String aDetails, List<String> aArguments) {
 
 		if (aCode == null) {
@@ -90,25 +280,21 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText) {
 		return info(aLogger, aCode, aText, (String)null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText, List<String> aArguments) {
 		return info(aLogger, aCode, aText, (String)null, aArguments);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText, Throwable aThrowable) {
 		return info(aLogger, aCode, aText, aThrowable, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText, Throwable aThrowable, List<String> aArguments) {
 
 		if (aThrowable == null) {
@@ -119,13 +305,11 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText, String aDetails) {
 		return info(aLogger, aCode, aText, aDetails, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage info(Logger aLogger, String aCode, String aText, String aDetails, List<String> aArguments) {
 
 		if (aCode == null) {
@@ -136,25 +320,21 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText) {
 		return warn(aLogger, aCode, aText, (String)null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText, List<String> aArguments) {
 		return warn(aLogger, aCode, aText, (String)null, aArguments);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText, Exception aException) {
 		return warn(aLogger, aCode, aText, aException, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText, Throwable aThrowable, List<String> aArguments) {
 
 		if (aThrowable == null) {
@@ -165,13 +345,11 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText, String aDetails) {
 		return warn(aLogger, aCode, aText, aDetails, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage warn(Logger aLogger, String aCode, String aText, String aDetails, List<String> aArguments) {
 
 		if (aCode == null) {
@@ -182,25 +360,21 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText) {
 		return error(aLogger, aCode, aText, (String)null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText, List<String> aArguments) {
 		return error(aLogger, aCode, aText, (String)null, aArguments);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText, Throwable aThrowable) {
 		return error(aLogger, aCode, aText, aThrowable, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText, Throwable aThrowable, List<String> aArguments) {
 
 		if (aThrowable == null) {
@@ -211,13 +385,11 @@ public class LogServiceImpl implements LogService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText, String aDetails) {
 		return error(aLogger, aCode, aText, aDetails, null);
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public LogMessage error(Logger aLogger, String aCode, String aText, String aDetails, List<String> aArguments) {
 
 		if (aCode == null) {
@@ -227,14 +399,226 @@ public class LogServiceImpl implements LogService {
 		return doLogMessage(aLogger, LogMessage.Type.ERROR, aCode, aText, aDetails, aArguments);
 	}
 
+	@Override
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, List<String> aArguments) {
+		return logSync(aLogger, aType, aCode, aText, (String)null, aArguments);
+	}
+
+	@Override
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, Throwable aThrowable, List<String> aArguments) {
+
+		if (aThrowable == null) {
+			throw new IllegalArgumentException("Throwable must not be null.");
+		}
+
+		return logSync(aLogger, aType, aCode, aText, ExceptionUtils.getStackTrace(aThrowable).trim(), aArguments);
+	}
+
+	@Override
+	public LogMessage logSync(Logger aLogger, LogMessage.Type aType, String aCode, String aText, String aDetails, List<String> aArguments) {
+
+		if (aType == null) {
+			throw new IllegalArgumentException("Type must not be null.");
+		}
+		if (aCode == null) {
+			throw new IllegalArgumentException("Code must not be null.");
+		}
+
+		printMessage(aLogger, aType, aText, aDetails);
+
+		return saveMessage(buildMessage(aType, aCode, aText, aDetails, aArguments));
+	}
+
+	@Override
+	public void flush() {
+
+		Future<?> future = null;
+
+		try {
+			future = writeExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					writeQueue();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			writeQueue();
+		}
+
+		if (future != null) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	@Override
+	public Sampling startSampling() {
+
+		SamplingImpl sampling = new SamplingImpl();
+
+		currentSampling.set(sampling);
+
+		return sampling;
+	}
+
+	@Override
+	public void finishSampling(Sampling aSampling) {
+
+		SamplingImpl sampling = (SamplingImpl) aSampling;
+
+		if (currentSampling.get() == sampling) {
+			currentSampling.remove();
+		}
+
+		for (Map.Entry<String, Integer> entry : sampling.finish().entrySet()) {
+
+			int suppressedCount = entry.getValue() - sampledCodeLimit;
+
+			if (suppressedCount > 0) {
+				info(log, "logService.messagesSuppressed", "[" + suppressedCount + "] messages with code [" + entry.getKey() + "] have not been logged, " +
+								"only first [" + sampledCodeLimit + "] messages are logged.",
+						Arrays.asList(entry.getKey(), String.valueOf(suppressedCount), String.valueOf(sampledCodeLimit)));
+			}
+		}
+	}
+
+	@Override
+	public void cleanMessages() {
+
+		log.trace("Cleaning log messages...");
+
+		long deletedCount = 0;
+
+		if (maxAge > 0) {
+
+			Date minDate = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAge));
+
+			deletedCount += deleteMessages("date < ?", minDate, Long.MAX_VALUE);
+		}
+
+		if (maxCountPerType > 0) {
+			for (LogMessage.Type type : LogMessage.Type.values()) {
+
+				long excessCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_message WHERE type = ?", Long.class, type.ordinal()) - maxCountPerType;
+
+				if (excessCount > 0) {
+					deletedCount += deleteMessages("type = ?", type.ordinal(), excessCount);
+				}
+			}
+		}
+
+		if (deletedCount > 0) {
+			log.debug("Deleted [" + deletedCount + "] log messages.");
+		}
+
+		log.trace("Log messages have been cleaned.");
+	}
+
 	@Override
 	@Transactional
 	public void deleteAll() {
+
+		flush();
+
 		logMessageDao.deleteAll();
 	}
 
 	private LogMessage doLogMessage(Logger aLogger, LogMessage.Type aType, String aCode, String aText, String aDetails, List<String> aArguments) {
 
+		printMessage(aLogger, aType, aText, aDetails);
+
+		LogMessage message = buildMessage(aType, aCode, aText, aDetails, aArguments);
+
+		if (aType.compareTo(minimalType) < 0 || isSampledOut(aType, aCode)) {
+			return message;
+		}
+
+		if (async) {
+
+			if (queueSize.incrementAndGet() <= queueCapacity) {
+
+				queue.offer(message);
+
+				scheduleWrite();
+
+				return message;
+			}
+
+			queueSize.decrementAndGet();
+
+			// Warnings and errors are never dropped
+			if (queueOverflow == QueueOverflow.DROP && aType.compareTo(LogMessage.Type.WARN) < 0) {
+
+				droppedCount.incrementAndGet();
+
+				return message;
+			}
+		}
+
+		return saveMessage(message);
+	}
+
+	private boolean isSampledOut(LogMessage.Type aType, String aCode) {
+
+		// Warnings and errors are never sampled
+		if (sampledCodeLimit <= 0 || aType.compareTo(LogMessage.Type.WARN) >= 0) {
+			return false;
+		}
+
+		SamplingImpl sampling = currentSampling.get();
+
+		return sampling != null && sampling.isSampledOut(aCode);
+	}
+
+	// Oldest messages are deleted in chunks, each chunk in its own transaction, so that table locks are short
+	private long deleteMessages(String aCondition, final Object aParameter, long aMaxCount) {
+
+		// Messages referenced by scan jobs are kept
+		final String query = "SELECT id FROM log_message WHERE " + aCondition + " AND id NOT IN " +
+				"(SELECT log_message_id FROM scan_job WHERE log_message_id IS NOT NULL) ORDER BY id LIMIT ?";
+
+		long deletedCount = 0;
+
+		while (deletedCount < aMaxCount) {
+
+			final int chunkSize = (int) Math.min(cleaningChunkSize, aMaxCount - deletedCount);
+
+			int chunkDeletedCount = transactionTemplate.execute(new TransactionCallback<Integer>() {
+				@Override
+				public Integer doInTransaction(TransactionStatus status) {
+
+					List<Object[]> ids = new ArrayList<>();
+
+					for (Long id : jdbcTemplate.queryForList(query, Long.class, aParameter, chunkSize)) {
+						ids.add(new Object[] {id});
+					}
+
+					if (ids.size() > 0) {
+						jdbcTemplate.batchUpdate("DELETE FROM log_message_argument WHERE log_message_id = ?", ids);
+						jdbcTemplate.batchUpdate("DELETE FROM log_message WHERE id = ?", ids);
+					}
+
+					return ids.size();
+				}
+			});
+
+			deletedCount += chunkDeletedCount;
+
+			if (chunkDeletedCount < chunkSize) {
+				break;
+			}
+		}
+
+		return deletedCount;
+	}
+
+	private void printMessage(Logger aLogger, LogMessage.Type aType, String aText, String aDetails) {
+
 		if (aLogger != null) {
 
 			String message = aText;
@@ -257,9 +641,14 @@ public class LogServiceImpl implements LogService {
 					break;
 			}
 		}
+	}
+
+	private LogMessage buildMessage(LogMessage.Type aType, String aCode, String aText, String aDetails, List<String> aArguments) {
 
 		LogMessage message = new LogMessage();
 
+		// Date is assigned here, queued messages can be written much later
+		message.setDate(new Date());
 		message.setType(aType);
 		message.setCode(aCode);
 		message.setText(aText);
@@ -278,7 +667,213 @@ public class LogServiceImpl implements LogService {
 			}
 		}
 
-		return logMessageDao.save(message);
+		return message;
+	}
+
+	private LogMessage saveMessage(final LogMessage aMessage) {
+		return transactionTemplate.execute(new TransactionCallback<LogMessage>() {
+			@Override
+			public LogMessage doInTransaction(TransactionStatus status) {
+				return logMessageDao.save(aMessage);
+			}
+		});
+	}
+
+	private void scheduleWrite() {
+		if (writeScheduled.compareAndSet(false, true)) {
+			try {
+				writeExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+
+						writeScheduled.set(false);
+
+						writeQueue();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+
+				writeScheduled.set(false);
+
+				writeQueue();
+			}
+		}
+	}
+
+	private void writeQueue() {
+
+		List<LogMessage> batch = new ArrayList<>();
+
+		LogMessage message;
+
+		while ((message = queue.poll()) != null) {
+
+			queueSize.decrementAndGet();
+
+			batch.add(message);
+
+			if (batch.size() >= batchSize) {
+
+				writeBatch(batch);
+
+				batch = new ArrayList<>();
+			}
+		}
+
+		if (batch.size() > 0) {
+			writeBatch(batch);
+		}
+	}
+
+	private void writeBatch(final List<LogMessage> aMessages) {
+
+		long dropped = droppedCount.get();
+		long reported = reportedDroppedCount.getAndSet(dropped);
+
+		if (dropped > reported) {
+			log.warn("[{}] log messages have been dropped because the log queue was full.", dropped - reported);
+		}
+
+		try {
+			insertMessages(aMessages);
+		} catch (Exception e) {
+
+			if (aMessages.size() == 1) {
+				log.error("Could not write log message [" + aMessages.get(0).getCode() + "].", e);
+			} else {
+
+				log.debug("Could not write batch of " + aMessages.size() + " log messages, writing messages one by one.", e);
+
+				// Failed message does not prevent other messages of the batch from being written
+				for (LogMessage message : aMessages) {
+					try {
+						insertMessages(Collections.singletonList(message));
+					} catch (Exception messageException) {
+						log.error("Could not write log message [" + message.getCode() + "].", messageException);
+					}
+				}
+			}
+		}
+	}
+
+	private void insertMessages(final List<LogMessage> aMessages) {
+		transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				jdbcTemplate.execute(new ConnectionCallback<Void>() {
+					@Override
+					public Void doInConnection(Connection aConnection) throws SQLException {
+
+						// H2 does not return keys generated by a batch, messages are inserted one by one in a single transaction
+						try (PreparedStatement messageStatement = aConnection.prepareStatement("INSERT INTO log_message " +
+								"(date, type, code, text, details) VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+							 PreparedStatement argumentStatement = aConnection.prepareStatement("INSERT INTO log_message_argument " +
+									 "(sort, value, log_message_id) VALUES (?, ?, ?)")) {
+
+							int argumentCount = 0;
+
+							for (LogMessage message : aMessages) {
+
+								messageStatement.setTimestamp(1, new Timestamp(message.getDate().getTime()));
+								messageStatement.setInt(2, message.getType().ordinal());
+								messageStatement.setString(3, message.getCode());
+								messageStatement.setString(4, message.getText());
+								messageStatement.setString(5, message.getDetails());
+
+								messageStatement.executeUpdate();
+
+								try (ResultSet keys = messageStatement.getGeneratedKeys()) {
+									if (keys.next()) {
+										message.setId(keys.getLong(1));
+									}
+								}
+
+								for (LogMessageArgument argument : message.getArguments()) {
+
+									argumentStatement.setInt(1, argument.getSort());
+									argumentStatement.setString(2, argument.getValue());
+									argumentStatement.setLong(3, message.getId());
+
+									argumentStatement.addBatch();
+
+									argumentCount++;
+								}
+							}
+
+							if (argumentCount > 0) {
+								argumentStatement.executeBatch();
+							}
+						}
+
+						return null;
+					}
+				});
+			}
+		});
+	}
+
+	private class SamplingImpl implements Sampling {
+
+		// Messages are counted under read lock, so that no count is lost when sampling is finished
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private final ConcurrentMap<String, AtomicInteger> codeCounts = new ConcurrentHashMap<>();
+
+		private boolean finished;
+
+		public boolean isSampledOut(String aCode) {
+
+			lock.readLock().lock();
+
+			try {
+
+				if (finished) {
+					return false;
+				}
+
+				AtomicInteger count = codeCounts.get(aCode);
+
+				if (count == null) {
+
+					count = new AtomicInteger();
+
+					AtomicInteger existingCount = codeCounts.putIfAbsent(aCode, count);
+
+					if (existingCount != null) {
+						count = existingCount;
+					}
+				}
+
+				return count.incrementAndGet() > sampledCodeLimit;
+
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * @return message counts by code, messages logged after this call are not sampled anymore
+		 */
+		public SortedMap<String, Integer> finish() {
+
+			lock.writeLock().lock();
+
+			try {
+
+				finished = true;
+
+				SortedMap<String, Integer> result = new TreeMap<>();
+
+				for (String code : new ArrayList<>(codeCounts.keySet())) {
+					result.put(code, codeCounts.remove(code).get());
+				}
+
+				return result;
+
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
 	}
 
 }
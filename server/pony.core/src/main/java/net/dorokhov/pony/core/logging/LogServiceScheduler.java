@@ -0,0 +1,32 @@
+package net.dorokhov.pony.core.logging;
+
+import net.dorokhov.pony.core.installation.InstallationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class LogServiceScheduler {
+
+	private InstallationService installationService;
+
+	private LogService logService;
+
+	@Autowired
+	public void setInstallationService(InstallationService aInstallationService) {
+		installationService = aInstallationService;
+	}
+
+	@Autowired
+	public void setLogService(LogService aLogService) {
+		logService = aLogService;
+	}
+
+	@Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+	public void cleanMessages() {
+		if (installationService.getInstallation() != null) {
+			logService.cleanMessages();
+		}
+	}
+
+}
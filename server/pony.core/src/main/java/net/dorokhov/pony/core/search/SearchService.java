@@ -5,6 +5,7 @@ import net.dorokhov.pony.core.domain.Artist;
 import net.dorokhov.pony.core.domain.Genre;
 import net.dorokhov.pony.core.domain.Song;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SearchService {
@@ -13,6 +14,11 @@ public interface SearchService {
 
 	public void clearIndex();
 
+	/**
+	 * Removes entities from the index. Must be called when entities are deleted by bulk queries, which are not indexed automatically.
+	 */
+	public void purgeIndex(Class<?> aEntityClass, Collection<Long> aIds);
+
 	public List<Genre> searchGenres(String aQuery, int aMaxResults);
 	public List<Artist> searchArtists(String aQuery, int aMaxResults);
 	public List<Album> searchAlbums(String aQuery, int aMaxResults);
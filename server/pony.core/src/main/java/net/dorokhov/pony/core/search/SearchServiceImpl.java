@@ -18,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -59,6 +60,17 @@ public class SearchServiceImpl implements SearchService {
 		fullTextSession.getSearchFactory().optimize(Song.class);
 	}
 
+	@Override
+	@Transactional
+	public void purgeIndex(Class<?> aEntityClass, Collection<Long> aIds) {
+
+		FullTextEntityManager fullTextSession = Search.getFullTextEntityManager(entityManager);
+
+		for (Long id : aIds) {
+			fullTextSession.purge(aEntityClass, id);
+		}
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	@SuppressWarnings("unchecked")
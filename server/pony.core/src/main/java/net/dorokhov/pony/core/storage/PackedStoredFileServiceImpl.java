@@ -0,0 +1,897 @@
+package net.dorokhov.pony.core.storage;
+
+import net.dorokhov.pony.core.common.FileRegionInputStream;
+import net.dorokhov.pony.core.common.PonyUtils;
+import net.dorokhov.pony.core.dao.StoredFileDao;
+import net.dorokhov.pony.core.domain.StoredFile;
+import net.dorokhov.pony.core.file.FileTypeService;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps small artworks in big segment files instead of a file per artwork. Location of the content of each stored file
+ * is kept in the memory-mapped index, where record of the stored file is found by its ID. Segments are compacted
+ * in background when too much of their content is deleted.
+ */
+@Primary
+@Service
+public class PackedStoredFileServiceImpl extends StoredFileServiceImpl {
+
+	private static final String PACKED_PATH_PREFIX = "packed/";
+
+	private static final Set<String> PACKED_TAGS = new HashSet<>(Arrays.asList(StoredFile.TAG_ARTWORK_EMBEDDED, StoredFile.TAG_ARTWORK_FILE));
+
+	private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile("segment-(\\d+)\\.dat");
+
+	// Segment number, content length and content offset
+	private static final int INDEX_RECORD_SIZE = 16;
+
+	private static final int INDEX_INITIAL_SIZE = 1024 * INDEX_RECORD_SIZE;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+	private final Object segmentLock = new Object();
+
+	// Total length of contents referenced by the index, by segment number
+	private final Map<Integer, Long> liveSizes = new HashMap<>();
+
+	// Number of contents appended but not yet put to the index, by segment number, guarded by segment lock
+	private final Map<Integer, Integer> pendingAppends = new HashMap<>();
+
+	// Transaction resource marking that segments are forced before the transaction commits
+	private final Object forceResourceKey = new Object();
+
+	private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+	private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+			new BasicThreadFactory.Builder().namingPattern("pony-storage-compaction-%d").build());
+
+	private StoredFileDao storedFileDao;
+
+	private FileTypeService fileTypeService;
+
+	private String storagePath;
+
+	private boolean packingEnabled = false;
+
+	private long segmentSize = 256 * 1024 * 1024;
+
+	private long maxPackedSize = 1024 * 1024;
+
+	private double compactionThreshold = 0.5;
+
+	private File segmentsFolder;
+
+	private FileChannel indexChannel;
+
+	private MappedByteBuffer index;
+
+	private int activeSegment;
+
+	private FileChannel activeSegmentChannel;
+
+	@Override
+	@Autowired
+	public void setStoredFileDao(StoredFileDao aStoredFileDao) {
+
+		super.setStoredFileDao(aStoredFileDao);
+
+		storedFileDao = aStoredFileDao;
+	}
+
+	@Override
+	@Autowired
+	public void setFileTypeService(FileTypeService aFileTypeService) {
+
+		super.setFileTypeService(aFileTypeService);
+
+		fileTypeService = aFileTypeService;
+	}
+
+	@Override
+	@Value("${storage.path}")
+	public void setStoragePath(String aStoragePath) {
+
+		super.setStoragePath(aStoragePath);
+
+		storagePath = aStoragePath;
+	}
+
+	@Value("${storage.packed}")
+	public void setPackingEnabled(boolean aPackingEnabled) {
+		packingEnabled = aPackingEnabled;
+	}
+
+	@Value("${storage.segmentSize}")
+	public void setSegmentSize(long aSegmentSize) {
+		segmentSize = aSegmentSize;
+	}
+
+	@Value("${storage.packedMaxSize}")
+	public void setMaxPackedSize(long aMaxPackedSize) {
+		maxPackedSize = aMaxPackedSize;
+	}
+
+	/**
+	 * Segment is compacted when the part of its length still referenced by the index becomes less than the threshold.
+	 */
+	@Value("${storage.compactionThreshold}")
+	public void setCompactionThreshold(double aCompactionThreshold) {
+		compactionThreshold = aCompactionThreshold;
+	}
+
+	@PostConstruct
+	public void openSegments() throws IOException {
+
+		segmentsFolder = new File(FileUtils.getUserDirectory(), storagePath + "/segments");
+
+		// Segments are still opened if packing is disabled after some files have been packed
+		if (!packingEnabled && !new File(segmentsFolder, "index.dat").exists()) {
+			return;
+		}
+
+		if (!segmentsFolder.exists()) {
+			if (!segmentsFolder.mkdirs()) {
+				throw new RuntimeException("Could not create directory [" + segmentsFolder.getAbsolutePath() + "] for storing segments.");
+			}
+		}
+
+		indexChannel = FileChannel.open(new File(segmentsFolder, "index.dat").toPath(),
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(indexChannel.size(), INDEX_INITIAL_SIZE));
+
+		for (int position = 0; position + INDEX_RECORD_SIZE <= index.capacity(); position += INDEX_RECORD_SIZE) {
+
+			int segment = index.getInt(position);
+
+			if (segment > 0) {
+				addLiveSize(segment, index.getInt(position + 4));
+			}
+		}
+
+		List<Integer> segments = getSegments();
+
+		openActiveSegment(segments.size() > 0 ? segments.get(segments.size() - 1) : 1);
+
+		scheduleCompaction();
+	}
+
+	@PreDestroy
+	public void closeSegments() {
+
+		// Compaction is not interrupted, interruption would close the channel of the active segment
+		compactionExecutor.shutdown();
+
+		try {
+			compactionExecutor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (!isOpened()) {
+			return;
+		}
+
+		synchronized (segmentLock) {
+
+			indexLock.writeLock().lock();
+
+			try {
+
+				index.force();
+
+				closeQuietly(indexChannel);
+				closeQuietly(activeSegmentChannel);
+
+			} finally {
+				indexLock.writeLock().unlock();
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public File getFile(StoredFile aStoredFile) {
+		return isPacked(aStoredFile) ? null : super.getFile(aStoredFile);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public InputStream openStream(StoredFile aStoredFile) throws IOException {
+
+		if (!isPacked(aStoredFile)) {
+			return super.openStream(aStoredFile);
+		}
+
+		indexLock.readLock().lock();
+
+		try {
+
+			Location location = getLocation(aStoredFile.getId());
+
+			if (location == null) {
+				throw new FileNotFoundException("Content of stored file [" + aStoredFile.getId() + "] not found.");
+			}
+
+			// Opened stream keeps reading the segment, even if it is compacted and deleted meanwhile
+			return new FileRegionInputStream(getSegmentFile(location.getSegment()), location.getOffset(), location.getLength());
+
+		} finally {
+			indexLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	@Transactional
+	public StoredFile save(StoreFileCommand aCommand) {
+
+		if (!packingEnabled || !isOpened() || !PACKED_TAGS.contains(aCommand.getTag()) ||
+				!aCommand.getFile().isFile() || aCommand.getFile().length() > maxPackedSize) {
+			return super.save(aCommand);
+		}
+
+		if (!StringUtils.hasText(aCommand.getChecksum())) {
+			throw new RuntimeException("Checksum of file [" + aCommand.getFile().getAbsolutePath() + "] cannot be empty.");
+		}
+
+		final String packedPath = commandToPackedPath(aCommand);
+
+		final boolean isPathAcquired = acquirePath(packedPath);
+
+		// Same content is stored only once, existing stored file is reused
+		StoredFile existingFile = storedFileDao.findByTagAndChecksum(aCommand.getTag(), aCommand.getChecksum());
+
+		if (existingFile != null) {
+
+			if (isPathAcquired) {
+				releasePath(packedPath);
+			}
+
+			if (aCommand.getType() == StoreFileCommand.Type.MOVE && !aCommand.getFile().delete()) {
+				log.warn("Could not delete file [{}] moved to storage.", aCommand.getFile().getAbsolutePath());
+			}
+
+			return existingFile;
+		}
+
+		if (isPathAcquired) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int aStatus) {
+					releasePath(packedPath);
+				}
+			});
+		}
+
+		try {
+
+			byte[] content = FileUtils.readFileToByteArray(aCommand.getFile());
+
+			final Location location = append(content);
+
+			StoredFile storedFile;
+
+			// Segment of the pending location cannot be compacted until the location is put to the index
+			try {
+
+				storedFile = new StoredFile();
+
+				storedFile.setName(aCommand.getName());
+				storedFile.setMimeType(aCommand.getMimeType());
+				storedFile.setChecksum(aCommand.getChecksum());
+				storedFile.setSize((long) content.length);
+				storedFile.setTag(aCommand.getTag());
+				storedFile.setUserData(aCommand.getUserData());
+				storedFile.setPath(packedPath);
+
+				storedFile = storedFileDao.save(storedFile);
+
+				putLocation(storedFile.getId(), location);
+
+			} finally {
+				finishAppend(location);
+			}
+
+			final Long id = storedFile.getId();
+
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int aStatus) {
+					if (aStatus != STATUS_COMMITTED) {
+						removeLocation(id, location);
+					}
+				}
+			});
+
+			registerForce();
+
+			if (aCommand.getType() == StoreFileCommand.Type.MOVE && !aCommand.getFile().delete()) {
+				log.warn("Could not delete file [{}] moved to storage.", aCommand.getFile().getAbsolutePath());
+			}
+
+			return storedFile;
+
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	@Transactional
+	public void delete(Long aId) {
+
+		StoredFile storedFile = getById(aId);
+
+		if (storedFile != null && isPacked(storedFile)) {
+
+			final Long id = storedFile.getId();
+
+			storedFileDao.delete(storedFile);
+
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					if (removeLocation(id, null)) {
+						scheduleCompaction();
+					}
+				}
+			});
+
+		} else {
+			super.delete(aId);
+		}
+	}
+
+	@Override
+	@Transactional
+	public void deleteAll() {
+
+		super.deleteAll();
+
+		if (!isOpened()) {
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				try {
+					clearSegments();
+				} catch (Exception e) {
+					log.warn("Could not clean storage segments.", e);
+				}
+			}
+		});
+	}
+
+	private boolean isOpened() {
+		return index != null;
+	}
+
+	private boolean isPacked(StoredFile aStoredFile) {
+		return aStoredFile.getPath().startsWith(PACKED_PATH_PREFIX);
+	}
+
+	private String commandToPackedPath(StoreFileCommand aCommand) {
+
+		StringBuilder buf = new StringBuilder(PACKED_PATH_PREFIX).append(aCommand.getTag().trim()).append("/")
+				.append(PonyUtils.sanitizeFileName(aCommand.getChecksum().trim().toLowerCase()));
+
+		String fileExtension = fileTypeService.getFileExtension(aCommand.getMimeType());
+		if (fileExtension != null) {
+			buf.append(".").append(fileExtension);
+		}
+
+		return buf.toString();
+	}
+
+	private Location append(byte[] aContent) throws IOException {
+
+		synchronized (segmentLock) {
+
+			// Channel is closed if the thread writing to it is interrupted
+			if (!activeSegmentChannel.isOpen()) {
+				openActiveSegment(activeSegment);
+			}
+
+			long offset = activeSegmentChannel.size();
+
+			if (offset > 0 && offset + aContent.length > segmentSize) {
+
+				openActiveSegment(activeSegment + 1);
+
+				offset = 0;
+			}
+
+			ByteBuffer buffer = ByteBuffer.wrap(aContent);
+
+			while (buffer.hasRemaining()) {
+				activeSegmentChannel.write(buffer, offset + buffer.position());
+			}
+
+			Integer count = pendingAppends.get(activeSegment);
+
+			pendingAppends.put(activeSegment, (count != null ? count : 0) + 1);
+
+			return new Location(activeSegment, offset, aContent.length);
+		}
+	}
+
+	/**
+	 * Must be called after the location returned by append is put to the index or discarded.
+	 */
+	private void finishAppend(Location aLocation) {
+		synchronized (segmentLock) {
+
+			int count = pendingAppends.get(aLocation.getSegment()) - 1;
+
+			if (count > 0) {
+				pendingAppends.put(aLocation.getSegment(), count);
+			} else {
+				pendingAppends.remove(aLocation.getSegment());
+			}
+		}
+	}
+
+	/**
+	 * Forces appended contents and the index to disk before the current transaction commits, so that committed stored files
+	 * never reference lost content.
+	 */
+	private void registerForce() {
+
+		if (TransactionSynchronizationManager.hasResource(forceResourceKey)) {
+			return;
+		}
+
+		TransactionSynchronizationManager.bindResource(forceResourceKey, Boolean.TRUE);
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+			@Override
+			public void beforeCommit(boolean aReadOnly) {
+				try {
+					forceSegments();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			@Override
+			public void afterCompletion(int aStatus) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(forceResourceKey);
+			}
+		});
+	}
+
+	private void forceSegments() throws IOException {
+
+		// Segments other than active are forced when they stop being active
+		synchronized (segmentLock) {
+			if (activeSegmentChannel.isOpen()) {
+				activeSegmentChannel.force(false);
+			}
+		}
+
+		indexLock.writeLock().lock();
+
+		try {
+			index.force();
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	private void openActiveSegment(int aSegment) throws IOException {
+
+		if (activeSegmentChannel != null && activeSegmentChannel.isOpen()) {
+			activeSegmentChannel.force(false);
+		}
+
+		closeQuietly(activeSegmentChannel);
+
+		activeSegmentChannel = FileChannel.open(getSegmentFile(aSegment).toPath(),
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+		activeSegment = aSegment;
+	}
+
+	private File getSegmentFile(int aSegment) {
+		return new File(segmentsFolder, String.format("segment-%08d.dat", aSegment));
+	}
+
+	private List<Integer> getSegments() {
+
+		List<Integer> segments = new ArrayList<>();
+
+		File[] files = segmentsFolder.listFiles();
+
+		if (files != null) {
+			for (File file : files) {
+
+				Matcher matcher = SEGMENT_NAME_PATTERN.matcher(file.getName());
+
+				if (matcher.matches()) {
+					segments.add(Integer.valueOf(matcher.group(1)));
+				}
+			}
+		}
+
+		Collections.sort(segments);
+
+		return segments;
+	}
+
+	private int getIndexPosition(Long aId) {
+
+		if (aId < 0 || aId >= Integer.MAX_VALUE / INDEX_RECORD_SIZE) {
+			throw new RuntimeException("Stored file ID [" + aId + "] cannot be indexed.");
+		}
+
+		return (int) (aId * INDEX_RECORD_SIZE);
+	}
+
+	// Must be called with index lock
+	private Location getLocation(Long aId) {
+
+		int position = getIndexPosition(aId);
+
+		if (position + INDEX_RECORD_SIZE > index.capacity()) {
+			return null;
+		}
+
+		int segment = index.getInt(position);
+
+		return segment > 0 ? new Location(segment, index.getLong(position + 8), index.getInt(position + 4)) : null;
+	}
+
+	// Must be called with index write lock
+	private void setLocation(Long aId, Location aLocation) throws IOException {
+
+		int position = getIndexPosition(aId);
+
+		if (position + INDEX_RECORD_SIZE > index.capacity()) {
+
+			long size = index.capacity();
+
+			while (position + INDEX_RECORD_SIZE > size) {
+				size *= 2;
+			}
+
+			index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, Integer.MAX_VALUE));
+		}
+
+		Location oldLocation = getLocation(aId);
+
+		if (oldLocation != null) {
+			addLiveSize(oldLocation.getSegment(), -oldLocation.getLength());
+		}
+
+		if (aLocation != null) {
+
+			index.putInt(position, aLocation.getSegment());
+			index.putInt(position + 4, aLocation.getLength());
+			index.putLong(position + 8, aLocation.getOffset());
+
+			addLiveSize(aLocation.getSegment(), aLocation.getLength());
+
+		} else {
+
+			index.putInt(position, 0);
+			index.putInt(position + 4, 0);
+			index.putLong(position + 8, 0);
+		}
+	}
+
+	private void putLocation(Long aId, Location aLocation) throws IOException {
+
+		indexLock.writeLock().lock();
+
+		try {
+			setLocation(aId, aLocation);
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes location of the stored file, if it is equal to the expected location or if the expected location is null.
+	 */
+	private boolean removeLocation(Long aId, Location aExpectedLocation) {
+
+		indexLock.writeLock().lock();
+
+		try {
+
+			Location location = getLocation(aId);
+
+			if (location != null && (aExpectedLocation == null || location.equals(aExpectedLocation))) {
+
+				setLocation(aId, null);
+
+				return true;
+			}
+
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Replaces location of the stored file, if it was not changed or removed meanwhile.
+	 */
+	private boolean moveLocation(Long aId, Location aOldLocation, Location aNewLocation) throws IOException {
+
+		indexLock.writeLock().lock();
+
+		try {
+
+			if (aOldLocation.equals(getLocation(aId))) {
+
+				setLocation(aId, aNewLocation);
+
+				return true;
+			}
+
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+
+		return false;
+	}
+
+	private void addLiveSize(int aSegment, long aSize) {
+
+		Long size = liveSizes.get(aSegment);
+
+		size = (size != null ? size : 0) + aSize;
+
+		if (size > 0) {
+			liveSizes.put(aSegment, size);
+		} else {
+			liveSizes.remove(aSegment);
+		}
+	}
+
+	private void scheduleCompaction() {
+		if (compactionScheduled.compareAndSet(false, true)) {
+			try {
+				compactionExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+
+						compactionScheduled.set(false);
+
+						try {
+							compactSegments();
+						} catch (Exception e) {
+							log.error("Could not compact storage segments.", e);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				compactionScheduled.set(false);
+			}
+		}
+	}
+
+	private void compactSegments() throws IOException {
+
+		List<Integer> segmentsToCompact = new ArrayList<>();
+
+		synchronized (segmentLock) {
+
+			indexLock.readLock().lock();
+
+			try {
+				for (Integer segment : getSegments()) {
+					if (segment != activeSegment && !pendingAppends.containsKey(segment)) {
+
+						Long liveSize = liveSizes.get(segment);
+
+						if ((liveSize != null ? liveSize : 0) < getSegmentFile(segment).length() * compactionThreshold) {
+							segmentsToCompact.add(segment);
+						}
+					}
+				}
+			} finally {
+				indexLock.readLock().unlock();
+			}
+		}
+
+		for (Integer segment : segmentsToCompact) {
+			compactSegment(segment);
+		}
+	}
+
+	private void compactSegment(int aSegment) throws IOException {
+
+		Map<Long, Location> locations = new LinkedHashMap<>();
+
+		indexLock.readLock().lock();
+
+		try {
+			for (long id = 0; (id + 1) * INDEX_RECORD_SIZE <= index.capacity(); id++) {
+
+				Location location = getLocation(id);
+
+				if (location != null && location.getSegment() == aSegment) {
+					locations.put(id, location);
+				}
+			}
+		} finally {
+			indexLock.readLock().unlock();
+		}
+
+		File file = getSegmentFile(aSegment);
+
+		log.debug("Compacting segment [{}] with {} stored files...", file.getAbsolutePath(), locations.size());
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			for (Map.Entry<Long, Location> entry : locations.entrySet()) {
+
+				ByteBuffer buffer = ByteBuffer.allocate(entry.getValue().getLength());
+
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, entry.getValue().getOffset() + buffer.position()) < 0) {
+						throw new IOException("Unexpected end of segment [" + file.getAbsolutePath() + "].");
+					}
+				}
+
+				Location newLocation = append(buffer.array());
+
+				// Content of the stored file deleted meanwhile becomes garbage of the active segment
+				try {
+					moveLocation(entry.getKey(), entry.getValue(), newLocation);
+				} finally {
+					finishAppend(newLocation);
+				}
+			}
+		}
+
+		// Moved contents must be on disk before their old copies are deleted
+		forceSegments();
+
+		indexLock.writeLock().lock();
+
+		try {
+
+			// Segment is kept until the next compaction, if it is still referenced
+			if (liveSizes.containsKey(aSegment)) {
+				log.warn("Compacted segment [{}] is still referenced.", file.getAbsolutePath());
+			} else if (!file.delete()) {
+				log.warn("Could not delete compacted segment [{}].", file.getAbsolutePath());
+			}
+
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	private void clearSegments() throws IOException {
+
+		synchronized (segmentLock) {
+
+			indexLock.writeLock().lock();
+
+			try {
+
+				for (int position = 0; position < index.capacity(); position += 8) {
+					index.putLong(position, 0);
+				}
+
+				liveSizes.clear();
+
+				closeQuietly(activeSegmentChannel);
+
+				for (Integer segment : getSegments()) {
+					if (!getSegmentFile(segment).delete()) {
+						log.warn("Could not delete segment [{}].", getSegmentFile(segment).getAbsolutePath());
+					}
+				}
+
+				openActiveSegment(1);
+
+			} finally {
+				indexLock.writeLock().unlock();
+			}
+		}
+	}
+
+	private void closeQuietly(FileChannel aChannel) {
+		if (aChannel != null) {
+			try {
+				aChannel.close();
+			} catch (IOException e) {
+				log.warn("Could not close channel.", e);
+			}
+		}
+	}
+
+	private static class Location {
+
+		private final int segment;
+
+		private final long offset;
+
+		private final int length;
+
+		private Location(int aSegment, long aOffset, int aLength) {
+			segment = aSegment;
+			offset = aOffset;
+			length = aLength;
+		}
+
+		public int getSegment() {
+			return segment;
+		}
+
+		public long getOffset() {
+			return offset;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * segment + (int) (offset ^ (offset >>> 32))) + length;
+		}
+
+		@Override
+		public boolean equals(Object aObj) {
+
+			if (this == aObj) {
+				return true;
+			}
+
+			if (aObj != null && getClass().equals(aObj.getClass())) {
+
+				Location that = (Location) aObj;
+
+				return segment == that.segment && offset == that.offset && length == that.length;
+			}
+
+			return false;
+		}
+	}
+
+}
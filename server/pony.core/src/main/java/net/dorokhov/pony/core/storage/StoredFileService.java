@@ -5,6 +5,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
 
@@ -23,9 +25,15 @@ public interface StoredFileService {
 	public Page<StoredFile> getByTag(String aTag, Pageable aPageable);
 	public List<StoredFile> getByChecksum(String aChecksum);
 
+	/**
+	 * Returns file of the stored file or null if content of the stored file is not kept in a separate file.
+	 * Use {@link #openStream(StoredFile)} to read the content of any stored file.
+	 */
 	public File getFile(Long aId);
 	public File getFile(StoredFile aStoredFile);
 
+	public InputStream openStream(StoredFile aStoredFile) throws IOException;
+
 	public StoredFile save(StoreFileCommand aCommand);
 
 	public void delete(Long aId);
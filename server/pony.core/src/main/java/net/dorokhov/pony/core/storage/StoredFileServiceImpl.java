@@ -1,11 +1,11 @@
 package net.dorokhov.pony.core.storage;
 
+import net.dorokhov.pony.core.common.FileRegionInputStream;
 import net.dorokhov.pony.core.common.PonyUtils;
 import net.dorokhov.pony.core.dao.StoredFileDao;
 import net.dorokhov.pony.core.domain.StoredFile;
 import net.dorokhov.pony.core.file.FileTypeService;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,22 +13,35 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Date;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
 
 @Service
 public class StoredFileServiceImpl implements StoredFileService {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
-	private final Object lock = new Object();
+
+	// Threads of not yet completed transactions saving files to the path
+	private final Map<String, Thread> savingPaths = new HashMap<>();
+
+	private TransactionTemplate transactionTemplate;
 
 	private StoredFileDao storedFileDao;
 
@@ -38,6 +51,11 @@ public class StoredFileServiceImpl implements StoredFileService {
 
 	private File filesFolder;
 
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager aTransactionManager) {
+		transactionTemplate = new TransactionTemplate(aTransactionManager, new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+	}
+
 	@Autowired
 	public void setStoredFileDao(StoredFileDao aStoredFileDao) {
 		storedFileDao = aStoredFileDao;
@@ -127,6 +145,12 @@ public class StoredFileServiceImpl implements StoredFileService {
 		return new File(filesFolder, aStoredFile.getPath());
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public InputStream openStream(StoredFile aStoredFile) throws IOException {
+		return new FileRegionInputStream(getFile(aStoredFile));
+	}
+
 	@Override
 	@Transactional
 	public StoredFile save(StoreFileCommand aCommand) {
@@ -138,34 +162,62 @@ public class StoredFileServiceImpl implements StoredFileService {
 			throw new RuntimeException("File [" + aCommand.getFile().getAbsolutePath() + "] is directory.");
 		}
 
-		File targetFile = null;
-
-		try {
+		final String relativePath = commandToPath(aCommand);
 
-			String relativePath;
+		final File targetFile = new File(filesFolder, relativePath);
 
-			synchronized (lock) {
+		boolean isPathAcquired = acquirePath(relativePath);
 
-				relativePath = commandToPath(aCommand);
+		// Same content is stored only once, existing stored file is reused
+		StoredFile existingFile = storedFileDao.findByTagAndChecksum(aCommand.getTag(), aCommand.getChecksum());
 
-				targetFile = new File(filesFolder, relativePath);
+		if (existingFile != null) {
 
-				switch (aCommand.getType()) {
+			if (isPathAcquired) {
+				releasePath(relativePath);
+			}
 
-					case COPY:
-						FileUtils.copyFile(aCommand.getFile(), targetFile);
-						break;
+			if (aCommand.getType() == StoreFileCommand.Type.MOVE && !aCommand.getFile().delete()) {
+				log.warn("Could not delete file [{}] from file system.", aCommand.getFile().getAbsolutePath());
+			}
 
-					case MOVE:
-						FileUtils.moveFile(aCommand.getFile(), targetFile);
-						break;
+			return existingFile;
+		}
 
-					default:
-						throw new RuntimeException("Storage command type cannot be null.");
+		if (isPathAcquired) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int aStatus) {
+					onSaveCompletion(relativePath, targetFile, aStatus == STATUS_COMMITTED);
 				}
+			});
+		}
+
+		File tempFile = null;
+
+		try {
+
+			FileUtils.forceMkdir(targetFile.getParentFile());
+
+			// File is prepared next to the target, so that it appears in the storage by atomic rename
+			tempFile = new File(targetFile.getParentFile(), targetFile.getName() + "." + UUID.randomUUID() + ".tmp");
+
+			switch (aCommand.getType()) {
+
+				case COPY:
+					FileUtils.copyFile(aCommand.getFile(), tempFile);
+					break;
+
+				case MOVE:
+					FileUtils.moveFile(aCommand.getFile(), tempFile);
+					break;
+
+				default:
+					throw new RuntimeException("Storage command type cannot be null.");
 			}
 
-			final File fileToDeleteOnRollback = targetFile;
+			// Path is acquired and no stored file refers to it, existing file is a leftover and can be replaced
+			Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 
 			StoredFile storedFile = new StoredFile();
 
@@ -177,23 +229,12 @@ public class StoredFileServiceImpl implements StoredFileService {
 			storedFile.setUserData(aCommand.getUserData());
 			storedFile.setPath(relativePath);
 
-			storedFile = storedFileDao.save(storedFile);
-
-			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
-				@Override
-				public void afterCompletion(int aStatus) {
-					if (aStatus != STATUS_COMMITTED) {
-						fileToDeleteOnRollback.delete();
-					}
-				}
-			});
-
-			return storedFile;
+			return storedFileDao.save(storedFile);
 
 		} catch (Exception e) {
 
-			if (targetFile != null) {
-				targetFile.delete();
+			if (tempFile != null) {
+				tempFile.delete();
 			}
 
 			throw new RuntimeException(e);
@@ -242,58 +283,102 @@ public class StoredFileServiceImpl implements StoredFileService {
 		}
 	}
 
-	private String commandToPath(StoreFileCommand aCommand) {
+	/**
+	 * Transactions saving the same path are serialized, so that the content is written by the first one
+	 * and found by the others after it completes. Returns false if current thread already holds the path.
+	 */
+	protected boolean acquirePath(String aRelativePath) {
+		synchronized (savingPaths) {
+
+			Thread currentThread = Thread.currentThread();
 
-		File file;
+			while (savingPaths.containsKey(aRelativePath)) {
+
+				if (savingPaths.get(aRelativePath) == currentThread) {
+					return false;
+				}
 
-		int attempt = 0;
+				try {
+					savingPaths.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for file [" + aRelativePath + "] to be saved.", e);
+				}
+			}
 
-		do {
+			savingPaths.put(aRelativePath, currentThread);
 
-			StringBuilder buf = new StringBuilder(StringUtils.hasText(aCommand.getTag()) ? aCommand.getTag().trim() + "/" : "");
+			return true;
+		}
+	}
 
-			// Don't put too many files into one folder
-			buf.append(RandomStringUtils.random(2, false, true)).append("/")
-					.append(RandomStringUtils.random(2, false, true)).append("/");
+	protected void releasePath(String aRelativePath) {
+		synchronized (savingPaths) {
 
-			// Append task name or file name
-			if (aCommand.getName() != null) {
-				buf.append(PonyUtils.sanitizeFileName(aCommand.getName()));
-			} else {
-				buf.append(aCommand.getFile().getName());
-			}
+			savingPaths.remove(aRelativePath);
 
-			// Append attempt number (to guarantee file name to be unique)
-			if (attempt > 0) {
-				buf.append(attempt);
+			savingPaths.notifyAll();
+		}
+	}
+
+	private void onSaveCompletion(String aRelativePath, File aFile, boolean aCommitted) {
+		synchronized (savingPaths) {
+
+			releasePath(aRelativePath);
+
+			if (!aCommitted) {
+				aFile.delete();
 			}
+		}
+	}
 
-			// Append type extension
-			String fileExtension = fileTypeService.getFileExtension(aCommand.getMimeType());
-			if (fileExtension != null) {
-				buf.append(".").append(fileExtension);
+	private boolean isPathStored(final String aRelativePath) {
+		return transactionTemplate.execute(new TransactionCallback<Long>() {
+			@Override
+			public Long doInTransaction(TransactionStatus status) {
+				return storedFileDao.countByPath(aRelativePath);
 			}
+		}) > 0;
+	}
 
-			file = new File(buf.toString());
+	private String commandToPath(StoreFileCommand aCommand) {
 
-			attempt++;
+		if (!StringUtils.hasText(aCommand.getChecksum())) {
+			throw new RuntimeException("Checksum of file [" + aCommand.getFile().getAbsolutePath() + "] cannot be empty.");
+		}
+
+		StringBuilder buf = new StringBuilder(StringUtils.hasText(aCommand.getTag()) ? aCommand.getTag().trim() + "/" : "");
 
-		} while (file.exists());
+		String checksum = PonyUtils.sanitizeFileName(aCommand.getChecksum().trim().toLowerCase());
 
-		return file.getPath();
+		// Don't put too many files into one folder
+		buf.append(checksum.substring(0, Math.min(checksum.length(), 2))).append("/").append(checksum);
+
+		// Append type extension
+		String fileExtension = fileTypeService.getFileExtension(aCommand.getMimeType());
+		if (fileExtension != null) {
+			buf.append(".").append(fileExtension);
+		}
+
+		return new File(buf.toString()).getPath();
 	}
 
 	private void delete(StoredFile aStoredFile) {
 
-		final File file = new File(filesFolder, aStoredFile.getPath());
+		final String relativePath = aStoredFile.getPath();
+
+		final File file = new File(filesFolder, relativePath);
 
 		storedFileDao.delete(aStoredFile);
 
 		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
 			@Override
 			public void afterCommit() {
-				if (!file.delete()) {
-					log.warn("Could not delete file [{}] from file system.", file.getAbsolutePath());
+				synchronized (savingPaths) {
+					// Same content could be already saved again
+					if (!savingPaths.containsKey(relativePath) && !isPathStored(relativePath) && !file.delete()) {
+						log.warn("Could not delete file [{}] from file system.", file.getAbsolutePath());
+					}
 				}
 			}
 		});
@@ -0,0 +1,52 @@
+package net.dorokhov.pony.core.upgrade.worker;
+
+import net.dorokhov.pony.core.common.SqlSplitter;
+import net.dorokhov.pony.core.upgrade.UpgradeWorker;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+
+@Service
+public class UpgradeWorker_0_2 implements UpgradeWorker {
+
+	public final static String SCRIPT_UPGRADE = "/net/dorokhov/pony/core/upgrade/upgrade_0_2.sql";
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void setDataSource(DataSource aDataSource) {
+		jdbcTemplate = new JdbcTemplate(aDataSource);
+	}
+
+	@Override
+	public String getVersion() {
+		return "0.2";
+	}
+
+	@Override
+	@Transactional
+	public void run() {
+
+		InputStream inputStream = getClass().getResourceAsStream(SCRIPT_UPGRADE);
+
+		if (inputStream == null) {
+			throw new RuntimeException("Script not found.");
+		}
+
+		try {
+			for (String statement : new SqlSplitter().splitScript(IOUtils.toString(inputStream, "UTF-8"))) {
+				jdbcTemplate.execute(statement);
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Date;
+import java.util.List;
 
 public interface UserService {
 
@@ -25,8 +26,13 @@ public interface UserService {
 	public User getById(Long aId);
 	public User getByEmail(String aEmail);
 
+	public long getCount();
+
 	public Page<User> getAll(Pageable aPageable);
 
+	// Returns users following the given one in (name, id) ascending order, the first ones if the user is not defined
+	public List<User> seekAll(String aLastName, Long aLastId, int aCount);
+
 	public User create(User aUser) throws UserExistsException;
 	public User update(User aUser, String aNewPassword) throws UserNotFoundException, UserExistsException, SelfRoleModificationException;
 
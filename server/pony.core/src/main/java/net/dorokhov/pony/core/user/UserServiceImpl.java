@@ -38,6 +38,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -126,6 +127,23 @@ public class UserServiceImpl implements UserService {
 		return userDao.findAll(aPageable);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public long getCount() {
+		return userDao.count();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<User> seekAll(String aLastName, Long aLastId, int aCount) {
+
+		if (aLastName != null && aLastId != null) {
+			return userDao.seek(aLastName, aLastId, new PageRequest(0, aCount));
+		}
+
+		return userDao.seek(new PageRequest(0, aCount));
+	}
+
 	@Override
 	@Transactional(rollbackFor = {UserExistsException.class})
 	public User create(User aUser) throws UserExistsException {
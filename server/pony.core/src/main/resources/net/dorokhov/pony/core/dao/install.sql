@@ -193,6 +193,50 @@ CREATE TABLE scan_result_failed_path (
 	PRIMARY KEY (scan_result_id, value)
 );
 
+CREATE TABLE folder_manifest (
+
+	id BIGINT IDENTITY,
+
+	creation_date TIMESTAMP NOT NULL,
+	update_date TIMESTAMP,
+
+	path VARCHAR_IGNORECASE (255) NOT NULL,
+
+	last_modified BIGINT NOT NULL,
+
+	UNIQUE (path)
+);
+
+CREATE TABLE folder_manifest_file (
+
+	folder_manifest_id BIGINT NOT NULL,
+
+	name VARCHAR (255) NOT NULL,
+	size BIGINT NOT NULL,
+	last_modified BIGINT NOT NULL,
+
+	FOREIGN KEY (folder_manifest_id) REFERENCES folder_manifest (id)
+);
+
+CREATE INDEX index_folder_manifest_file_folder_manifest_id ON folder_manifest_file (folder_manifest_id);
+
+CREATE TABLE file_checksum (
+
+	id BIGINT IDENTITY,
+
+	creation_date TIMESTAMP NOT NULL,
+	update_date TIMESTAMP,
+
+	path VARCHAR_IGNORECASE (255) NOT NULL,
+
+	length BIGINT NOT NULL,
+	last_modified BIGINT NOT NULL,
+
+	checksum VARCHAR (255) NOT NULL,
+
+	UNIQUE (path)
+);
+
 CREATE TABLE stored_file (
 
 	id BIGINT IDENTITY,
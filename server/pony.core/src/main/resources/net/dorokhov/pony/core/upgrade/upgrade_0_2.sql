@@ -0,0 +1,43 @@
+CREATE TABLE IF NOT EXISTS folder_manifest (
+
+	id BIGINT IDENTITY,
+
+	creation_date TIMESTAMP NOT NULL,
+	update_date TIMESTAMP,
+
+	path VARCHAR_IGNORECASE (255) NOT NULL,
+
+	last_modified BIGINT NOT NULL,
+
+	UNIQUE (path)
+);
+
+CREATE TABLE IF NOT EXISTS folder_manifest_file (
+
+	folder_manifest_id BIGINT NOT NULL,
+
+	name VARCHAR (255) NOT NULL,
+	size BIGINT NOT NULL,
+	last_modified BIGINT NOT NULL,
+
+	FOREIGN KEY (folder_manifest_id) REFERENCES folder_manifest (id)
+);
+
+CREATE INDEX IF NOT EXISTS index_folder_manifest_file_folder_manifest_id ON folder_manifest_file (folder_manifest_id);
+
+CREATE TABLE IF NOT EXISTS file_checksum (
+
+	id BIGINT IDENTITY,
+
+	creation_date TIMESTAMP NOT NULL,
+	update_date TIMESTAMP,
+
+	path VARCHAR_IGNORECASE (255) NOT NULL,
+
+	length BIGINT NOT NULL,
+	last_modified BIGINT NOT NULL,
+
+	checksum VARCHAR (255) NOT NULL,
+
+	UNIQUE (path)
+);
@@ -0,0 +1,96 @@
+package net.dorokhov.pony.core.test.benchmark;
+
+import net.dorokhov.pony.core.audio.FastSongDataServiceImpl;
+import net.dorokhov.pony.core.audio.SongDataService;
+import net.dorokhov.pony.core.audio.SongDataServiceImpl;
+import net.dorokhov.pony.core.file.ChecksumServiceImpl;
+import net.dorokhov.pony.core.test.unit.FastSongDataServiceImplTest;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading speed of jaudiotagger and fast reader. Not included into default test runs,
+ * run it explicitly with -Dtest=FastSongDataServiceImplBenchmark.
+ */
+public class FastSongDataServiceImplBenchmark {
+
+	private static final File TEST_FOLDER = new File(FileUtils.getTempDirectory(), "FastSongDataServiceImplBenchmark");
+
+	private static final int CORPUS_SIZE = 60;
+
+	private static final int ITERATIONS = 10;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private SongDataServiceImpl jaudiotaggerService;
+
+	private FastSongDataServiceImpl service;
+
+	private List<File> corpus;
+
+	@Before
+	public void setUp() throws Exception {
+
+		SLF4JBridgeHandler.removeHandlersForRootLogger();
+		SLF4JBridgeHandler.install();
+
+		jaudiotaggerService = new SongDataServiceImpl();
+		jaudiotaggerService.setChecksumService(new ChecksumServiceImpl());
+
+		service = new FastSongDataServiceImpl();
+		service.setChecksumService(new ChecksumServiceImpl());
+
+		FileUtils.deleteDirectory(TEST_FOLDER);
+
+		TEST_FOLDER.mkdir();
+
+		corpus = FastSongDataServiceImplTest.buildCorpus(TEST_FOLDER, CORPUS_SIZE, jaudiotaggerService, new ArrayList<File>());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(TEST_FOLDER);
+	}
+
+	@Test
+	public void benchmark() throws Exception {
+
+		// Warm up
+		read(jaudiotaggerService);
+		read(service);
+
+		long jaudiotaggerTime = read(jaudiotaggerService);
+		long time = read(service);
+
+		int count = corpus.size() * ITERATIONS;
+
+		log.info("Read {} files using jaudiotagger in {} ms, {} files per second.",
+				count, jaudiotaggerTime, Math.round(count / (jaudiotaggerTime / 1000.0)));
+		log.info("Read {} files using fast reader in {} ms, {} files per second.",
+				count, time, Math.round(count / (time / 1000.0)));
+	}
+
+	private long read(SongDataService aService) throws Exception {
+
+		long startTime = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (File file : corpus) {
+				aService.read(file);
+			}
+		}
+
+		return Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), 1);
+	}
+
+}
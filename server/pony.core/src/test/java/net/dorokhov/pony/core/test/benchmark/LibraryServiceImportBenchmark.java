@@ -0,0 +1,180 @@
+package net.dorokhov.pony.core.test.benchmark;
+
+import net.dorokhov.pony.core.audio.SongDataService;
+import net.dorokhov.pony.core.audio.data.SongDataWritable;
+import net.dorokhov.pony.core.dao.SongDao;
+import net.dorokhov.pony.core.domain.Song;
+import net.dorokhov.pony.core.library.FileScanService;
+import net.dorokhov.pony.core.library.LibraryService;
+import net.dorokhov.pony.core.library.SongImport;
+import net.dorokhov.pony.core.library.file.LibrarySong;
+import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures concurrent batch import of songs, the way writing stage of the scan pipeline does it.
+ * Not included into default test runs, run it explicitly with -Dtest=LibraryServiceImportBenchmark.
+ */
+public class LibraryServiceImportBenchmark extends AbstractIntegrationCase {
+
+	private static final String TEST_FOLDER_PATH = "data/library";
+
+	private static final int COPY_COUNT = 16;
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+	private static final int BATCH_SIZE = 20;
+
+	private LibraryService service;
+
+	private SongDao songDao;
+
+	private File libraryFolder;
+
+	@Before
+	public void setUp() throws Exception {
+
+		service = context.getBean(LibraryService.class);
+
+		songDao = context.getBean(SongDao.class);
+
+		libraryFolder = Files.createTempDirectory("pony").toFile();
+
+		SongDataService songDataService = context.getBean(SongDataService.class);
+
+		// Every copy of the test library gets its own artist, so that batches compete only when they really share entities
+		for (int i = 0; i < COPY_COUNT; i++) {
+
+			File copyFolder = new File(libraryFolder, "copy" + i);
+
+			FileUtils.copyDirectory(new ClassPathResource(TEST_FOLDER_PATH).getFile(), copyFolder);
+
+			for (File file : FileUtils.listFiles(copyFolder, new String[] {"mp3"}, true)) {
+
+				SongDataWritable songData = new SongDataWritable();
+
+				songData.setAlbumArtist("Artist " + i);
+				songData.setWriteAlbumArtist(true);
+
+				songDataService.write(file, songData);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(libraryFolder);
+	}
+
+	@Test
+	public void benchmark() throws Exception {
+
+		FileScanService fileScanService = context.getBean(FileScanService.class);
+
+		List<LibrarySong> songFiles = new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true));
+
+		// Songs of the same folder are imported together, as they come from the reading stage
+		Collections.sort(songFiles, new Comparator<LibrarySong>() {
+			@Override
+			public int compare(LibrarySong aSong1, LibrarySong aSong2) {
+				return aSong1.getFile().compareTo(aSong2.getFile());
+			}
+		});
+
+		for (int threadCount : THREAD_COUNTS) {
+
+			// Artwork files prepared for import are deleted after import, songs are read again for every run
+			List<List<SongImport>> batches = prepareBatches(songFiles);
+
+			long time = importBatches(batches, threadCount);
+
+			log.info("Imported {} songs in batches of {} using {} threads in {} ms, {} songs per second.",
+					songFiles.size(), BATCH_SIZE, threadCount, time, Math.round(songFiles.size() / (time / 1000.0)));
+
+			Assert.assertEquals(songFiles.size(), songDao.count());
+
+			service.cleanSongs(null, Collections.<String>emptySet(), null);
+		}
+	}
+
+	private List<List<SongImport>> prepareBatches(List<LibrarySong> aSongFiles) {
+
+		List<List<SongImport>> batches = new ArrayList<>();
+
+		for (int i = 0; i < aSongFiles.size(); i += BATCH_SIZE) {
+
+			List<SongImport> batch = new ArrayList<>();
+
+			for (LibrarySong songFile : aSongFiles.subList(i, Math.min(i + BATCH_SIZE, aSongFiles.size()))) {
+
+				SongImport songImport = service.readSong(songFile);
+
+				service.prepareArtwork(songImport);
+
+				batch.add(songImport);
+			}
+
+			batches.add(batch);
+		}
+
+		return batches;
+	}
+
+	private long importBatches(List<List<SongImport>> aBatches, int aThreadCount) throws Exception {
+
+		final AtomicInteger failedCount = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(aThreadCount);
+
+		long startTime = System.nanoTime();
+
+		try {
+
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (final List<SongImport> batch : aBatches) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						service.importSongs(batch, new LibraryService.ImportDelegate() {
+
+							@Override
+							public void onSongImported(SongImport aSongImport, Song aSong) {}
+
+							@Override
+							public void onSongImportFailed(SongImport aSongImport, Exception aException) {
+
+								log.error("Could not import song [" + aSongImport.getSongFile().getFile().getAbsolutePath() + "].", aException);
+
+								failedCount.incrementAndGet();
+							}
+						});
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals(0, failedCount.get());
+
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+	}
+
+}
@@ -0,0 +1,183 @@
+package net.dorokhov.pony.core.test.integration;
+
+import net.dorokhov.pony.core.domain.StoredFile;
+import net.dorokhov.pony.core.file.ChecksumServiceImpl;
+import net.dorokhov.pony.core.library.ArtworkVariantService;
+import net.dorokhov.pony.core.library.ArtworkVariantServiceImpl;
+import net.dorokhov.pony.core.storage.StoreFileCommand;
+import net.dorokhov.pony.core.storage.StoredFileService;
+import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+public class ArtworkVariantServiceIT extends AbstractIntegrationCase {
+
+	private static final String TEST_FILE_PATH = "data/image.png";
+
+	private ArtworkVariantService service;
+
+	private StoredFileService storedFileService;
+
+	private File imageFolder;
+
+	@Before
+	public void setUp() throws Exception {
+
+		service = context.getBean(ArtworkVariantService.class);
+		storedFileService = context.getBean(StoredFileService.class);
+
+		imageFolder = Files.createTempDirectory("pony").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(imageFolder);
+	}
+
+	@Test
+	public void testVariants() throws Exception {
+
+		final StoredFile artwork = saveArtwork(1, 800, 600);
+
+		File variant = service.getVariant(artwork, 300);
+
+		checkImageSize(variant, 300, 225);
+
+		Assert.assertEquals(variant, service.getVariant(artwork, 300));
+
+		checkImageSize(service.getVariant(artwork, 64), 64, 48);
+
+		// Concurrent requests of the same variant are served by the same file
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+
+			List<Future<File>> futures = new ArrayList<>();
+
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(new Callable<File>() {
+					@Override
+					public File call() throws Exception {
+						return service.getVariant(artwork, 600);
+					}
+				}));
+			}
+
+			File file = futures.get(0).get();
+
+			for (Future<File> future : futures) {
+				Assert.assertEquals(file, future.get());
+			}
+
+			checkImageSize(file, 600, 450);
+
+		} finally {
+			executor.shutdown();
+		}
+
+		boolean isExceptionThrown = false;
+
+		try {
+			service.getVariant(artwork, 123);
+		} catch (Exception e) {
+			isExceptionThrown = true;
+		}
+
+		Assert.assertTrue(isExceptionThrown);
+
+		ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", new File(artwork.getUserData()));
+
+		// Modified artwork file is not used, stored file is returned instead
+		Assert.assertNull(service.getVariant(artwork, 140));
+
+		FileUtils.forceDelete(new File(artwork.getUserData()));
+
+		// Cached variant is still available, but new ones cannot be made
+		Assert.assertNotNull(service.getVariant(artwork, 300));
+		Assert.assertNull(service.getVariant(artwork, 140));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+
+		ArtworkVariantServiceImpl serviceImpl = context.getBean(ArtworkVariantServiceImpl.class);
+
+		StoredFile artwork1 = saveArtwork(1, 800, 800);
+		StoredFile artwork2 = saveArtwork(2, 800, 800);
+
+		File variant1 = service.getVariant(artwork1, 300);
+
+		serviceImpl.setCacheSize(variant1.length());
+
+		File variant2 = service.getVariant(artwork2, 300);
+
+		Assert.assertFalse(variant1.exists());
+		Assert.assertTrue(variant2.exists());
+
+		serviceImpl.setCacheSize(100 * 1024 * 1024);
+	}
+
+	@Test
+	public void testMissingOriginal() throws Exception {
+
+		StoredFile artwork = saveArtwork(1, 800, 800);
+
+		File imageFile = new File(artwork.getUserData());
+		File movedFile = new File(imageFolder, "moved.png");
+
+		FileUtils.moveFile(imageFile, movedFile);
+
+		Assert.assertNull(service.getVariant(artwork, 300));
+
+		FileUtils.moveFile(movedFile, imageFile);
+
+		// Missing original is not looked for again on the next request
+		Assert.assertNull(service.getVariant(artwork, 300));
+	}
+
+	private StoredFile saveArtwork(int aIndex, int aWidth, int aHeight) throws Exception {
+
+		BufferedImage image = new BufferedImage(aWidth, aHeight, BufferedImage.TYPE_INT_RGB);
+
+		image.setRGB(0, 0, aIndex);
+
+		// Variants of previous runs are kept in the storage, unique content guarantees they are not reused
+		image.setRGB(1, 0, UUID.randomUUID().hashCode());
+
+		File imageFile = new File(imageFolder, "image" + aIndex + ".png");
+
+		ImageIO.write(image, "png", imageFile);
+
+		StoreFileCommand command = new StoreFileCommand(StoreFileCommand.Type.COPY, new ClassPathResource(TEST_FILE_PATH).getFile());
+
+		command.setName("artwork" + aIndex);
+		command.setMimeType("image/png");
+		command.setChecksum(new ChecksumServiceImpl().calculateChecksum(imageFile));
+		command.setTag(StoredFile.TAG_ARTWORK_FILE);
+		command.setUserData(imageFile.getAbsolutePath());
+
+		return storedFileService.save(command);
+	}
+
+	private void checkImageSize(File aFile, int aWidth, int aHeight) throws Exception {
+
+		BufferedImage image = ImageIO.read(aFile);
+
+		Assert.assertEquals(aWidth, image.getWidth());
+		Assert.assertEquals(aHeight, image.getHeight());
+	}
+
+}
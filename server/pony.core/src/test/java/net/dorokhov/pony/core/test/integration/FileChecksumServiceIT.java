@@ -0,0 +1,96 @@
+package net.dorokhov.pony.core.test.integration;
+
+import net.dorokhov.pony.core.dao.FileChecksumDao;
+import net.dorokhov.pony.core.domain.FileChecksum;
+import net.dorokhov.pony.core.file.ChecksumService;
+import net.dorokhov.pony.core.library.FileChecksumService;
+import net.dorokhov.pony.core.library.FileScanService;
+import net.dorokhov.pony.core.library.file.LibraryFile;
+import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class FileChecksumServiceIT extends AbstractIntegrationCase {
+
+	private static final String TEST_FILE_PATH = "data/image.png";
+
+	private FileChecksumService service;
+
+	private FileChecksumDao fileChecksumDao;
+
+	private FileScanService fileScanService;
+
+	private ChecksumService checksumService;
+
+	private File testFolder;
+
+	@Before
+	public void setUp() throws Exception {
+
+		service = context.getBean(FileChecksumService.class);
+
+		fileChecksumDao = context.getBean(FileChecksumDao.class);
+		fileScanService = context.getBean(FileScanService.class);
+		checksumService = context.getBean(ChecksumService.class);
+
+		testFolder = Files.createTempDirectory("pony").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(testFolder);
+	}
+
+	@Test
+	public void test() throws Exception {
+
+		File file = new File(testFolder, "image.png");
+
+		FileUtils.copyFile(new ClassPathResource(TEST_FILE_PATH).getFile(), file);
+
+		String checksum = checksumService.calculateChecksum(file);
+
+		Assert.assertEquals(checksum, fileScanService.scanFile(file).getChecksum());
+
+		FileChecksum fileChecksum = fileChecksumDao.findByPath(file.getAbsolutePath());
+
+		Assert.assertEquals(checksum, fileChecksum.getChecksum());
+		Assert.assertEquals(Long.valueOf(file.length()), fileChecksum.getLength());
+		Assert.assertEquals(Long.valueOf(file.lastModified()), fileChecksum.getLastModified());
+
+		// Stored checksum must be returned while length and modification date of the file are not changed
+		fileChecksum.setChecksum("stored");
+
+		fileChecksumDao.save(fileChecksum);
+
+		Assert.assertEquals("stored", service.getChecksum(fileScanService.scanFile(file)));
+
+		FileUtils.writeStringToFile(file, "changed");
+
+		LibraryFile changedFile = fileScanService.scanFile(file);
+
+		Assert.assertEquals(checksumService.calculateChecksum(file), service.getChecksum(changedFile));
+		Assert.assertEquals(1, fileChecksumDao.count());
+
+		service.cleanChecksums(Collections.singletonList(new File(testFolder, "other")), Collections.<String>emptySet());
+
+		Assert.assertEquals(1, fileChecksumDao.count());
+
+		service.cleanChecksums(null, Collections.singleton(file.getAbsolutePath()));
+
+		Assert.assertEquals(1, fileChecksumDao.count());
+
+		service.cleanChecksums(null, Collections.<String>emptySet());
+
+		Assert.assertEquals(0, fileChecksumDao.count());
+	}
+
+}
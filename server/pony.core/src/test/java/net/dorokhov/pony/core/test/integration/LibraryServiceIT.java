@@ -0,0 +1,369 @@
+package net.dorokhov.pony.core.test.integration;
+
+import net.dorokhov.pony.core.audio.SongDataService;
+import net.dorokhov.pony.core.audio.data.SongDataWritable;
+import net.dorokhov.pony.core.dao.AlbumDao;
+import net.dorokhov.pony.core.dao.ArtistDao;
+import net.dorokhov.pony.core.dao.GenreDao;
+import net.dorokhov.pony.core.dao.SongDao;
+import net.dorokhov.pony.core.library.FileScanService;
+import net.dorokhov.pony.core.domain.Album;
+import net.dorokhov.pony.core.domain.Artist;
+import net.dorokhov.pony.core.domain.Genre;
+import net.dorokhov.pony.core.domain.Song;
+import net.dorokhov.pony.core.library.LibraryService;
+import net.dorokhov.pony.core.library.SongImport;
+import net.dorokhov.pony.core.library.file.LibrarySong;
+import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryServiceIT extends AbstractIntegrationCase {
+
+	private static final String TEST_FOLDER_PATH = "data/library";
+
+	private static final int COPY_COUNT = 8;
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+	private static final int BATCH_SIZE = 20;
+
+	private LibraryService service;
+
+	private SongDao songDao;
+	private GenreDao genreDao;
+	private ArtistDao artistDao;
+	private AlbumDao albumDao;
+
+	private File libraryFolder;
+
+	@Before
+	public void setUp() throws Exception {
+
+		service = context.getBean(LibraryService.class);
+
+		songDao = context.getBean(SongDao.class);
+		genreDao = context.getBean(GenreDao.class);
+		artistDao = context.getBean(ArtistDao.class);
+		albumDao = context.getBean(AlbumDao.class);
+
+		libraryFolder = Files.createTempDirectory("pony").toFile();
+
+		SongDataService songDataService = context.getBean(SongDataService.class);
+
+		// Every copy of the test library gets its own artist, so that imports of different copies do not compete for the same entities
+		for (int i = 0; i < COPY_COUNT; i++) {
+
+			File copyFolder = new File(libraryFolder, "copy" + i);
+
+			FileUtils.copyDirectory(new ClassPathResource(TEST_FOLDER_PATH).getFile(), copyFolder);
+
+			for (File file : FileUtils.listFiles(copyFolder, new String[] {"mp3"}, true)) {
+
+				SongDataWritable songData = new SongDataWritable();
+
+				songData.setAlbumArtist("Artist " + i);
+				songData.setWriteAlbumArtist(true);
+
+				songDataService.write(file, songData);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(libraryFolder);
+	}
+
+	@Test
+	public void testConcurrentImport() throws Exception {
+
+		FileScanService fileScanService = context.getBean(FileScanService.class);
+
+		List<LibrarySong> songFiles = new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true));
+
+		for (int threadCount : THREAD_COUNTS) {
+
+			long time = importSongs(songFiles, threadCount);
+
+			log.info("Imported {} songs using {} threads in {} ms, {} songs per second.",
+					songFiles.size(), threadCount, time, Math.round(songFiles.size() / (time / 1000.0)));
+
+			Assert.assertEquals(songFiles.size(), songDao.count());
+			Assert.assertEquals(1, genreDao.count());
+			Assert.assertEquals(COPY_COUNT, artistDao.count());
+			Assert.assertEquals(COPY_COUNT * 5, albumDao.count());
+
+			service.cleanSongs(null, Collections.<String>emptySet(), null);
+
+			Assert.assertEquals(0, songDao.count());
+			Assert.assertEquals(0, genreDao.count());
+			Assert.assertEquals(0, artistDao.count());
+			Assert.assertEquals(0, albumDao.count());
+		}
+	}
+
+	@Test
+	public void testBatchImport() throws Exception {
+
+		FileScanService fileScanService = context.getBean(FileScanService.class);
+
+		List<LibrarySong> songFiles = new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true));
+
+		final AtomicInteger importedCount = new AtomicInteger();
+		final AtomicInteger failedCount = new AtomicInteger();
+
+		long startTime = System.nanoTime();
+
+		for (int i = 0; i < songFiles.size(); i += BATCH_SIZE) {
+
+			List<SongImport> songImports = new ArrayList<>();
+
+			for (LibrarySong songFile : songFiles.subList(i, Math.min(i + BATCH_SIZE, songFiles.size()))) {
+
+				SongImport songImport = service.readSong(songFile);
+
+				service.prepareArtwork(songImport);
+
+				songImports.add(songImport);
+			}
+
+			service.importSongs(songImports, new LibraryService.ImportDelegate() {
+
+				@Override
+				public void onSongImported(SongImport aSongImport, Song aSong) {
+					importedCount.incrementAndGet();
+				}
+
+				@Override
+				public void onSongImportFailed(SongImport aSongImport, Exception aException) {
+
+					log.error("Could not import song [" + aSongImport.getSongFile().getFile().getAbsolutePath() + "].", aException);
+
+					failedCount.incrementAndGet();
+				}
+			});
+		}
+
+		long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		log.info("Imported {} songs in batches of {} in {} ms, {} songs per second.",
+				songFiles.size(), BATCH_SIZE, time, Math.round(songFiles.size() / (time / 1000.0)));
+
+		Assert.assertEquals(songFiles.size(), importedCount.get());
+		Assert.assertEquals(0, failedCount.get());
+
+		Assert.assertEquals(songFiles.size(), songDao.count());
+		Assert.assertEquals(1, genreDao.count());
+		Assert.assertEquals(COPY_COUNT, artistDao.count());
+		Assert.assertEquals(COPY_COUNT * 5, albumDao.count());
+	}
+
+	@Test
+	public void testImportCache() throws Exception {
+
+		FileScanService fileScanService = context.getBean(FileScanService.class);
+		SongDataService songDataService = context.getBean(SongDataService.class);
+
+		List<LibrarySong> songFiles = new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true));
+
+		importSongs(songFiles, 4);
+
+		service.loadImportCache();
+
+		try {
+
+			// Moving songs to another artist deletes old artist and albums, cache must not return them anymore
+			for (String artistName : new String[] {"Artist 0 Moved", "Artist 0"}) {
+
+				for (File file : FileUtils.listFiles(new File(libraryFolder, "copy0"), new String[] {"mp3"}, true)) {
+
+					SongDataWritable songData = new SongDataWritable();
+
+					songData.setAlbumArtist(artistName);
+					songData.setWriteAlbumArtist(true);
+
+					songDataService.write(file, songData);
+				}
+
+				Thread.sleep(1000); // Make sure modification date of the file is changed
+
+				importSongs(new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true)), 4);
+
+				Assert.assertEquals(songFiles.size(), songDao.count());
+				Assert.assertEquals(1, genreDao.count());
+				Assert.assertEquals(COPY_COUNT, artistDao.count());
+				Assert.assertEquals(COPY_COUNT * 5, albumDao.count());
+
+				Assert.assertNotNull(artistDao.findByName(artistName));
+			}
+
+		} finally {
+			service.clearImportCache();
+		}
+	}
+
+	@Test
+	public void testNormalize() throws Exception {
+
+		FileScanService fileScanService = context.getBean(FileScanService.class);
+
+		importSongs(new ArrayList<>(fileScanService.scanFolder(libraryFolder).getChildSongs(true)), 4);
+
+		service.normalize(null);
+
+		// Expected artworks are selected the same way normalization used to do it entity by entity
+		Map<Long, List<Song>> genreToSongs = new HashMap<>();
+
+		for (Song song : songDao.findAll()) {
+			if (song.getArtwork() != null) {
+
+				List<Song> songs = genreToSongs.get(song.getGenre().getId());
+
+				if (songs == null) {
+					songs = new ArrayList<>();
+					genreToSongs.put(song.getGenre().getId(), songs);
+				}
+
+				songs.add(song);
+			}
+		}
+
+		Assert.assertTrue(genreToSongs.size() > 0);
+
+		for (Genre genre : genreDao.findAll()) {
+
+			List<Song> songs = genreToSongs.get(genre.getId());
+
+			Collections.sort(songs, new Comparator<Song>() {
+				@Override
+				public int compare(Song aSong1, Song aSong2) {
+					int result = compareYears(aSong1.getYear(), aSong2.getYear());
+					return result != 0 ? result : aSong1.getId().compareTo(aSong2.getId());
+				}
+			});
+
+			Assert.assertEquals(songs.get(songs.size() / 2).getArtwork().getId(), genre.getArtwork().getId());
+		}
+
+		Map<Long, List<Album>> artistToAlbums = new HashMap<>();
+
+		for (Album album : albumDao.findAll()) {
+			if (album.getArtwork() != null) {
+
+				List<Album> albums = artistToAlbums.get(album.getArtist().getId());
+
+				if (albums == null) {
+					albums = new ArrayList<>();
+					artistToAlbums.put(album.getArtist().getId(), albums);
+				}
+
+				albums.add(album);
+			}
+		}
+
+		Assert.assertEquals(COPY_COUNT, artistToAlbums.size());
+
+		for (Artist artist : artistDao.findAll()) {
+
+			List<Album> albums = artistToAlbums.get(artist.getId());
+
+			Collections.sort(albums, new Comparator<Album>() {
+				@Override
+				public int compare(Album aAlbum1, Album aAlbum2) {
+					int result = compareYears(aAlbum1.getYear(), aAlbum2.getYear());
+					return result != 0 ? result : aAlbum1.getId().compareTo(aAlbum2.getId());
+				}
+			});
+
+			Assert.assertEquals(albums.get(albums.size() / 2).getArtwork().getId(), artist.getArtwork().getId());
+		}
+
+		// Scoped normalization must touch only the given entities
+		List<Artist> artists = new ArrayList<>();
+
+		for (Artist artist : artistDao.findAll()) {
+
+			artist.setArtwork(null);
+
+			artists.add(artistDao.save(artist));
+		}
+
+		Long artistId = artists.get(0).getId();
+
+		service.normalize(Collections.<Long>emptySet(), Collections.singleton(artistId), Collections.<Long>emptySet(), null);
+
+		for (Artist artist : artistDao.findAll()) {
+			if (artist.getId().equals(artistId)) {
+
+				List<Album> albums = artistToAlbums.get(artist.getId());
+
+				Assert.assertEquals(albums.get(albums.size() / 2).getArtwork().getId(), artist.getArtwork().getId());
+
+			} else {
+				Assert.assertNull(artist.getArtwork());
+			}
+		}
+	}
+
+	private int compareYears(Integer aYear1, Integer aYear2) {
+
+		if (aYear1 == null || aYear2 == null) {
+			return aYear1 == null ? (aYear2 == null ? 0 : -1) : 1;
+		}
+
+		return aYear1.compareTo(aYear2);
+	}
+
+	private long importSongs(List<LibrarySong> aSongFiles, int aThreadCount) throws Exception {
+
+		final AtomicInteger failedCount = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(aThreadCount);
+
+		long startTime = System.nanoTime();
+
+		try {
+
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (final LibrarySong songFile : aSongFiles) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							service.importSong(songFile);
+						} catch (Exception e) {
+
+							log.error("Could not import song [" + songFile.getFile().getAbsolutePath() + "].", e);
+
+							failedCount.incrementAndGet();
+						}
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals(0, failedCount.get());
+
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+	}
+
+}
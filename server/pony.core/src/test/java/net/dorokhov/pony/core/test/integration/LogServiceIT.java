@@ -2,19 +2,30 @@ package net.dorokhov.pony.core.test.integration;
 
 import net.dorokhov.pony.core.domain.LogMessage;
 import net.dorokhov.pony.core.domain.LogMessageArgument;
+import net.dorokhov.pony.core.dao.LogMessageDao;
 import net.dorokhov.pony.core.logging.LogService;
+import net.dorokhov.pony.core.logging.LogServiceImpl;
 import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class LogServiceIT extends AbstractIntegrationCase {
 
@@ -25,78 +36,87 @@ public class LogServiceIT extends AbstractIntegrationCase {
 	@Before
 	public void setUp() throws Exception {
 		service = context.getBean(LogService.class);
+		service.flush();
 		service.deleteAll();
 	}
 
 	@Test
 	public void test() {
 
+		// Messages are checked right after logging, so they must be written synchronously
+		LogServiceImpl syncService = new LogServiceImpl();
+
+		syncService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		syncService.setDataSource(context.getBean(DataSource.class));
+		syncService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		syncService.setAsync(false);
+
 		// Debug
 
-		checkMessageWithDetails(service.debug(log, "test1", "text1"),
+		checkMessageWithDetails(syncService.debug(log, "test1", "text1"),
 				LogMessage.Type.DEBUG, "test1", "text1", new ArrayList<String>(), null);
-		checkMessageWithDetails(service.debug(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.debug(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.DEBUG, "test2", "text2", Arrays.asList("arg1", "arg2"), null);
 
-		checkMessageWithDetailsNotNull(service.debug(log, "test3", "text3", new Exception()),
+		checkMessageWithDetailsNotNull(syncService.debug(log, "test3", "text3", new Exception()),
 				LogMessage.Type.DEBUG, "test3", "text3", new ArrayList<String>());
-		checkMessageWithDetailsNotNull(service.debug(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetailsNotNull(syncService.debug(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.DEBUG, "test4", "text4", Arrays.asList("arg1", "arg2"));
 
-		checkMessageWithDetails(service.debug(log, "test5", "text5", "details1"),
+		checkMessageWithDetails(syncService.debug(log, "test5", "text5", "details1"),
 				LogMessage.Type.DEBUG, "test5", "text5", new ArrayList<String>(), "details1");
-		checkMessageWithDetails(service.debug(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.debug(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.DEBUG, "test6", "text6", Arrays.asList("arg1", "arg2"), "details2");
 
 		// Info
 
-		checkMessageWithDetails(service.info(log, "test1", "text1"),
+		checkMessageWithDetails(syncService.info(log, "test1", "text1"),
 				LogMessage.Type.INFO, "test1", "text1", new ArrayList<String>(), null);
-		checkMessageWithDetails(service.info(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.info(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.INFO, "test2", "text2", Arrays.asList("arg1", "arg2"), null);
 
-		checkMessageWithDetailsNotNull(service.info(log, "test3", "text3", new Exception()),
+		checkMessageWithDetailsNotNull(syncService.info(log, "test3", "text3", new Exception()),
 				LogMessage.Type.INFO, "test3", "text3", new ArrayList<String>());
-		checkMessageWithDetailsNotNull(service.info(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetailsNotNull(syncService.info(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.INFO, "test4", "text4", Arrays.asList("arg1", "arg2"));
 
-		checkMessageWithDetails(service.info(log, "test5", "text5", "details1"),
+		checkMessageWithDetails(syncService.info(log, "test5", "text5", "details1"),
 				LogMessage.Type.INFO, "test5", "text5", new ArrayList<String>(), "details1");
-		checkMessageWithDetails(service.info(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.info(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.INFO, "test6", "text6", Arrays.asList("arg1", "arg2"), "details2");
 
 		// Warn
 
-		checkMessageWithDetails(service.warn(log, "test1", "text1"),
+		checkMessageWithDetails(syncService.warn(log, "test1", "text1"),
 				LogMessage.Type.WARN, "test1", "text1", new ArrayList<String>(), null);
-		checkMessageWithDetails(service.warn(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.warn(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.WARN, "test2", "text2", Arrays.asList("arg1", "arg2"), null);
 
-		checkMessageWithDetailsNotNull(service.warn(log, "test3", "text3", new Exception()),
+		checkMessageWithDetailsNotNull(syncService.warn(log, "test3", "text3", new Exception()),
 				LogMessage.Type.WARN, "test3", "text3", new ArrayList<String>());
-		checkMessageWithDetailsNotNull(service.warn(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetailsNotNull(syncService.warn(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.WARN, "test4", "text4", Arrays.asList("arg1", "arg2"));
 
-		checkMessageWithDetails(service.warn(log, "test5", "text5", "details1"),
+		checkMessageWithDetails(syncService.warn(log, "test5", "text5", "details1"),
 				LogMessage.Type.WARN, "test5", "text5", new ArrayList<String>(), "details1");
-		checkMessageWithDetails(service.warn(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.warn(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.WARN, "test6", "text6", Arrays.asList("arg1", "arg2"), "details2");
 
 		// Error
 
-		checkMessageWithDetails(service.error(log, "test1", "text1"),
+		checkMessageWithDetails(syncService.error(log, "test1", "text1"),
 				LogMessage.Type.ERROR, "test1", "text1", new ArrayList<String>(), null);
-		checkMessageWithDetails(service.error(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.error(log, "test2", "text2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.ERROR, "test2", "text2", Arrays.asList("arg1", "arg2"), null);
 
-		checkMessageWithDetailsNotNull(service.error(log, "test3", "text3", new Exception()),
+		checkMessageWithDetailsNotNull(syncService.error(log, "test3", "text3", new Exception()),
 				LogMessage.Type.ERROR, "test3", "text3", new ArrayList<String>());
-		checkMessageWithDetailsNotNull(service.error(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetailsNotNull(syncService.error(log, "test4", "text4", new Exception(), Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.ERROR, "test4", "text4", Arrays.asList("arg1", "arg2"));
 
-		checkMessageWithDetails(service.error(log, "test5", "text5", "details1"),
+		checkMessageWithDetails(syncService.error(log, "test5", "text5", "details1"),
 				LogMessage.Type.ERROR, "test5", "text5", new ArrayList<String>(), "details1");
-		checkMessageWithDetails(service.error(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
+		checkMessageWithDetails(syncService.error(log, "test6", "text6", "details2", Arrays.asList("arg1", "arg2")),
 				LogMessage.Type.ERROR, "test6", "text6", Arrays.asList("arg1", "arg2"), "details2");
 
 		// Listing
@@ -122,6 +142,305 @@ public class LogServiceIT extends AbstractIntegrationCase {
 		Assert.assertEquals(0, service.getCount());
 	}
 
+	@Test
+	public void testAsync() throws Exception {
+
+		final LogServiceImpl asyncService = new LogServiceImpl();
+
+		asyncService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		asyncService.setDataSource(context.getBean(DataSource.class));
+		asyncService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		asyncService.setAsync(true);
+		asyncService.setBatchSize(7);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		for (int i = 0; i < 4; i++) {
+
+			final int thread = i;
+
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 50; j++) {
+						asyncService.debug(null, "test" + thread, "text" + j, Arrays.asList("arg" + j, String.valueOf(thread)));
+					}
+				}
+			});
+		}
+
+		executor.shutdown();
+
+		Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		LogMessage syncMessage = asyncService.logSync(log, LogMessage.Type.INFO, "test", "text", Arrays.asList("arg1"));
+
+		checkMessageWithDetails(syncMessage, LogMessage.Type.INFO, "test", "text", Arrays.asList("arg1"), null);
+
+		asyncService.flush();
+
+		Assert.assertEquals(201, service.getCount());
+
+		List<LogMessage> messages = service.getByType(LogMessage.Type.DEBUG, new PageRequest(0, 1000, Sort.Direction.ASC, "id")).getContent();
+
+		for (LogMessage message : messages) {
+			if (message.getType() == LogMessage.Type.DEBUG) {
+				checkMessageWithDetails(message, LogMessage.Type.DEBUG, message.getCode(), message.getText(),
+						Arrays.asList("arg" + message.getText().substring(4), message.getCode().substring(4)), null);
+			}
+		}
+
+		// Messages logged after shutdown are written synchronously
+		asyncService.onPreDestroy();
+
+		checkMessage(asyncService.debug(log, "test", "text"), LogMessage.Type.DEBUG, "test", "text", new ArrayList<String>());
+
+		Assert.assertEquals(202, service.getCount());
+	}
+
+	@Test
+	public void testQueueOverflow() throws Exception {
+
+		LogServiceImpl asyncService = new LogServiceImpl();
+
+		asyncService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		asyncService.setDataSource(context.getBean(DataSource.class));
+		asyncService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		asyncService.setAsync(true);
+		asyncService.setQueueCapacity(0);
+		asyncService.setQueueOverflow("drop");
+
+		asyncService.debug(log, "test", "text");
+		asyncService.info(log, "test", "text");
+
+		// Warnings and errors are written synchronously
+		checkMessage(asyncService.warn(log, "test", "text"), LogMessage.Type.WARN, "test", "text", new ArrayList<String>());
+
+		asyncService.flush();
+
+		Assert.assertEquals(2, asyncService.getDroppedCount());
+		Assert.assertEquals(1, service.getCount());
+
+		asyncService.setQueueOverflow("sync");
+
+		checkMessage(asyncService.debug(log, "test", "text"), LogMessage.Type.DEBUG, "test", "text", new ArrayList<String>());
+
+		Assert.assertEquals(2, service.getCount());
+
+		asyncService.onPreDestroy();
+	}
+
+	@Test
+	public void testAsyncBatchFailure() throws Exception {
+
+		LogServiceImpl asyncService = new LogServiceImpl();
+
+		asyncService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		asyncService.setDataSource(context.getBean(DataSource.class));
+		asyncService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		asyncService.setAsync(true);
+		asyncService.setBatchSize(10);
+
+		asyncService.debug(null, "test1", "text");
+		asyncService.debug(null, "test2", "text", Arrays.asList("arg1"));
+		asyncService.debug(null, StringUtils.repeat("a", 256), "text");
+		asyncService.debug(null, "test3", "text");
+
+		asyncService.flush();
+
+		// Message that cannot be written does not prevent other messages of the batch from being written
+		Assert.assertEquals(3, service.getCount());
+
+		asyncService.onPreDestroy();
+	}
+
+	@Test
+	public void testSampling() throws Exception {
+
+		// Thread created before sampling is started does not belong to it and can have its own sampling
+		Thread otherThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+
+				LogService.Sampling otherSampling = service.startSampling();
+
+				for (int i = 0; i < 150; i++) {
+					service.debug(log, "other", "text" + i);
+				}
+
+				service.finishSampling(otherSampling);
+			}
+		});
+
+		LogService.Sampling sampling = service.startSampling();
+
+		for (int i = 0; i < 150; i++) {
+			service.debug(log, "sampled", "text" + i);
+		}
+
+		// Thread started by the sampling thread shares its sampling
+		Thread childThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 150; i++) {
+					service.debug(log, "sampled", "text" + i);
+				}
+			}
+		});
+
+		otherThread.start();
+		childThread.start();
+
+		otherThread.join();
+		childThread.join();
+
+		for (int i = 0; i < 50; i++) {
+			service.info(log, "notSampled", "text" + i);
+		}
+
+		// Warnings and errors are never sampled
+		for (int i = 0; i < 150; i++) {
+			service.warn(log, "warning", "text" + i);
+		}
+
+		service.finishSampling(sampling);
+
+		service.flush();
+
+		Assert.assertEquals(402, service.getCount());
+
+		List<LogMessage> messages = service.getByType(LogMessage.Type.INFO, new PageRequest(0, 1000, Sort.Direction.DESC, "id")).getContent();
+
+		checkMessage(messages.get(0), LogMessage.Type.INFO, "logService.messagesSuppressed", messages.get(0).getText(), Arrays.asList("sampled", "200", "100"));
+
+		boolean isOtherReported = false;
+
+		for (LogMessage message : messages) {
+			if (message.getCode().equals("logService.messagesSuppressed") && message.getArguments().get(0).getValue().equals("other")) {
+
+				checkMessage(message, LogMessage.Type.INFO, "logService.messagesSuppressed", message.getText(), Arrays.asList("other", "50", "100"));
+
+				isOtherReported = true;
+			}
+		}
+
+		Assert.assertTrue(isOtherReported);
+
+		// Messages are not sampled after sampling is finished
+		for (int i = 0; i < 150; i++) {
+			service.debug(log, "sampled", "text" + i);
+		}
+
+		service.flush();
+
+		Assert.assertEquals(552, service.getCount());
+	}
+
+	@Test
+	public void testMinimalType() throws Exception {
+
+		LogServiceImpl filteringService = new LogServiceImpl();
+
+		filteringService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		filteringService.setDataSource(context.getBean(DataSource.class));
+		filteringService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		filteringService.setMinimalType("info");
+
+		Assert.assertNull(filteringService.debug(log, "test", "text").getId());
+
+		checkMessage(filteringService.info(log, "test", "text"), LogMessage.Type.INFO, "test", "text", new ArrayList<String>());
+
+		// Synchronous messages are always persisted
+		checkMessage(filteringService.logSync(log, LogMessage.Type.DEBUG, "test", "text", new ArrayList<String>()),
+				LogMessage.Type.DEBUG, "test", "text", new ArrayList<String>());
+
+		Assert.assertEquals(2, service.getCount());
+
+		filteringService.onPreDestroy();
+	}
+
+	@Test
+	public void testCleaning() throws Exception {
+
+		LogServiceImpl cleaningService = new LogServiceImpl();
+
+		cleaningService.setLogMessageDao(context.getBean(LogMessageDao.class));
+		cleaningService.setDataSource(context.getBean(DataSource.class));
+		cleaningService.setTransactionManager(context.getBean(PlatformTransactionManager.class));
+		cleaningService.setMaxAge(1);
+		cleaningService.setMaxCountPerType(10);
+		cleaningService.setCleaningChunkSize(3);
+
+		for (int i = 0; i < 5; i++) {
+			service.debug(log, "old", "text" + i, Arrays.asList("arg" + i));
+		}
+		for (int i = 0; i < 15; i++) {
+			service.debug(log, "new", "text" + i, Arrays.asList("arg" + i));
+		}
+		for (int i = 0; i < 5; i++) {
+			service.info(log, "new", "text" + i, Arrays.asList("arg" + i));
+		}
+
+		service.flush();
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+		jdbcTemplate.update("UPDATE log_message SET date = DATEADD('DAY', -2, date) WHERE code = 'old'");
+
+		cleaningService.cleanMessages();
+
+		// Old messages are deleted by age, then oldest debug messages are deleted by count
+		Assert.assertEquals(15, service.getCount());
+		Assert.assertEquals(15L, (long) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_message_argument", Long.class));
+
+		List<LogMessage> messages = service.getByType(LogMessage.Type.DEBUG, new PageRequest(0, 100, Sort.Direction.ASC, "id")).getContent();
+
+		Assert.assertEquals(15, messages.size());
+		Assert.assertEquals(LogMessage.Type.DEBUG, messages.get(0).getType());
+		Assert.assertEquals("text5", messages.get(0).getText());
+
+		cleaningService.onPreDestroy();
+	}
+
+	@Test
+	public void testSeek() throws Exception {
+
+		for (int i = 0; i < 30; i++) {
+			service.debug(log, "test", "text" + i);
+			service.info(log, "test", "text" + i);
+		}
+
+		service.flush();
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+		// Messages with equal dates are ordered by id
+		jdbcTemplate.update("UPDATE log_message SET date = ? WHERE MOD(id, 3) = 0", new Date(System.currentTimeMillis() - 1000));
+
+		Date minDate = new Date(System.currentTimeMillis() - 60000);
+		Date maxDate = new Date();
+
+		List<LogMessage> expectedMessages = service.getByTypeAndDate(LogMessage.Type.INFO, minDate, maxDate,
+				new PageRequest(0, 100, Sort.Direction.DESC, "date", "id")).getContent();
+
+		List<LogMessage> messages = new ArrayList<>();
+
+		List<LogMessage> page = service.seekByTypeAndDate(LogMessage.Type.INFO, minDate, maxDate, null, null, 7);
+
+		while (page.size() > 0) {
+
+			messages.addAll(page);
+
+			LogMessage lastMessage = page.get(page.size() - 1);
+
+			page = service.seekByTypeAndDate(LogMessage.Type.INFO, minDate, maxDate, lastMessage.getDate(), lastMessage.getId(), 7);
+		}
+
+		Assert.assertEquals(30, service.getCountByTypeAndDate(LogMessage.Type.INFO, minDate, maxDate));
+		Assert.assertEquals(30, expectedMessages.size());
+		Assert.assertEquals(expectedMessages, messages);
+	}
+
 	private void checkMessageWithDetails(LogMessage aMessage, LogMessage.Type aType, String aCode, String aText, List<String> aArguments, String aDetails) {
 
 		checkMessage(aMessage, aType, aCode, aText, aArguments);
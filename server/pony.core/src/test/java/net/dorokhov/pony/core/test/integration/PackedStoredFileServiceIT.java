@@ -0,0 +1,251 @@
+package net.dorokhov.pony.core.test.integration;
+
+import net.dorokhov.pony.core.domain.StoredFile;
+import net.dorokhov.pony.core.storage.StoreFileCommand;
+import net.dorokhov.pony.core.storage.StoredFileService;
+import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PackedStoredFileServiceIT extends AbstractIntegrationCase {
+
+	private static final int FILE_COUNT = 20;
+	private static final int FILE_SIZE = 3000;
+
+	private static final int THREAD_COUNT = 4;
+
+	private static final String SEGMENT_SIZE = "16384";
+
+	private StoredFileService service;
+
+	private File contentFolder;
+
+	// Packing is disabled by default, small segments make them hold only a few files
+	@BeforeClass
+	public static void setUpClass() {
+		System.setProperty("storage.packed", "true");
+		System.setProperty("storage.segmentSize", SEGMENT_SIZE);
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		System.clearProperty("storage.packed");
+		System.clearProperty("storage.segmentSize");
+	}
+
+	@Before
+	public void setUp() throws Exception {
+
+		service = context.getBean(StoredFileService.class);
+
+		contentFolder = Files.createTempDirectory("pony").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(contentFolder);
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+
+		Random random = new Random(0);
+
+		List<StoredFile> storedFiles = new ArrayList<>();
+		List<byte[]> contents = new ArrayList<>();
+
+		for (int i = 0; i < FILE_COUNT; i++) {
+
+			byte[] content = new byte[FILE_SIZE];
+
+			random.nextBytes(content);
+
+			File file = new File(contentFolder, "file" + i);
+
+			storedFiles.add(saveContent(file, content));
+			contents.add(content);
+
+			Assert.assertFalse(file.exists());
+		}
+
+		File segmentsFolder = getSegmentsFolder();
+
+		int segmentCount = getSegmentCount(segmentsFolder);
+
+		// Test configuration makes segments hold only a few files
+		Assert.assertTrue(segmentCount > 2);
+
+		for (int i = 0; i < FILE_COUNT; i++) {
+
+			Assert.assertNull(service.getFile(storedFiles.get(i)));
+			Assert.assertEquals(FILE_SIZE, (long) storedFiles.get(i).getSize());
+
+			checkContent(storedFiles.get(i), contents.get(i));
+		}
+
+		// Delete all files except every fifth
+		for (int i = 0; i < FILE_COUNT; i++) {
+			if (i % 5 != 0) {
+				service.delete(storedFiles.get(i).getId());
+			}
+		}
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while (getSegmentCount(segmentsFolder) >= segmentCount && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+
+		Assert.assertTrue(getSegmentCount(segmentsFolder) < segmentCount);
+
+		Assert.assertEquals(FILE_COUNT / 5, service.getCount());
+
+		for (int i = 0; i < FILE_COUNT; i += 5) {
+			checkContent(service.getById(storedFiles.get(i).getId()), contents.get(i));
+		}
+
+		service.deleteAll();
+
+		Assert.assertEquals(1, getSegmentCount(segmentsFolder));
+	}
+
+	@Test
+	public void testConcurrentCompaction() throws Exception {
+
+		final Map<Long, byte[]> contents = Collections.synchronizedMap(new HashMap<Long, byte[]>());
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < THREAD_COUNT; i++) {
+
+			final int thread = i;
+
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+
+					Random random = new Random(thread);
+
+					try {
+						for (int j = 0; j < FILE_COUNT * 5; j++) {
+
+							byte[] content = new byte[FILE_SIZE];
+
+							random.nextBytes(content);
+
+							StoredFile storedFile = saveContent(new File(contentFolder, "file" + thread + "-" + j), content);
+
+							// Most of the files are deleted right away, segments are compacted while other files are saved
+							if (j % 5 == 0) {
+								contents.put(storedFile.getId(), content);
+							} else {
+								service.delete(storedFile.getId());
+							}
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}));
+		}
+
+		executor.shutdown();
+
+		Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+		for (Future<?> future : futures) {
+			future.get();
+		}
+
+		File segmentsFolder = getSegmentsFolder();
+
+		// Wait until compaction stops changing segments
+		int segmentCount = getSegmentCount(segmentsFolder);
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		do {
+
+			Thread.sleep(500);
+
+			int lastSegmentCount = segmentCount;
+
+			segmentCount = getSegmentCount(segmentsFolder);
+
+			if (segmentCount == lastSegmentCount) {
+				break;
+			}
+
+		} while (System.currentTimeMillis() < deadline);
+
+		Assert.assertEquals(contents.size(), service.getCount());
+
+		for (Map.Entry<Long, byte[]> entry : contents.entrySet()) {
+			checkContent(service.getById(entry.getKey()), entry.getValue());
+		}
+	}
+
+	private StoredFile saveContent(File aFile, byte[] aContent) throws Exception {
+
+		FileUtils.writeByteArrayToFile(aFile, aContent);
+
+		StoreFileCommand command = new StoreFileCommand(StoreFileCommand.Type.MOVE, aFile);
+
+		command.setName(aFile.getName());
+		command.setMimeType("image/png");
+		command.setChecksum(UUID.randomUUID().toString());
+		command.setTag(StoredFile.TAG_ARTWORK_FILE);
+
+		return service.save(command);
+	}
+
+	private File getSegmentsFolder() {
+		return new File(FileUtils.getUserDirectory(), ".pony_test/segments");
+	}
+
+	private int getSegmentCount(File aSegmentsFolder) {
+
+		int count = 0;
+
+		File[] files = aSegmentsFolder.listFiles();
+
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().startsWith("segment-")) {
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	private void checkContent(StoredFile aStoredFile, byte[] aContent) throws Exception {
+
+		InputStream in = service.openStream(aStoredFile);
+
+		try {
+			Assert.assertArrayEquals(aContent, IOUtils.toByteArray(in));
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -4,6 +4,8 @@ import net.dorokhov.pony.core.domain.ScanResult;
 import net.dorokhov.pony.core.domain.ScanType;
 import net.dorokhov.pony.core.library.ScanService;
 import net.dorokhov.pony.core.test.AbstractIntegrationCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,9 +14,11 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.PageRequest;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.Format;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ScanServiceIT extends AbstractIntegrationCase {
@@ -185,6 +189,115 @@ public class ScanServiceIT extends AbstractIntegrationCase {
 		Assert.assertTrue(service.getAll(new PageRequest(0, 1)).getTotalElements() > 0);
 	}
 
+	@Test
+	public void testIncrementalScan() throws Exception {
+
+		List<File> filesToScan = new ArrayList<>();
+
+		filesToScan.add(new ClassPathResource(TEST_FOLDER_PATH).getFile());
+
+		ScanResult scanResult = service.scanIncrementally(filesToScan);
+
+		Assert.assertEquals(ScanType.INCREMENTAL, scanResult.getScanType());
+
+		Assert.assertEquals(Long.valueOf(14), scanResult.getSongCount());
+		Assert.assertEquals(Long.valueOf(14), scanResult.getProcessedSongCount());
+		Assert.assertEquals(Long.valueOf(14), scanResult.getCreatedSongCount());
+
+		resetFlags();
+
+		scanResult = service.scanIncrementally(filesToScan);
+
+		Assert.assertTrue(didCallStart);
+		Assert.assertTrue(didCallFinish);
+		Assert.assertFalse(didCallFail);
+
+		Assert.assertEquals(0, scanResult.getFailedPaths().size());
+
+		Assert.assertEquals(Long.valueOf(5), scanResult.getAlbumCount());
+		Assert.assertEquals(Long.valueOf(14), scanResult.getSongCount());
+		Assert.assertEquals(Long.valueOf(2), scanResult.getArtworkCount());
+
+		Assert.assertEquals(Long.valueOf(0), scanResult.getProcessedSongCount());
+
+		Assert.assertEquals(Long.valueOf(0), scanResult.getCreatedSongCount());
+		Assert.assertEquals(Long.valueOf(0), scanResult.getUpdatedSongCount());
+		Assert.assertEquals(Long.valueOf(0), scanResult.getDeletedSongCount());
+
+		Assert.assertEquals(Long.valueOf(0), scanResult.getCreatedArtworkCount());
+		Assert.assertEquals(Long.valueOf(0), scanResult.getDeletedArtworkCount());
+	}
+
+	@Test
+	public void testIncrementalScanOfParentArtwork() throws Exception {
+
+		File libraryFolder = Files.createTempDirectory("pony").toFile();
+
+		try {
+
+			File albumFolder = new File(libraryFolder, "album");
+
+			FileUtils.copyDirectory(new ClassPathResource(TEST_FOLDER_PATH).getFile(), albumFolder, new SuffixFileFilter(".mp3"));
+
+			ScanResult scanResult = service.scanIncrementally(Arrays.asList(libraryFolder));
+
+			Assert.assertEquals(Long.valueOf(14), scanResult.getSongCount());
+			Assert.assertEquals(Long.valueOf(1), scanResult.getArtworkCount());
+
+			// Artwork added to the parent folder does not modify the song folder, songs without embedded artwork get it
+			FileUtils.copyFile(new ClassPathResource(TEST_FOLDER_PATH + "/cover.png").getFile(), new File(libraryFolder, "cover.png"));
+
+			scanResult = service.scanIncrementally(Arrays.asList(libraryFolder));
+
+			Assert.assertEquals(Long.valueOf(2), scanResult.getArtworkCount());
+			Assert.assertEquals(Long.valueOf(13), scanResult.getUpdatedSongCount());
+
+			// Songs losing removed artwork are imported again
+			Assert.assertTrue(new File(libraryFolder, "cover.png").delete());
+
+			scanResult = service.scanIncrementally(Arrays.asList(libraryFolder));
+
+			Assert.assertEquals(Long.valueOf(1), scanResult.getArtworkCount());
+
+		} finally {
+			FileUtils.deleteDirectory(libraryFolder);
+		}
+	}
+
+	@Test
+	public void testPartialScan() throws Exception {
+
+		List<File> filesToScan = new ArrayList<>();
+
+		filesToScan.add(new ClassPathResource(TEST_FOLDER_PATH).getFile());
+
+		service.scan(filesToScan);
+
+		File emptyFolder = Files.createTempDirectory("pony").toFile();
+
+		try {
+
+			resetFlags();
+
+			ScanResult scanResult = service.scanPartially(Arrays.asList(emptyFolder));
+
+			Assert.assertTrue(didCallFinish);
+
+			Assert.assertEquals(ScanType.PARTIAL, scanResult.getScanType());
+
+			// Songs outside of target folders must not be cleaned
+			Assert.assertEquals(Long.valueOf(14), scanResult.getSongCount());
+			Assert.assertEquals(Long.valueOf(2), scanResult.getArtworkCount());
+
+			Assert.assertEquals(Long.valueOf(0), scanResult.getProcessedSongCount());
+			Assert.assertEquals(Long.valueOf(0), scanResult.getDeletedSongCount());
+			Assert.assertEquals(Long.valueOf(0), scanResult.getDeletedArtworkCount());
+
+		} finally {
+			FileUtils.deleteDirectory(emptyFolder);
+		}
+	}
+
 	private void resetFlags() {
 		didCallStart = false;
 		didCallFinish = false;
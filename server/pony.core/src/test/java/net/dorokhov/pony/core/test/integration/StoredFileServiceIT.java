@@ -10,7 +10,11 @@ import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.PageRequest;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 public class StoredFileServiceIT extends AbstractIntegrationCase {
 
@@ -69,7 +73,74 @@ public class StoredFileServiceIT extends AbstractIntegrationCase {
 		Assert.assertEquals(0, service.getCount());
 	}
 
-	private StoreFileCommand buildCommand(int aIndex) throws Exception{
+	@Test
+	public void testContentAddressing() throws Exception {
+
+		StoredFile storedFile = service.save(buildCommand(1));
+
+		Assert.assertEquals(new File("tag/ch/checksum1.png").getPath(), storedFile.getPath());
+		Assert.assertTrue(service.getFile(storedFile).exists());
+
+		File file = service.getFile(storedFile);
+
+		service.delete(storedFile.getId());
+
+		Assert.assertFalse(file.exists());
+
+		// The same content is saved to the same path again
+		storedFile = service.save(buildCommand(1));
+
+		Assert.assertEquals(file, service.getFile(storedFile));
+		Assert.assertTrue(file.exists());
+
+		// Already stored content is not saved again
+		StoredFile duplicateFile = service.save(buildCommand(1));
+
+		Assert.assertEquals(storedFile.getId(), duplicateFile.getId());
+		Assert.assertTrue(file.exists());
+		Assert.assertEquals(1, service.getCount());
+	}
+
+	@Test
+	public void testConcurrentDuplicates() throws Exception {
+
+		final List<StoredFile> storedFiles = Collections.synchronizedList(new ArrayList<StoredFile>());
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+
+		List<Thread> threads = new ArrayList<>();
+
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						storedFiles.add(service.save(buildCommand(1)));
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(0, errors.size());
+		Assert.assertEquals(4, storedFiles.size());
+
+		for (StoredFile storedFile : storedFiles) {
+			Assert.assertEquals(storedFiles.get(0).getId(), storedFile.getId());
+		}
+
+		Assert.assertEquals(1, service.getCount());
+		Assert.assertTrue(service.getFile(storedFiles.get(0)).exists());
+	}
+
+	private StoreFileCommand buildCommand(int aIndex) throws Exception {
 
 		StoreFileCommand command = new StoreFileCommand(StoreFileCommand.Type.COPY, new ClassPathResource(TEST_FILE_PATH).getFile());
 
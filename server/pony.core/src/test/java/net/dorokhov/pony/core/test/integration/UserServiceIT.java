@@ -9,6 +9,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class UserServiceIT extends AbstractIntegrationCase {
 
@@ -328,6 +332,38 @@ public class UserServiceIT extends AbstractIntegrationCase {
 		Assert.assertTrue(isExceptionThrown);
 	}
 
+	@Test
+	public void testSeek() throws Exception {
+
+		for (int i = 1; i <= 10; i++) {
+
+			User user = buildUser(i);
+
+			// Some users have the same name
+			user.setName("Test" + (i % 4));
+
+			userService.create(user);
+		}
+
+		List<User> expectedUsers = userService.getAll(new PageRequest(0, 100, Sort.Direction.ASC, "name", "id")).getContent();
+
+		List<User> users = new ArrayList<>();
+
+		List<User> page = userService.seekAll(null, null, 3);
+
+		while (page.size() > 0) {
+
+			users.addAll(page);
+
+			User lastUser = page.get(page.size() - 1);
+
+			page = userService.seekAll(lastUser.getName(), lastUser.getId(), 3);
+		}
+
+		Assert.assertEquals(10, userService.getCount());
+		Assert.assertEquals(expectedUsers, users);
+	}
+
 	private void checkUser(User aUser, int aIndex) {
 
 		Assert.assertNotNull(aUser.getId());
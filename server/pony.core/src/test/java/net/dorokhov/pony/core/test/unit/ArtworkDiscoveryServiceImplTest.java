@@ -154,6 +154,36 @@ public class ArtworkDiscoveryServiceImplTest {
 		Assert.assertNull(artwork);
 	}
 
+	@Test
+	public void testCaching() throws Exception {
+
+		File testImage = new ClassPathResource(TEST_FILE_PATH).getFile();
+
+		TEST_FOLDER.mkdir();
+
+		FileUtils.touch(new File(TEST_FOLDER, "song1.mp3"));
+		FileUtils.touch(new File(TEST_FOLDER, "song2.mp3"));
+
+		artworkDiscoveryService.startCaching();
+
+		try {
+
+			Assert.assertNull(artworkDiscoveryService.discoverArtwork(getChildSongByName(fileScanService.scanFolder(TEST_FOLDER), "song1.mp3")));
+
+			FileUtils.copyFile(testImage, new File(TEST_FOLDER, "cover.png"));
+
+			// Folder without artwork is cached as well
+			Assert.assertNull(artworkDiscoveryService.discoverArtwork(getChildSongByName(fileScanService.scanFolder(TEST_FOLDER), "song2.mp3")));
+
+		} finally {
+			artworkDiscoveryService.stopCaching();
+		}
+
+		LibraryImage artwork = artworkDiscoveryService.discoverArtwork(getChildSongByName(fileScanService.scanFolder(TEST_FOLDER), "song2.mp3"));
+
+		Assert.assertEquals("cover.png", artwork.getFile().getName());
+	}
+
 	@Test
 	public void testConfiguration() {
 
@@ -0,0 +1,90 @@
+package net.dorokhov.pony.core.test.unit;
+
+import net.dorokhov.pony.core.library.DiskLocalityServiceImpl;
+import net.dorokhov.pony.core.library.FileScanServiceImpl;
+import net.dorokhov.pony.core.file.FileTypeServiceImpl;
+import net.dorokhov.pony.core.image.ImageSizeReaderImpl;
+import net.dorokhov.pony.core.library.file.LibrarySong;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DiskLocalityServiceImplTest {
+
+	private static final File TEST_FOLDER = new File(FileUtils.getTempDirectory(), "DiskLocalityServiceImplTest");
+
+	private FileScanServiceImpl fileScanService;
+
+	private DiskLocalityServiceImpl service;
+
+	@Before
+	public void setUp() throws Exception {
+
+		fileScanService = new FileScanServiceImpl();
+		fileScanService.setFileTypeService(new FileTypeServiceImpl());
+		fileScanService.setImageSizeReader(new ImageSizeReaderImpl());
+
+		service = new DiskLocalityServiceImpl();
+
+		FileUtils.deleteDirectory(TEST_FOLDER);
+
+		TEST_FOLDER.mkdir();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(TEST_FOLDER);
+	}
+
+	@Test
+	public void testSorting() throws Exception {
+
+		// Names are in reverse order of creation, so that name order usually differs from inode order
+		for (int i = 0; i < 10; i++) {
+			FileUtils.touch(new File(TEST_FOLDER, "song" + (9 - i) + ".mp3"));
+		}
+
+		List<LibrarySong> songs = service.sortByLocation(fileScanService.scanFolder(TEST_FOLDER).getChildSongs());
+
+		Assert.assertEquals(10, songs.size());
+
+		boolean isUnix = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+		List<Long> inodes = new ArrayList<>();
+
+		for (int i = 0; i < songs.size(); i++) {
+
+			if (isUnix) {
+
+				inodes.add((Long) Files.getAttribute(songs.get(i).getFile().toPath(), "unix:ino"));
+
+				if (i > 0) {
+					Assert.assertTrue(inodes.get(i - 1) <= inodes.get(i));
+				}
+
+			} else if (i > 0) {
+				Assert.assertTrue(songs.get(i - 1).getFile().getAbsolutePath().compareTo(songs.get(i).getFile().getAbsolutePath()) < 0);
+			}
+		}
+	}
+
+	@Test
+	public void testDeviceKey() throws Exception {
+
+		File file = new File(TEST_FOLDER, "song.mp3");
+
+		FileUtils.touch(file);
+
+		Assert.assertNotNull(service.getDeviceKey(file));
+		Assert.assertEquals(service.getDeviceKey(TEST_FOLDER), service.getDeviceKey(file));
+	}
+
+}
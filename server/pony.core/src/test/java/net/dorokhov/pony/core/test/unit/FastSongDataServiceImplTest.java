@@ -0,0 +1,212 @@
+package net.dorokhov.pony.core.test.unit;
+
+import net.dorokhov.pony.core.audio.FastSongDataServiceImpl;
+import net.dorokhov.pony.core.audio.SongDataService;
+import net.dorokhov.pony.core.audio.SongDataServiceImpl;
+import net.dorokhov.pony.core.audio.data.SongDataReadable;
+import net.dorokhov.pony.core.audio.data.SongDataWritable;
+import net.dorokhov.pony.core.file.ChecksumServiceImpl;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FastSongDataServiceImplTest {
+
+	private static final String TEST_MP3_PATH = "data/Metallica-Battery-with_artwork.mp3"; // ID3v2.4
+	private static final String TEST_LIBRARY_PATH = "data/library"; // ID3v2.3
+	private static final String TEST_IMAGE_PATH = "data/image.png";
+
+	private static final File TEST_FOLDER = new File(FileUtils.getTempDirectory(), "FastSongDataServiceImplTest");
+
+	private static final int CORPUS_SIZE = 60;
+
+	private SongDataServiceImpl jaudiotaggerService;
+
+	private FastSongDataServiceImpl service;
+
+	private List<File> corpus;
+
+	// Files rewritten by jaudiotagger have no surprises, source files are allowed to fall back to jaudiotagger
+	private List<File> writtenCorpus;
+
+	@Before
+	public void setUp() throws Exception {
+
+		SLF4JBridgeHandler.removeHandlersForRootLogger();
+		SLF4JBridgeHandler.install();
+
+		jaudiotaggerService = new SongDataServiceImpl();
+		jaudiotaggerService.setChecksumService(new ChecksumServiceImpl());
+
+		service = new FastSongDataServiceImpl();
+		service.setChecksumService(new ChecksumServiceImpl());
+
+		FileUtils.deleteDirectory(TEST_FOLDER);
+
+		TEST_FOLDER.mkdir();
+
+		writtenCorpus = new ArrayList<>();
+
+		corpus = buildCorpus(TEST_FOLDER, CORPUS_SIZE, jaudiotaggerService, writtenCorpus);
+	}
+
+	/**
+	 * Copies test songs to the folder and writes its own combination of tags to every copy except the first ones.
+	 */
+	public static List<File> buildCorpus(File aFolder, int aSize, SongDataService aWriter, List<File> aWrittenFiles) throws Exception {
+
+		File image = new File(aFolder, "image.png");
+
+		FileUtils.copyFile(new ClassPathResource(TEST_IMAGE_PATH).getFile(), image);
+
+		List<File> sources = new ArrayList<>(FileUtils.listFiles(new ClassPathResource(TEST_LIBRARY_PATH).getFile(), new String[] {"mp3"}, false));
+
+		sources.add(new ClassPathResource(TEST_MP3_PATH).getFile());
+
+		List<File> files = new ArrayList<>();
+
+		for (int i = 0; i < aSize; i++) {
+
+			File file = new File(aFolder, "song" + i + ".mp3");
+
+			FileUtils.copyFile(sources.get(i % sources.size()), file);
+
+			// Every file gets its own combination of tags
+			if (i >= sources.size()) {
+
+				SongDataWritable songData = new SongDataWritable();
+
+				songData.setTitle(i % 3 == 0 ? "Песня " + i : "Song " + i);
+				songData.setArtist(i % 4 == 0 ? null : "Artist " + (i % 5));
+				songData.setAlbumArtist(i % 2 == 0 ? "Album Artist " + (i % 5) : null);
+				songData.setAlbum(" Album " + (i % 7) + " ");
+				songData.setYear(i % 5 == 0 ? null : 1980 + i);
+				songData.setGenre(i % 6 == 0 ? null : "Genre " + (i % 3));
+				songData.setTrackNumber(i % 10 + 1);
+				songData.setTrackCount(i % 3 == 0 ? null : 10);
+				songData.setDiscNumber(i % 4 == 0 ? null : 1);
+				songData.setDiscCount(i % 8 == 0 ? 2 : null);
+				songData.setArtwork(i % 2 == 0 ? image : null);
+
+				aWriter.write(file, songData);
+
+				aWrittenFiles.add(file);
+			}
+
+			files.add(file);
+		}
+
+		return files;
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(TEST_FOLDER);
+	}
+
+	@Test
+	public void testReading() throws Exception {
+
+		for (File file : writtenCorpus) {
+			Assert.assertNotNull("File [" + file.getName() + "] must be read without jaudiotagger.", service.readFast(file));
+		}
+
+		for (File file : corpus) {
+			Assert.assertEquals(jaudiotaggerService.read(file).toString(), service.read(file).toString());
+		}
+	}
+
+	@Test
+	public void testArtworkReading() throws Exception {
+
+		int artworkCount = 0;
+
+		for (File file : writtenCorpus) {
+
+			SongDataReadable songData = service.readFast(file);
+
+			if (songData.getArtwork() != null) {
+
+				Assert.assertNotNull(songData.getArtwork().getOffset());
+
+				byte[] artwork = service.readArtwork(file, songData.getArtwork());
+
+				Assert.assertEquals(songData.getArtwork().getChecksum(), new ChecksumServiceImpl().calculateChecksum(artwork));
+				Assert.assertArrayEquals(jaudiotaggerService.readArtwork(file, songData.getArtwork().getChecksum()), artwork);
+
+				// Position is not trusted after the file has been modified, artwork is read and verified by jaudiotagger
+				Assert.assertTrue(file.setLastModified(file.lastModified() - 10000));
+				Assert.assertArrayEquals(artwork, service.readArtwork(file, songData.getArtwork()));
+
+				artworkCount++;
+			}
+		}
+
+		Assert.assertTrue(artworkCount > 0);
+	}
+
+	@Test
+	public void testLargeArtwork() throws Exception {
+
+		BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+
+		Random random = new Random(1);
+
+		// Noise is not compressed, so that the artwork is much bigger than the tag window
+		for (int x = 0; x < image.getWidth(); x++) {
+			for (int y = 0; y < image.getHeight(); y++) {
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+
+		File imageFile = new File(TEST_FOLDER, "large.png");
+
+		ImageIO.write(image, "png", imageFile);
+
+		File file = writtenCorpus.get(0);
+
+		SongDataWritable command = new SongDataWritable();
+
+		command.setTitle("Large Artwork");
+		command.setArtwork(imageFile);
+
+		jaudiotaggerService.write(file, command);
+
+		SongDataReadable songData = service.readFast(file);
+
+		Assert.assertNotNull(songData);
+		Assert.assertEquals(jaudiotaggerService.read(file).toString(), songData.toString());
+		Assert.assertEquals(imageFile.length(), (long) songData.getArtwork().getSize());
+		Assert.assertArrayEquals(FileUtils.readFileToByteArray(imageFile), service.readArtwork(file, songData.getArtwork()));
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+
+		File file = new File(TEST_FOLDER, "untagged.mp3");
+
+		byte[] data = FileUtils.readFileToByteArray(new ClassPathResource(TEST_MP3_PATH).getFile());
+
+		// Cut off ID3v2 tag
+		int tagSize = ((data[6] & 0x7F) << 21) | ((data[7] & 0x7F) << 14) | ((data[8] & 0x7F) << 7) | (data[9] & 0x7F);
+
+		FileUtils.writeByteArrayToFile(file, Arrays.copyOfRange(data, 10 + tagSize, data.length));
+
+		Assert.assertNull(service.readFast(file));
+
+		Assert.assertEquals(jaudiotaggerService.read(file).toString(), service.read(file).toString());
+	}
+
+}
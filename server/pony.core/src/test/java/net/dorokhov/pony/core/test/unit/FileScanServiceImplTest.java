@@ -1,6 +1,7 @@
 package net.dorokhov.pony.core.test.unit;
 
 import net.dorokhov.pony.core.audio.SongDataServiceImpl;
+import net.dorokhov.pony.core.library.FileScanService;
 import net.dorokhov.pony.core.library.FileScanServiceImpl;
 import net.dorokhov.pony.core.file.ChecksumServiceImpl;
 import net.dorokhov.pony.core.file.FileTypeServiceImpl;
@@ -19,7 +20,10 @@ import org.springframework.core.io.ClassPathResource;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FileScanServiceImplTest {
 
@@ -38,7 +42,7 @@ public class FileScanServiceImplTest {
 
 		songDataService.setChecksumService(new ChecksumServiceImpl());
 
-		service = new FileScanServiceImpl();
+		service = createService();
 		service.setFileTypeService(new FileTypeServiceImpl());
 		service.setImageSizeReader(new ImageSizeReaderImpl());
 		service.setChecksumService(new ChecksumServiceImpl());
@@ -46,6 +50,10 @@ public class FileScanServiceImplTest {
 		FileUtils.deleteDirectory(TEST_FOLDER);
 	}
 
+	protected FileScanServiceImpl createService() {
+		return new FileScanServiceImpl();
+	}
+
 	@After
 	public void tearDown() throws Exception {
 		FileUtils.deleteDirectory(TEST_FOLDER);
@@ -119,6 +127,74 @@ public class FileScanServiceImplTest {
 		Assert.assertTrue(isExceptionThrown);
 	}
 
+	@Test
+	public void testStreamingScanFolder() throws Exception {
+
+		createTestFileTree();
+
+		final List<String> folderNames = Collections.synchronizedList(new ArrayList<String>());
+		final List<String> songFiles = Collections.synchronizedList(new ArrayList<String>());
+
+		service.scanFolder(TEST_FOLDER, new FileScanService.Delegate() {
+			@Override
+			public void onFolderScanFinish(LibraryFolder aFolder) {
+
+				for (LibraryFolder childFolder : aFolder.getChildFolders()) {
+					Assert.assertTrue(folderNames.contains(childFolder.getFile().getName()));
+				}
+
+				for (LibrarySong song : aFolder.getChildSongs()) {
+					songFiles.add(song.getFile().getName());
+				}
+
+				folderNames.add(aFolder.getFile().getName());
+			}
+		});
+
+		Assert.assertEquals(4, folderNames.size());
+		Assert.assertEquals(TEST_FOLDER.getName(), folderNames.get(folderNames.size() - 1));
+
+		Assert.assertEquals(3, songFiles.size());
+		Assert.assertTrue(songFiles.containsAll(Arrays.asList("song-01.mp3", "song-02.mp3", "song-03.mp3")));
+	}
+
+	@Test
+	public void testStreamingScanFolderRelease() throws Exception {
+
+		createTestFileTree();
+
+		final Map<String, LibraryFolder> folders = new ConcurrentHashMap<>();
+
+		service.scanFolder(TEST_FOLDER, new FileScanService.Delegate() {
+			@Override
+			public void onFolderScanFinish(LibraryFolder aFolder) {
+
+				folders.put(aFolder.getFile().getName(), aFolder);
+
+				if (aFolder.getFile().getName().equals("album-01")) {
+					service.holdFolder(aFolder);
+				}
+			}
+		});
+
+		LibraryFolder root = folders.get(TEST_FOLDER.getName());
+		LibraryFolder artist = folders.get("artist");
+		LibraryFolder album01 = folders.get("album-01");
+		LibraryFolder album02 = folders.get("album-02");
+
+		// Held folder keeps its parent folders, other folders are released
+		Assert.assertEquals(1, root.getChildFolders().size());
+		Assert.assertEquals(2, artist.getChildFolders().size());
+		Assert.assertEquals(1, album01.getChildImages().size());
+		Assert.assertEquals(0, album02.getChildImages().size());
+
+		service.releaseFolder(album01);
+
+		Assert.assertEquals(0, root.getChildFolders().size());
+		Assert.assertEquals(0, artist.getChildFolders().size());
+		Assert.assertEquals(0, album01.getChildImages().size());
+	}
+
 	private void doTestRoot(LibraryFolder aFolder) throws Exception {
 
 		Assert.assertNotNull(aFolder.getFile());
@@ -0,0 +1,18 @@
+package net.dorokhov.pony.core.test.unit;
+
+import net.dorokhov.pony.core.library.FileScanServiceImpl;
+import net.dorokhov.pony.core.library.ParallelFileScanServiceImpl;
+
+public class ParallelFileScanServiceImplTest extends FileScanServiceImplTest {
+
+	@Override
+	protected FileScanServiceImpl createService() {
+
+		ParallelFileScanServiceImpl service = new ParallelFileScanServiceImpl();
+
+		service.setScanParallelism(4);
+
+		return service;
+	}
+
+}
@@ -0,0 +1,100 @@
+package net.dorokhov.pony.core.test.unit;
+
+import net.dorokhov.pony.core.common.PipelineStage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PipelineStageTest {
+
+	@Test
+	public void testStreaming() throws Exception {
+
+		final CountDownLatch firstItemLatch = new CountDownLatch(1);
+
+		final AtomicInteger processedCount = new AtomicInteger();
+		final AtomicBoolean isStreamed = new AtomicBoolean();
+
+		PipelineStage<Integer, Void> nextStage = new PipelineStage<>("test-next", 1, 10, new PipelineStage.Handler<Integer, Void>() {
+			@Override
+			public Void process(Integer aItem) throws Exception {
+
+				processedCount.incrementAndGet();
+
+				firstItemLatch.countDown();
+
+				return null;
+			}
+		});
+
+		PipelineStage<Integer, Integer> stage = new PipelineStage<>("test", 1, 10, 1, new PipelineStage.StreamHandler<Integer, Integer>() {
+			@Override
+			public void process(List<Integer> aItems, PipelineStage.Output<Integer> aOutput) throws Exception {
+				for (Integer item : aItems) {
+
+					aOutput.put(item);
+
+					// First item must reach the next stage before the batch is processed
+					isStreamed.set(firstItemLatch.await(10, TimeUnit.SECONDS));
+
+					aOutput.put(item + 1);
+				}
+			}
+		}, nextStage);
+
+		stage.put(1);
+		stage.finish();
+
+		Assert.assertTrue(isStreamed.get());
+		Assert.assertEquals(2, processedCount.get());
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+
+		PipelineStage<Integer, Void> nextStage = new PipelineStage<>("test-next", 2, 1, new PipelineStage.Handler<Integer, Void>() {
+			@Override
+			public Void process(Integer aItem) throws Exception {
+				throw new Error("Test error.");
+			}
+		});
+
+		PipelineStage<Integer, Integer> stage = new PipelineStage<>("test", 1, 1, new PipelineStage.Handler<Integer, Integer>() {
+			@Override
+			public Integer process(Integer aItem) throws Exception {
+				return aItem;
+			}
+		}, nextStage);
+
+		boolean isExceptionThrown = false;
+
+		// Failure of the next stage is propagated instead of blocking forever
+		try {
+			for (int i = 0; i < 100; i++) {
+				stage.put(i);
+			}
+		} catch (RuntimeException e) {
+			isExceptionThrown = true;
+		}
+
+		Assert.assertTrue(isExceptionThrown);
+		Assert.assertTrue(nextStage.isFailed());
+		Assert.assertTrue(stage.isFailed());
+
+		isExceptionThrown = false;
+
+		try {
+			stage.finish();
+		} catch (RuntimeException e) {
+			isExceptionThrown = true;
+		}
+
+		Assert.assertTrue(isExceptionThrown);
+	}
+
+}
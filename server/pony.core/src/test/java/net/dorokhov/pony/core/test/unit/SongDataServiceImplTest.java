@@ -65,6 +65,27 @@ public class SongDataServiceImplTest {
 		Assert.assertTrue(isExceptionThrown);
 	}
 
+	@Test
+	public void testArtworkReading() throws Exception {
+
+		SongDataReadable songData = service.read(TEST_MP3_FILE);
+
+		byte[] artwork = service.readArtwork(TEST_MP3_FILE, songData.getArtwork().getChecksum());
+
+		Assert.assertEquals(songData.getArtwork().getSize(), Long.valueOf(artwork.length));
+		Assert.assertEquals(songData.getArtwork().getChecksum(), new ChecksumServiceImpl().calculateChecksum(artwork));
+
+		boolean isExceptionThrown = false;
+
+		try {
+			service.readArtwork(TEST_MP3_FILE, "otherChecksum");
+		} catch (Exception e) {
+			isExceptionThrown = true;
+		}
+
+		Assert.assertTrue(isExceptionThrown);
+	}
+
 	@Test
 	public void testWriting() throws Exception {
 
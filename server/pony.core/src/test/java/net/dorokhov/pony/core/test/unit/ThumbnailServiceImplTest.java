@@ -9,13 +9,20 @@ import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ThumbnailServiceImplTest {
 
 	private static final String TEST_FILE_PATH = "data/image.png"; // red picture 90x100
 	private static final File TEST_TARGET_FILE = new File(FileUtils.getTempDirectory(), "ImageScalingServiceImplTest.jpg");
+	private static final File TEST_LARGE_FILE = new File(FileUtils.getTempDirectory(), "ImageScalingServiceImplTest-large.png");
 	private static final int TEST_TARGET_WIDTH = 50;
 	private static final int TEST_TARGET_HEIGHT = 50;
 
@@ -32,6 +39,7 @@ public class ThumbnailServiceImplTest {
 	@After
 	public void tearDown() {
 		TEST_TARGET_FILE.delete();
+		TEST_LARGE_FILE.delete();
 	}
 
 	@Test
@@ -51,6 +59,70 @@ public class ThumbnailServiceImplTest {
 		checkTargetImageSize();
 	}
 
+	@Test
+	public void testSubsampling() throws Exception {
+
+		service.setImageWidth(140);
+		service.setImageHeight(140);
+
+		// Budget is smaller than a single subsampled image, so that decoding must be serialized instead of deadlocking
+		service.setPixelBudget(1000);
+
+		BufferedImage sourceImage = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D graphics = sourceImage.createGraphics();
+
+		graphics.setColor(Color.RED);
+		graphics.fillRect(0, 0, 1500, 2000);
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(1500, 0, 1500, 2000);
+		graphics.dispose();
+
+		ImageIO.write(sourceImage, "png", TEST_LARGE_FILE);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++) {
+
+				final File targetFile = new File(FileUtils.getTempDirectory(), "ImageScalingServiceImplTest-" + i + ".png");
+
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+
+							service.makeThumbnail(TEST_LARGE_FILE, targetFile);
+
+							BufferedImage targetImage = ImageIO.read(targetFile);
+
+							Assert.assertEquals(140, targetImage.getWidth());
+							Assert.assertEquals(93, targetImage.getHeight());
+
+							Assert.assertEquals(Color.RED.getRGB(), targetImage.getRGB(10, 46));
+							Assert.assertEquals(Color.BLUE.getRGB(), targetImage.getRGB(130, 46));
+
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						} finally {
+							targetFile.delete();
+						}
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testConfiguration() {
 
@@ -68,6 +140,20 @@ public class ThumbnailServiceImplTest {
 		}
 
 		Assert.assertTrue(isExceptionThrown);
+
+		service.setPixelBudget(1000);
+
+		Assert.assertEquals(1000, service.getPixelBudget());
+
+		isExceptionThrown = false;
+
+		try {
+			service.setPixelBudget(0);
+		} catch (Exception e) {
+			isExceptionThrown = true;
+		}
+
+		Assert.assertTrue(isExceptionThrown);
 	}
 
 	private void checkTargetImageSize() throws Exception{
@@ -34,7 +34,7 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 
 		public String getPagerLabel(PagedListDto<S> aPagedList);
 
-		public OperationRequest requestPagedList(int aPageNumber, OperationCallback<PagedListDto<S>> aCallback);
+		public OperationRequest requestPagedList(int aPageNumber, String aCursor, OperationCallback<PagedListDto<S>> aCallback);
 
 	}
 
@@ -75,6 +75,9 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 
 	private PagedListDto<T> data;
 
+	// Cursors of visited pages, index is a page number, first page has no cursor
+	private final List<String> cursors = new ArrayList<>();
+
 	private OperationRequest currentRequest;
 
 	public PagedListView(DataSource<T> aDataSource) {
@@ -135,6 +138,9 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 	}
 
 	public void reload() {
+
+		cursors.clear();
+
 		reload(0);
 	}
 
@@ -170,13 +176,23 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 			currentRequest.cancel();
 		}
 
-		currentRequest = dataSource.requestPagedList(aPageNumber, new OperationCallback<PagedListDto<T>>() {
+		final String cursor = aPageNumber < cursors.size() ? cursors.get(aPageNumber) : null;
+
+		currentRequest = dataSource.requestPagedList(aPageNumber, cursor, new OperationCallback<PagedListDto<T>>() {
 
 			@Override
 			public void onSuccess(PagedListDto<T> aPage) {
 
 				currentRequest = null;
 
+				// Total is counted only for the first page
+				if (aPage.getTotalElements() < 0 && data != null) {
+					aPage.setTotalElements(data.getTotalElements());
+					aPage.setTotalPages(data.getTotalPages());
+				}
+
+				updateCursors(aPage);
+
 				setData(aPage);
 
 				setState(State.LOADED);
@@ -192,6 +208,21 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 		});
 	}
 
+	private void updateCursors(PagedListDto<T> aPage) {
+
+		while (cursors.size() <= aPage.getPageNumber()) {
+			cursors.add(null);
+		}
+
+		while (cursors.size() > aPage.getPageNumber() + 1) {
+			cursors.remove(cursors.size() - 1);
+		}
+
+		if (aPage.getNextCursor() != null) {
+			cursors.add(aPage.getNextCursor());
+		}
+	}
+
 	private void setState(State aState) {
 
 		state = aState;
@@ -208,7 +239,7 @@ public class PagedListView<T> extends Composite implements HasWidgets {
 			grid.setRowData(data.getContent());
 
 			getPagerPrevious(pager).setEnabled(data.getPageNumber() > 0);
-			getPagerNext(pager).setEnabled(data.getPageNumber() < data.getTotalPages() - 1);
+			getPagerNext(pager).setEnabled(data.getNextCursor() != null || data.getPageNumber() < data.getTotalPages() - 1);
 
 			pagerLabel.setText(dataSource.getPagerLabel(data));
 
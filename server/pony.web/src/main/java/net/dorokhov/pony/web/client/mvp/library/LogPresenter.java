@@ -43,8 +43,8 @@ public class LogPresenter extends PresenterWidget<LogPresenter.MyView> implement
 	}
 
 	@Override
-	public OperationRequest onLogMessagesRequested(int aPageNumber, final OperationCallback<PagedListDto<LogMessageDto>> aCallback) {
-		return logService.getLog(aPageNumber, getView().getType(), getView().getMinDate(), getView().getMaxDate(), new OperationCallback<PagedListDto<LogMessageDto>>() {
+	public OperationRequest onLogMessagesRequested(int aPageNumber, String aCursor, final OperationCallback<PagedListDto<LogMessageDto>> aCallback) {
+		return logService.getLog(aPageNumber, aCursor, getView().getType(), getView().getMinDate(), getView().getMaxDate(), new OperationCallback<PagedListDto<LogMessageDto>>() {
 
 			@Override
 			public void onSuccess(PagedListDto<LogMessageDto> aPage) {
@@ -8,6 +8,6 @@ import net.dorokhov.pony.web.shared.PagedListDto;
 
 public interface LogUiHandlers extends UiHandlers {
 
-	public OperationRequest onLogMessagesRequested(int aPageNumber, OperationCallback<PagedListDto<LogMessageDto>> aCallback);
+	public OperationRequest onLogMessagesRequested(int aPageNumber, String aCursor, OperationCallback<PagedListDto<LogMessageDto>> aCallback);
 
 }
@@ -219,8 +219,8 @@ public class LogView extends ModalViewWithUiHandlers<LogUiHandlers> implements L
 			}
 
 			@Override
-			public OperationRequest requestPagedList(int aPageNumber, OperationCallback<PagedListDto<LogMessageDto>> aCallback) {
-				return getUiHandlers().onLogMessagesRequested(aPageNumber, aCallback);
+			public OperationRequest requestPagedList(int aPageNumber, String aCursor, OperationCallback<PagedListDto<LogMessageDto>> aCallback) {
+				return getUiHandlers().onLogMessagesRequested(aPageNumber, aCursor, aCallback);
 			}
 		});
 	}
@@ -86,8 +86,8 @@ public class ScanningPresenter extends PresenterWidget<ScanningPresenter.MyView>
 	}
 
 	@Override
-	public OperationRequest onScanJobsRequested(int aPageNumber, final OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
-		return scanJobService.getScanJobs(aPageNumber, new OperationCallback<PagedListDto<ScanJobDto>>() {
+	public OperationRequest onScanJobsRequested(int aPageNumber, String aCursor, final OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
+		return scanJobService.getScanJobs(aPageNumber, aCursor, new OperationCallback<PagedListDto<ScanJobDto>>() {
 
 			@Override
 			public void onSuccess(PagedListDto<ScanJobDto> aPage) {
@@ -8,7 +8,7 @@ import net.dorokhov.pony.web.shared.ScanJobDto;
 
 public interface ScanningUiHandlers extends UiHandlers {
 
-	public OperationRequest onScanJobsRequested(int aPageNumber, OperationCallback<PagedListDto<ScanJobDto>> aCallback);
+	public OperationRequest onScanJobsRequested(int aPageNumber, String aCursor, OperationCallback<PagedListDto<ScanJobDto>> aCallback);
 
 	public void onScanRequested();
 
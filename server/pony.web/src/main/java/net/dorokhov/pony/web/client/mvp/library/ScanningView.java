@@ -238,8 +238,8 @@ public class ScanningView extends ModalViewWithUiHandlers<ScanningUiHandlers> im
 			}
 
 			@Override
-			public OperationRequest requestPagedList(int aPageNumber, OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
-				return getUiHandlers().onScanJobsRequested(aPageNumber, aCallback);
+			public OperationRequest requestPagedList(int aPageNumber, String aCursor, OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
+				return getUiHandlers().onScanJobsRequested(aPageNumber, aCursor, aCallback);
 			}
 		});
 	}
@@ -61,8 +61,8 @@ public class UserListPresenter extends PresenterWidget<UserListPresenter.MyView>
 	}
 
 	@Override
-	public OperationRequest onUsersRequested(int aPageNumber, final OperationCallback<PagedListDto<UserDto>> aCallback) {
-		return userService.getUsers(aPageNumber, new OperationCallback<PagedListDto<UserDto>>() {
+	public OperationRequest onUsersRequested(int aPageNumber, String aCursor, final OperationCallback<PagedListDto<UserDto>> aCallback) {
+		return userService.getUsers(aPageNumber, aCursor, new OperationCallback<PagedListDto<UserDto>>() {
 
 			@Override
 			public void onSuccess(PagedListDto<UserDto> aPage) {
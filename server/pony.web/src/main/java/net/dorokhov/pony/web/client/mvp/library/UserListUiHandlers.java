@@ -8,7 +8,7 @@ import net.dorokhov.pony.web.shared.UserDto;
 
 public interface UserListUiHandlers extends UiHandlers {
 
-	public OperationRequest onUsersRequested(int aPageNumber, OperationCallback<PagedListDto<UserDto>> aCallback);
+	public OperationRequest onUsersRequested(int aPageNumber, String aCursor, OperationCallback<PagedListDto<UserDto>> aCallback);
 
 	public boolean isCurrentUser(UserDto aUser);
 
@@ -208,8 +208,8 @@ public class UserListView extends ModalViewWithUiHandlers<UserListUiHandlers> im
 			}
 
 			@Override
-			public OperationRequest requestPagedList(int aPageNumber, OperationCallback<PagedListDto<UserDto>> aCallback) {
-				return getUiHandlers().onUsersRequested(aPageNumber, aCallback);
+			public OperationRequest requestPagedList(int aPageNumber, String aCursor, OperationCallback<PagedListDto<UserDto>> aCallback) {
+				return getUiHandlers().onUsersRequested(aPageNumber, aCursor, aCallback);
 			}
 		});
 	}
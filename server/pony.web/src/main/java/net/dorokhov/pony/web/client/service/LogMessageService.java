@@ -25,12 +25,12 @@ public class LogMessageService {
 		apiService = aApiService;
 	}
 
-	public OperationRequest getLog(int aPageNumber, LogMessageDto.Type aType, Date aMinDate, Date aMaxDate,
+	public OperationRequest getLog(int aPageNumber, String aCursor, LogMessageDto.Type aType, Date aMinDate, Date aMaxDate,
 								   final OperationCallback<PagedListDto<LogMessageDto>> aCallback) {
 
 		log.info("Getting log messages page [" + aPageNumber + "]...");
 
-		return new RequestAdapter(apiService.getLog(aPageNumber, aType, aMinDate != null ? aMinDate.getTime() : null, aMaxDate != null ? aMaxDate.getTime() : null,
+		return new RequestAdapter(apiService.getLog(aPageNumber, aCursor, aCursor == null, aType, aMinDate != null ? aMinDate.getTime() : null, aMaxDate != null ? aMaxDate.getTime() : null,
 				new MethodCallbackAdapter<>(new OperationCallback<PagedListDto<LogMessageDto>>() {
 					@Override
 					public void onSuccess(PagedListDto<LogMessageDto> aPage) {
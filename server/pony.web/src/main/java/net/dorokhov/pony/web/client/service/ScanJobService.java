@@ -24,11 +24,11 @@ public class ScanJobService {
 		apiService = aApiService;
 	}
 
-	public OperationRequest getScanJobs(int aPageNumber, final OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
+	public OperationRequest getScanJobs(int aPageNumber, String aCursor, final OperationCallback<PagedListDto<ScanJobDto>> aCallback) {
 
 		log.info("Getting scan jobs page [" + aPageNumber + "]...");
 
-		return new RequestAdapter(apiService.getScanJobs(aPageNumber, new MethodCallbackAdapter<>(new OperationCallback<PagedListDto<ScanJobDto>>() {
+		return new RequestAdapter(apiService.getScanJobs(aPageNumber, aCursor, aCursor == null, new MethodCallbackAdapter<>(new OperationCallback<PagedListDto<ScanJobDto>>() {
 			@Override
 			public void onSuccess(PagedListDto<ScanJobDto> aPage) {
 
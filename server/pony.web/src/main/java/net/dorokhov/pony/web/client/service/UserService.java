@@ -26,11 +26,11 @@ public class UserService {
 		apiService = aApiService;
 	}
 
-	public OperationRequest getUsers(int aPageNumber, final OperationCallback<PagedListDto<UserDto>> aCallback) {
+	public OperationRequest getUsers(int aPageNumber, String aCursor, final OperationCallback<PagedListDto<UserDto>> aCallback) {
 
 		log.info("Getting users page [" + aPageNumber + "]...");
 
-		return new RequestAdapter(apiService.getUsers(aPageNumber, new MethodCallbackAdapter<>(new OperationCallback<PagedListDto<UserDto>>() {
+		return new RequestAdapter(apiService.getUsers(aPageNumber, aCursor, aCursor == null, new MethodCallbackAdapter<>(new OperationCallback<PagedListDto<UserDto>>() {
 			@Override
 			public void onSuccess(PagedListDto<UserDto> aPage) {
 
@@ -44,7 +44,8 @@ public interface ApiService extends RestService {
 
 	@GET
 	@Path("/admin/scanJobs")
-	public Request getScanJobs(@QueryParam("pageNumber") int aPageNumber, MethodCallback<ResponseDto<PagedListDto<ScanJobDto>>> aCallback);
+	public Request getScanJobs(@QueryParam("pageNumber") int aPageNumber, @QueryParam("cursor") String aCursor, @QueryParam("total") boolean aCountTotal,
+								MethodCallback<ResponseDto<PagedListDto<ScanJobDto>>> aCallback);
 
 	@GET
 	@Path("/admin/scanJobs/{aId}")
@@ -56,13 +57,15 @@ public interface ApiService extends RestService {
 
 	@GET
 	@Path("/admin/log")
-	public Request getLog(@QueryParam("pageNumber") int aPageNumber, @QueryParam("type") LogMessageDto.Type aType,
+	public Request getLog(@QueryParam("pageNumber") int aPageNumber, @QueryParam("cursor") String aCursor, @QueryParam("total") boolean aCountTotal,
+				   @QueryParam("type") LogMessageDto.Type aType,
 				   @QueryParam("minDate") Long aMinDate, @QueryParam("maxDate") Long aMaxDate,
 				   MethodCallback<ResponseDto<PagedListDto<LogMessageDto>>> aCallback);
 
 	@GET
 	@Path("/admin/users")
-	public Request getUsers(@QueryParam("pageNumber") int aPageNumber, MethodCallback<ResponseDto<PagedListDto<UserDto>>> aCallback);
+	public Request getUsers(@QueryParam("pageNumber") int aPageNumber, @QueryParam("cursor") String aCursor, @QueryParam("total") boolean aCountTotal,
+							MethodCallback<ResponseDto<PagedListDto<UserDto>>> aCallback);
 
 	@POST
 	@Path("/admin/users")
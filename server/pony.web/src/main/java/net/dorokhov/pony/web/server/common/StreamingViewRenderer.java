@@ -17,6 +17,7 @@ package net.dorokhov.pony.web.server.common;
  * If not, see .
  */
 
+import net.dorokhov.pony.core.common.FileRegionInputStream;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.view.AbstractView;
 
@@ -24,6 +25,7 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.nio.channels.Channels;
 import java.util.*;
 
 /**
@@ -196,7 +198,13 @@ public class StreamingViewRenderer extends AbstractView {
 				response.setContentType(contentType);
 				response.setHeader("Content-Range", "bytes " + full.start + "-" + full.end + "/" + full.total);
 				response.setHeader("Content-Length", String.valueOf(full.length));
-				copy(input, output, length, full.start, full.length);
+
+				if (dataStream instanceof FileRegionInputStream) {
+					// Let the file channel transfer the content without copying it through the heap.
+					((FileRegionInputStream) dataStream).transferTo(Channels.newChannel(output));
+				} else {
+					copy(input, output, length, full.start, full.length);
+				}
 
 			} else if (ranges.size() == 1) {
 
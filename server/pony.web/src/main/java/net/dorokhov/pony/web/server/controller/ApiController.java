@@ -162,8 +162,10 @@ public class ApiController {
 
 	@RequestMapping(value = "/admin/users", method = RequestMethod.GET)
 	public ResponseDto<PagedListDto<UserDto>> getUsers(@RequestParam(value = "pageNumber", defaultValue = "0") int aPageNumber,
-													   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize) throws InvalidArgumentException {
-		return responseBuilder.build(userServiceFacade.getAll(aPageNumber, aPageSize));
+													   @RequestParam(value = "cursor", required = false) String aCursor,
+													   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize,
+													   @RequestParam(value = "total", defaultValue = "true") boolean aCountTotal) throws InvalidArgumentException {
+		return responseBuilder.build(userServiceFacade.getAll(aPageNumber, aCursor, aPageSize, aCountTotal));
 	}
 
 	@RequestMapping(value = "/admin/users/{aId}", method = RequestMethod.GET)
@@ -204,7 +206,9 @@ public class ApiController {
 														   @RequestParam(value = "minDate", required = false) Long aMinDate,
 														   @RequestParam(value = "maxDate", required = false) Long aMaxDate,
 														   @RequestParam(value = "pageNumber", defaultValue = "0") int aPageNumber,
-														   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize) throws InvalidArgumentException {
+														   @RequestParam(value = "cursor", required = false) String aCursor,
+														   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize,
+														   @RequestParam(value = "total", defaultValue = "true") boolean aCountTotal) throws InvalidArgumentException {
 
 		LogQueryDto query = new LogQueryDto();
 
@@ -212,13 +216,15 @@ public class ApiController {
 		query.setMinDate(aMinDate != null ? new Date(aMinDate) : null);
 		query.setMaxDate(aMaxDate != null ? new Date(aMaxDate) : null);
 
-		return responseBuilder.build(logServiceFacade.getByQuery(query, aPageNumber, aPageSize));
+		return responseBuilder.build(logServiceFacade.getByQuery(query, aPageNumber, aCursor, aPageSize, aCountTotal));
 	}
 
 	@RequestMapping(value = "/admin/scanJobs", method = RequestMethod.GET)
 	public ResponseDto<PagedListDto<ScanJobDto>> getScanJobs(@RequestParam(value = "pageNumber", defaultValue = "0") int aPageNumber,
-															 @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize) throws InvalidArgumentException {
-		return responseBuilder.build(scanServiceFacade.getScanJobs(aPageNumber, aPageSize));
+															 @RequestParam(value = "cursor", required = false) String aCursor,
+															 @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize,
+															 @RequestParam(value = "total", defaultValue = "true") boolean aCountTotal) throws InvalidArgumentException {
+		return responseBuilder.build(scanServiceFacade.getScanJobs(aPageNumber, aCursor, aPageSize, aCountTotal));
 	}
 
 	@RequestMapping(value = "/admin/scanJobs/{aId}", method = RequestMethod.GET)
@@ -228,8 +234,10 @@ public class ApiController {
 
 	@RequestMapping(value = "/admin/scanResults", method = RequestMethod.GET)
 	public ResponseDto<PagedListDto<ScanResultDto>> getScanResults(@RequestParam(value = "pageNumber", defaultValue = "0") int aPageNumber,
-																   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize) throws InvalidArgumentException {
-		return responseBuilder.build(scanServiceFacade.getScanResults(aPageNumber, aPageSize));
+																   @RequestParam(value = "cursor", required = false) String aCursor,
+																   @RequestParam(value = "pageSize", defaultValue = "25") int aPageSize,
+																   @RequestParam(value = "total", defaultValue = "true") boolean aCountTotal) throws InvalidArgumentException {
+		return responseBuilder.build(scanServiceFacade.getScanResults(aPageNumber, aCursor, aPageSize, aCountTotal));
 	}
 
 	@RequestMapping(value = "/admin/scanResults/{aId}", method = RequestMethod.GET)
@@ -1,8 +1,10 @@
 package net.dorokhov.pony.web.server.controller;
 
+import net.dorokhov.pony.core.common.FileRegionInputStream;
 import net.dorokhov.pony.core.dao.SongDao;
 import net.dorokhov.pony.core.domain.Song;
 import net.dorokhov.pony.core.domain.StoredFile;
+import net.dorokhov.pony.core.library.ArtworkVariantService;
 import net.dorokhov.pony.core.library.LibraryExportService;
 import net.dorokhov.pony.core.library.LibraryExportTaskService;
 import net.dorokhov.pony.core.library.exception.AlbumNotFoundException;
@@ -12,6 +14,7 @@ import net.dorokhov.pony.core.library.export.LibraryBatchExportTask;
 import net.dorokhov.pony.core.library.export.LibrarySingleExportTask;
 import net.dorokhov.pony.core.storage.StoredFileService;
 import net.dorokhov.pony.web.server.common.StreamingViewRenderer;
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +24,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.util.UriUtils;
@@ -28,7 +32,9 @@ import org.springframework.web.util.UriUtils;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 
 @Controller
@@ -39,6 +45,8 @@ public class FileController {
 
 	private StoredFileService storedFileService;
 
+	private ArtworkVariantService artworkVariantService;
+
 	private SongDao songDao;
 
 	private LibraryExportTaskService libraryExportTaskService;
@@ -50,6 +58,11 @@ public class FileController {
 		storedFileService = aStoredFileService;
 	}
 
+	@Autowired
+	public void setArtworkVariantService(ArtworkVariantService aArtworkVariantService) {
+		artworkVariantService = aArtworkVariantService;
+	}
+
 	@Autowired
 	public void setSongDao(SongDao aSongDao) {
 		songDao = aSongDao;
@@ -66,30 +79,70 @@ public class FileController {
 	}
 
 	@RequestMapping(value = "/files/{id}", method = RequestMethod.GET)
-	public Object getStoredFile(@PathVariable("id") Long aStoredFileId) throws IOException {
+	public Object getStoredFile(@PathVariable("id") Long aStoredFileId,
+								@RequestParam(value = "size", required = false) Integer aSize) throws IOException {
+
+		if (aSize != null && !artworkVariantService.getSizes().contains(aSize)) {
+			return new ResponseEntity<>("Size is not supported.", HttpStatus.BAD_REQUEST);
+		}
 
 		StoredFile storedFile = storedFileService.getById(aStoredFileId);
 
 		if (storedFile != null) {
 
-			File file = storedFileService.getFile(storedFile);
+			File variantFile = null;
+
+			if (aSize != null) {
+				try {
+					variantFile = artworkVariantService.getVariant(storedFile, aSize);
+				} catch (Exception e) {
+					log.warn("Could not make variant of stored file [" + storedFile.getId() + "] of size [" + aSize + "].", e);
+				}
+			}
+
+			InputStream inputStream = null;
+			long length = 0;
+
+			if (variantFile != null) {
+				try {
+
+					FileRegionInputStream variantStream = new FileRegionInputStream(variantFile);
 
-			if (file.exists()) {
+					inputStream = variantStream;
+					length = variantStream.getLength();
+
+				} catch (IOException e) {
+					// Variant could be evicted from the cache after it has been returned
+					log.debug("Variant [{}] of stored file [{}] has been deleted.", variantFile.getAbsolutePath(), storedFile.getId());
+				}
+			}
+
+			try {
+
+				// Stored file is returned as is, if original image is not available anymore
+				if (inputStream == null) {
+
+					inputStream = storedFileService.openStream(storedFile);
+					length = storedFile.getSize();
+				}
+
+			} catch (FileNotFoundException e) {
+				log.warn("Content of stored file [" + storedFile.getId() + "] not found.");
+			}
+
+			if (inputStream != null) {
 
 				StreamingViewRenderer renderer = new StreamingViewRenderer();
 
 				HashMap<String, Object> model = new HashMap<>();
 
-				model.put(StreamingViewRenderer.DownloadConstants.CONTENT_LENGTH, file.length());
-				model.put(StreamingViewRenderer.DownloadConstants.FILENAME, file.getName());
+				model.put(StreamingViewRenderer.DownloadConstants.CONTENT_LENGTH, length);
+				model.put(StreamingViewRenderer.DownloadConstants.FILENAME, FilenameUtils.getName(storedFile.getPath()));
 				model.put(StreamingViewRenderer.DownloadConstants.LAST_MODIFIED, storedFile.getDate());
 				model.put(StreamingViewRenderer.DownloadConstants.CONTENT_TYPE, storedFile.getMimeType());
-				model.put(StreamingViewRenderer.DownloadConstants.INPUT_STREAM, new FileInputStream(file));
+				model.put(StreamingViewRenderer.DownloadConstants.INPUT_STREAM, inputStream);
 
 				return new ModelAndView(renderer, model);
-
-			} else {
-				log.warn("File [" + file.getPath() + "] not found.");
 			}
 		}
 
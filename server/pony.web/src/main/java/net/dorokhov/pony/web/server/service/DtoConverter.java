@@ -18,6 +18,10 @@ public class DtoConverter {
 		public DtoType convert(EntityType aItem);
 	}
 
+	public static interface CursorConverter<EntityType> {
+		public PageCursor convert(EntityType aItem);
+	}
+
 	public AlbumDto albumToDto(Album aAlbum) {
 
 		AlbumDto dto = new AlbumDto();
@@ -102,6 +106,39 @@ public class DtoConverter {
 		return dto;
 	}
 
+	/**
+	 * Converts one item more than page size, presence of this item means that the next page exists.
+	 * Total element count is optional, -1 is set for total elements and pages if it is not defined.
+	 */
+	public <EntityType, DtoType> PagedListDto<DtoType> seekListToDto(List<EntityType> aItems, int aPageNumber, int aPageSize, Long aTotalElements,
+																	  ListConverter<EntityType, DtoType> aItemConverter, CursorConverter<EntityType> aCursorConverter) {
+
+		PagedListDto<DtoType> dto = new PagedListDto<>();
+
+		dto.setPageNumber(aPageNumber);
+		dto.setPageSize(aPageSize);
+
+		if (aTotalElements != null) {
+			dto.setTotalPages(aPageSize > 0 ? (int) ((aTotalElements + aPageSize - 1) / aPageSize) : 1);
+			dto.setTotalElements(aTotalElements);
+		} else {
+			dto.setTotalPages(-1);
+			dto.setTotalElements(-1);
+		}
+
+		List<EntityType> pageItems = aItems.size() > aPageSize ? aItems.subList(0, aPageSize) : aItems;
+
+		for (EntityType item : pageItems) {
+			dto.getContent().add(aItemConverter.convert(item));
+		}
+
+		if (aItems.size() > aPageSize && pageItems.size() > 0) {
+			dto.setNextCursor(aCursorConverter.convert(pageItems.get(pageItems.size() - 1)).encode());
+		}
+
+		return dto;
+	}
+
 	public <EntityType, DtoType> PagedListDto<DtoType> pagedListToDto(Page<EntityType> aPage, ListConverter<EntityType, DtoType> aItemConverter) {
 
 		PagedListDto<DtoType> dto = new PagedListDto<>();
@@ -357,6 +394,14 @@ public class DtoConverter {
 			case FULL:
 				dto = ScanTypeDto.FULL;
 				break;
+
+			case INCREMENTAL:
+				dto = ScanTypeDto.INCREMENTAL;
+				break;
+
+			case PARTIAL:
+				dto = ScanTypeDto.PARTIAL;
+				break;
 		}
 
 		return dto;
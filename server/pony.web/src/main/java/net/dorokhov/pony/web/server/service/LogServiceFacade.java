@@ -7,6 +7,6 @@ import net.dorokhov.pony.web.shared.PagedListDto;
 
 public interface LogServiceFacade {
 
-	public PagedListDto<LogMessageDto> getByQuery(LogQueryDto aQuery, int aPageNumber, int aPageSize) throws InvalidArgumentException;
+	public PagedListDto<LogMessageDto> getByQuery(LogQueryDto aQuery, int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException;
 
 }
@@ -8,13 +8,13 @@ import net.dorokhov.pony.web.shared.LogMessageDto;
 import net.dorokhov.pony.web.shared.LogQueryDto;
 import net.dorokhov.pony.web.shared.PagedListDto;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
+import java.util.List;
 
 @Service
 public class LogServiceFacadeImpl implements LogServiceFacade {
@@ -37,7 +37,7 @@ public class LogServiceFacadeImpl implements LogServiceFacade {
 
 	@Override
 	@Transactional(readOnly = true)
-	public PagedListDto<LogMessageDto> getByQuery(LogQueryDto aQuery, int aPageNumber, int aPageSize) throws InvalidArgumentException {
+	public PagedListDto<LogMessageDto> getByQuery(LogQueryDto aQuery, int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException {
 
 		if (aPageNumber < 0) {
 			throw new InvalidArgumentException(ErrorCodes.PAGE_NUMBER_INVALID, "Page number [" + aPageNumber + "] is invalid", String.valueOf(aPageNumber));
@@ -80,14 +80,31 @@ public class LogServiceFacadeImpl implements LogServiceFacade {
 				break;
 		}
 
-		Page<LogMessage> page = logService.getByTypeAndDate(type, minDate, maxDate, new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "date"));
-
-		return dtoConverter.pagedListToDto(page, new DtoConverter.ListConverter<LogMessage, LogMessageDto>() {
+		DtoConverter.ListConverter<LogMessage, LogMessageDto> converter = new DtoConverter.ListConverter<LogMessage, LogMessageDto>() {
 			@Override
 			public LogMessageDto convert(LogMessage aItem) {
 				return dtoConverter.logMessageToDto(aItem);
 			}
-		});
+		};
+
+		// Page number without cursor is supported for compatibility
+		if (aCursor == null && aPageNumber > 0) {
+			return dtoConverter.pagedListToDto(logService.getByTypeAndDate(type, minDate, maxDate,
+					new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "date", "id")), converter);
+		}
+
+		PageCursor cursor = aCursor != null ? PageCursor.decode(aCursor) : null;
+
+		List<LogMessage> messages = logService.seekByTypeAndDate(type, minDate, maxDate,
+				cursor != null ? cursor.getDateValue() : null, cursor != null ? cursor.getId() : null, aPageSize + 1);
+
+		return dtoConverter.seekListToDto(messages, aPageNumber, aPageSize, aCountTotal ? logService.getCountByTypeAndDate(type, minDate, maxDate) : null, converter,
+				new DtoConverter.CursorConverter<LogMessage>() {
+					@Override
+					public PageCursor convert(LogMessage aItem) {
+						return new PageCursor(aItem.getId(), aItem.getDate());
+					}
+				});
 	}
 
 }
@@ -0,0 +1,72 @@
+package net.dorokhov.pony.web.server.service;
+
+import net.dorokhov.pony.web.server.exception.InvalidArgumentException;
+import net.dorokhov.pony.web.shared.ErrorCodes;
+import org.apache.commons.codec.binary.Base64;
+
+import java.nio.charset.Charset;
+import java.util.Date;
+
+/**
+ * Position of the last item of a page, encoded into an opaque token of the next page.
+ */
+public class PageCursor {
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private final Long id;
+
+	private final String value;
+
+	public PageCursor(Long aId, String aValue) {
+		id = aId;
+		value = aValue;
+	}
+
+	public PageCursor(Long aId, Date aValue) {
+		this(aId, String.valueOf(aValue.getTime()));
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public Date getDateValue() throws InvalidArgumentException {
+		try {
+			return new Date(Long.parseLong(value));
+		} catch (NumberFormatException e) {
+			throw buildException(value);
+		}
+	}
+
+	public String encode() {
+		return Base64.encodeBase64URLSafeString((id + ":" + value).getBytes(CHARSET));
+	}
+
+	public static PageCursor decode(String aToken) throws InvalidArgumentException {
+
+		String decodedToken = new String(Base64.decodeBase64(aToken), CHARSET);
+
+		// Value goes last, it can contain separator
+		int separatorIndex = decodedToken.indexOf(':');
+
+		if (separatorIndex < 0) {
+			throw buildException(aToken);
+		}
+
+		try {
+			return new PageCursor(Long.valueOf(decodedToken.substring(0, separatorIndex)), decodedToken.substring(separatorIndex + 1));
+		} catch (NumberFormatException e) {
+			throw buildException(aToken);
+		}
+	}
+
+	private static InvalidArgumentException buildException(String aToken) {
+		return new InvalidArgumentException(ErrorCodes.PAGE_CURSOR_INVALID, "Page cursor [" + aToken + "] is invalid.", aToken);
+	}
+
+}
@@ -15,11 +15,11 @@ public interface ScanServiceFacade {
 	public ScanJobDto startScanJob() throws LibraryNotDefinedException;
 	public ScanJobDto startEditJob(ScanEditCommandDto aCommand) throws ArtworkUploadNotFoundException;
 
-	public PagedListDto<ScanJobDto> getScanJobs(int aPageNumber, int aPageSize) throws InvalidArgumentException;
+	public PagedListDto<ScanJobDto> getScanJobs(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException;
 
 	public ScanJobDto getScanJob(Long aId) throws ObjectNotFoundException;
 
-	public PagedListDto<ScanResultDto> getScanResults(int aPageNumber, int aPageSize) throws InvalidArgumentException;
+	public PagedListDto<ScanResultDto> getScanResults(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException;
 
 	public ScanResultDto getScanResult(Long aId) throws ObjectNotFoundException;
 
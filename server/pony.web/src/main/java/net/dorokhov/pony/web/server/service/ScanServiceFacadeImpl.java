@@ -13,7 +13,6 @@ import net.dorokhov.pony.web.server.exception.ObjectNotFoundException;
 import net.dorokhov.pony.web.shared.*;
 import net.dorokhov.pony.web.shared.command.ScanEditCommandDto;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
@@ -117,7 +116,7 @@ public class ScanServiceFacadeImpl implements ScanServiceFacade {
 
 	@Override
 	@Transactional(readOnly = true)
-	public PagedListDto<ScanJobDto> getScanJobs(int aPageNumber, int aPageSize) throws InvalidArgumentException {
+	public PagedListDto<ScanJobDto> getScanJobs(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException {
 
 		if (aPageNumber < 0) {
 			throw new InvalidArgumentException(ErrorCodes.PAGE_NUMBER_INVALID, "Page number [" + aPageNumber + "] is invalid.", String.valueOf(aPageNumber));
@@ -127,14 +126,29 @@ public class ScanServiceFacadeImpl implements ScanServiceFacade {
 					String.valueOf(aPageSize), String.valueOf(MAX_PAGE_SIZE));
 		}
 
-		Page<ScanJob> page = scanJobService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "creationDate", "updateDate"));
-
-		return dtoConverter.pagedListToDto(page, new DtoConverter.ListConverter<ScanJob, ScanJobDto>() {
+		DtoConverter.ListConverter<ScanJob, ScanJobDto> converter = new DtoConverter.ListConverter<ScanJob, ScanJobDto>() {
 			@Override
 			public ScanJobDto convert(ScanJob aItem) {
 				return dtoConverter.scanJobToDto(aItem);
 			}
-		});
+		};
+
+		// Page number without cursor is supported for compatibility
+		if (aCursor == null && aPageNumber > 0) {
+			return dtoConverter.pagedListToDto(scanJobService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "creationDate", "id")), converter);
+		}
+
+		PageCursor cursor = aCursor != null ? PageCursor.decode(aCursor) : null;
+
+		List<ScanJob> jobs = scanJobService.seekAll(cursor != null ? cursor.getDateValue() : null, cursor != null ? cursor.getId() : null, aPageSize + 1);
+
+		return dtoConverter.seekListToDto(jobs, aPageNumber, aPageSize, aCountTotal ? scanJobService.getCount() : null, converter,
+				new DtoConverter.CursorConverter<ScanJob>() {
+					@Override
+					public PageCursor convert(ScanJob aItem) {
+						return new PageCursor(aItem.getId(), aItem.getCreationDate());
+					}
+				});
 	}
 
 	@Override
@@ -152,7 +166,7 @@ public class ScanServiceFacadeImpl implements ScanServiceFacade {
 
 	@Override
 	@Transactional(readOnly = true)
-	public PagedListDto<ScanResultDto> getScanResults(int aPageNumber, int aPageSize) throws InvalidArgumentException {
+	public PagedListDto<ScanResultDto> getScanResults(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException {
 
 		if (aPageNumber < 0) {
 			throw new InvalidArgumentException(ErrorCodes.PAGE_NUMBER_INVALID, "Page number [" + aPageNumber + "] is invalid", String.valueOf(aPageNumber));
@@ -162,14 +176,29 @@ public class ScanServiceFacadeImpl implements ScanServiceFacade {
 					String.valueOf(aPageSize), String.valueOf(MAX_PAGE_SIZE));
 		}
 
-		Page<ScanResult> page = scanService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "date"));
-
-		return dtoConverter.pagedListToDto(page, new DtoConverter.ListConverter<ScanResult, ScanResultDto>() {
+		DtoConverter.ListConverter<ScanResult, ScanResultDto> converter = new DtoConverter.ListConverter<ScanResult, ScanResultDto>() {
 			@Override
 			public ScanResultDto convert(ScanResult aItem) {
 				return dtoConverter.scanResultToDto(aItem);
 			}
-		});
+		};
+
+		// Page number without cursor is supported for compatibility
+		if (aCursor == null && aPageNumber > 0) {
+			return dtoConverter.pagedListToDto(scanService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.DESC, "date", "id")), converter);
+		}
+
+		PageCursor cursor = aCursor != null ? PageCursor.decode(aCursor) : null;
+
+		List<ScanResult> results = scanService.seekAll(cursor != null ? cursor.getDateValue() : null, cursor != null ? cursor.getId() : null, aPageSize + 1);
+
+		return dtoConverter.seekListToDto(results, aPageNumber, aPageSize, aCountTotal ? scanService.getCount() : null, converter,
+				new DtoConverter.CursorConverter<ScanResult>() {
+					@Override
+					public PageCursor convert(ScanResult aItem) {
+						return new PageCursor(aItem.getId(), aItem.getDate());
+					}
+				});
 	}
 
 	@Override
@@ -15,7 +15,7 @@ public interface UserServiceFacade {
 
 	public UserDto getById(Long aId) throws ObjectNotFoundException;
 
-	public PagedListDto<UserDto> getAll(int aPageNumber, int aPageSize) throws InvalidArgumentException;
+	public PagedListDto<UserDto> getAll(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException;
 
 	public UserDto create(CreateUserCommandDto aCommand) throws UserExistsException;
 	public UserDto update(UpdateUserCommandDto aCommand) throws UserNotFoundException, UserExistsException, SelfRoleModificationException;
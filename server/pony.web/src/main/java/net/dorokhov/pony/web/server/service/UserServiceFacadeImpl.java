@@ -11,13 +11,13 @@ import net.dorokhov.pony.web.shared.command.UpdateCurrentUserCommandDto;
 import net.dorokhov.pony.web.shared.command.UpdateUserCommandDto;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Service
@@ -54,7 +54,7 @@ public class UserServiceFacadeImpl implements UserServiceFacade {
 
 	@Override
 	@Transactional(readOnly = true)
-	public PagedListDto<UserDto> getAll(int aPageNumber, int aPageSize) throws InvalidArgumentException {
+	public PagedListDto<UserDto> getAll(int aPageNumber, String aCursor, int aPageSize, boolean aCountTotal) throws InvalidArgumentException {
 
 		if (aPageNumber < 0) {
 			throw new InvalidArgumentException(ErrorCodes.PAGE_NUMBER_INVALID, "Page number [" + aPageNumber + "] is invalid.", String.valueOf(aPageNumber));
@@ -64,14 +64,29 @@ public class UserServiceFacadeImpl implements UserServiceFacade {
 					String.valueOf(aPageSize), String.valueOf(MAX_PAGE_SIZE));
 		}
 
-		Page<User> page = userService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.ASC, "name", "email"));
-
-		return dtoConverter.pagedListToDto(page, new DtoConverter.ListConverter<User, UserDto>() {
+		DtoConverter.ListConverter<User, UserDto> converter = new DtoConverter.ListConverter<User, UserDto>() {
 			@Override
 			public UserDto convert(User aItem) {
 				return dtoConverter.userToDto(aItem);
 			}
-		});
+		};
+
+		// Page number without cursor is supported for compatibility
+		if (aCursor == null && aPageNumber > 0) {
+			return dtoConverter.pagedListToDto(userService.getAll(new PageRequest(aPageNumber, aPageSize, Sort.Direction.ASC, "name", "id")), converter);
+		}
+
+		PageCursor cursor = aCursor != null ? PageCursor.decode(aCursor) : null;
+
+		List<User> users = userService.seekAll(cursor != null ? cursor.getValue() : null, cursor != null ? cursor.getId() : null, aPageSize + 1);
+
+		return dtoConverter.seekListToDto(users, aPageNumber, aPageSize, aCountTotal ? userService.getCount() : null, converter,
+				new DtoConverter.CursorConverter<User>() {
+					@Override
+					public PageCursor convert(User aItem) {
+						return new PageCursor(aItem.getId(), aItem.getName());
+					}
+				});
 	}
 
 	@Override
@@ -32,6 +32,7 @@ public class ErrorCodes {
 
 	public static final String PAGE_NUMBER_INVALID = "errorPageNumberInvalid";
 	public static final String PAGE_SIZE_INVALID = "errorPageSizeInvalid";
+	public static final String PAGE_CURSOR_INVALID = "errorPageCursorInvalid";
 
 	public static final String SONGS_COUNT_INVALID = "errorSongsCountInvalid";
 
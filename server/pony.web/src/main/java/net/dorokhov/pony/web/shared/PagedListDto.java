@@ -13,6 +13,8 @@ public class PagedListDto<T> {
 
 	private long totalElements;
 
+	private String nextCursor;
+
 	private List<T> content;
 
 	public int getPageNumber() {
@@ -47,6 +49,15 @@ public class PagedListDto<T> {
 		totalElements = aTotalElements;
 	}
 
+	// Opaque token of the next page, null if this page is the last one
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String aNextCursor) {
+		nextCursor = aNextCursor;
+	}
+
 	public List<T> getContent() {
 
 		if (content == null) {
@@ -1,5 +1,5 @@
 package net.dorokhov.pony.web.shared;
 
 public enum ScanTypeDto {
-	FULL, EDIT
+	FULL, INCREMENTAL, PARTIAL, EDIT
 }